@@ -0,0 +1,181 @@
+package edu.ccrm.bench;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the JMH benchmarks at several data scales and keeps a history of the results. Every run is
+ * appended to a results file and compared with the previous run of the same benchmark and scale
+ * there, so a slowdown beyond the threshold is flagged as a regression.
+ *
+ * <pre>
+ * java -cp bench/target/benchmarks.jar edu.ccrm.bench.BenchmarkRunner [--scales=10000,100000]
+ *      [--iterations=5] [--results=bench/results.csv] [--threshold=10] [--only=term,enrollment.enroll]
+ * java -cp bench/target/benchmarks.jar edu.ccrm.bench.BenchmarkRunner --scales=1000000 --generate=load.txt
+ * </pre>
+ * Benchmarks are named group.method, the group being the benchmark class without its
+ * "Benchmarks" suffix ({@code TermBenchmarks.closeTerm} is {@code term.closeTerm}). {@code --only}
+ * takes exact benchmark or group names; the default is the service, persistence and term groups.
+ * With {@code --generate} nothing is measured: the first scale's data set is written as a
+ * batch-mode command file instead, for driving {@code AppMain --batch} end to end.
+ */
+public final class BenchmarkRunner {
+    private static final String PACKAGE = "edu.ccrm.bench.";
+    private static final String SUFFIX = "Benchmarks";
+    private static final List<String> DEFAULT_GROUPS = List.of("student", "course", "enrollment", "io", "term");
+
+    private final List<Result> results = new ArrayList<>();
+
+    private static final class Result {
+        final String benchmark;
+        final int scale;
+        final double nsPerOp;
+
+        Result(String benchmark, int scale, double nsPerOp) {
+            this.benchmark = benchmark;
+            this.scale = scale;
+            this.nsPerOp = nsPerOp;
+        }
+
+        String key() { return benchmark + "@" + scale; }
+    }
+
+    private BenchmarkRunner() { }
+
+    public static void main(String[] args) throws Exception {
+        String[] scales = option(args, "--scales=", "10000,100000").split(",");
+        for (int i = 0; i < scales.length; i++) scales[i] = scales[i].trim();
+        Path resultsFile = Path.of(option(args, "--results=", "bench/results.csv"));
+        double threshold = Double.parseDouble(option(args, "--threshold=", "10"));
+        String generate = option(args, "--generate=", "");
+        if (!generate.isEmpty()) {
+            SyntheticData data = SyntheticData.ofScale(Integer.parseInt(scales[0]));
+            data.writeBatchCommands(Path.of(generate));
+            System.out.println("Wrote " + data.getStudents() + " students, " + data.getCourses() + " courses and "
+                    + data.getEnrollments() + " enrollment requests to " + generate);
+            return;
+        }
+
+        String only = option(args, "--only=", "");
+        List<String> names = only.isEmpty() ? DEFAULT_GROUPS : Arrays.asList(only.split(","));
+        ChainedOptionsBuilder opts = new OptionsBuilder().param("scale", scales);
+        for (String name : names) opts.include(pattern(name.trim()));
+        String iterations = option(args, "--iterations=", "");
+        if (!iterations.isEmpty()) opts.measurementIterations(Integer.parseInt(iterations));
+
+        BenchmarkRunner runner = new BenchmarkRunner();
+        for (RunResult r : new Runner(opts.build()).run()) runner.add(r);
+
+        Map<String, Double> previous = readLatest(resultsFile);
+        runner.report(previous, threshold);
+        runner.append(resultsFile);
+        System.out.println("Results appended to " + resultsFile);
+    }
+
+    private static String option(String[] args, String prefix, String defaultValue) {
+        for (String a : args) if (a.startsWith(prefix)) return a.substring(prefix.length());
+        return defaultValue;
+    }
+
+    // "term" selects every TermBenchmarks method, "term.closeTerm" exactly that one
+    static String pattern(String name) {
+        int dot = name.indexOf('.');
+        String group = dot < 0 ? name : name.substring(0, dot);
+        if (group.isEmpty()) throw new IllegalArgumentException("bad benchmark name: " + name);
+        String cls = PACKAGE + Character.toUpperCase(group.charAt(0)) + group.substring(1) + SUFFIX;
+        return "^" + Pattern.quote(cls + ".") + (dot < 0 ? "\\w+" : Pattern.quote(name.substring(dot + 1))) + "$";
+    }
+
+    static String label(String benchmark) {
+        String cls = benchmark.substring(0, benchmark.lastIndexOf('.'));
+        String group = cls.substring(cls.lastIndexOf('.') + 1);
+        if (group.endsWith(SUFFIX)) group = group.substring(0, group.length() - SUFFIX.length());
+        return Character.toLowerCase(group.charAt(0)) + group.substring(1) + benchmark.substring(cls.length());
+    }
+
+    private void add(RunResult r) {
+        BenchmarkParams p = r.getParams();
+        String scale = p.getParam("scale");
+        double perOp = r.getPrimaryResult().getScore();
+        // throughput scores are operations per unit; single-shot scores are for the whole batch
+        if (p.getMode() == Mode.Throughput) perOp = 1 / perOp;
+        else if (p.getMode() == Mode.SingleShotTime) perOp /= p.getMeasurement().getBatchSize();
+        results.add(new Result(label(p.getBenchmark()), scale == null ? 0 : Integer.parseInt(scale),
+                perOp * TimeUnit.NANOSECONDS.convert(1, p.getTimeUnit())));
+    }
+
+    private static String format(double ns) {
+        return ns >= 100 ? String.format(Locale.ROOT, "%.0f", ns) : String.format(Locale.ROOT, "%.1f", ns);
+    }
+
+    private void report(Map<String, Double> previous, double thresholdPercent) {
+        System.out.printf("%n%-32s %10s %14s %14s %9s%n", "benchmark", "scale", "ns/op", "previous", "change");
+        int regressions = 0;
+        for (Result r : results) {
+            Double before = previous.get(r.key());
+            String change = "";
+            String flag = "";
+            if (before != null && before > 0) {
+                double pct = (r.nsPerOp - before) / before * 100;
+                change = String.format(Locale.ROOT, "%+.1f%%", pct);
+                if (pct > thresholdPercent) {
+                    flag = "  REGRESSION";
+                    regressions++;
+                }
+            }
+            System.out.printf("%-32s %10d %14s %14s %9s%s%n", r.benchmark, r.scale, format(r.nsPerOp),
+                    before == null ? "-" : format(before), change, flag);
+        }
+        if (regressions > 0) System.out.println(regressions + " benchmark(s) slower than the previous run by more than " + thresholdPercent + "%");
+    }
+
+    // results file: timestamp,benchmark,scale,ns_per_op; the last row per benchmark and scale wins
+    private static Map<String, Double> readLatest(Path file) throws IOException {
+        Map<String, Double> latest = new HashMap<>();
+        if (!Files.exists(file)) return latest;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] f = line.split(",");
+            if (f.length < 4 || f[0].equals("timestamp")) continue;
+            try {
+                latest.put(f[1] + "@" + f[2], Double.parseDouble(f[3]));
+            } catch (NumberFormatException e) {
+                // hand-edited or truncated row: ignore it
+            }
+        }
+        return latest;
+    }
+
+    private void append(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        boolean fresh = !Files.exists(file);
+        String ts = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            if (fresh) w.write("timestamp,benchmark,scale,ns_per_op\n");
+            for (Result r : results) {
+                w.write(ts + "," + r.benchmark + "," + r.scale + "," + String.format(Locale.ROOT, "%.2f", r.nsPerOp) + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Grade;
+import edu.ccrm.service.ChangeEvent;
+import edu.ccrm.service.ChangeFeed;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Throughput of the {@link ChangeFeed}: publisher threads enroll, grade and drop through the
+ * services while several subscribers drain the feed. Each configuration gets fresh services, so
+ * the runs are comparable:
+ * <ul>
+ *   <li>no feed - the baseline mutation rate;</li>
+ *   <li>fast subscribers only - counting, per-course tallies and a lag probe;</li>
+ *   <li>the same plus a slow DROP subscriber (sleeps per batch) - mutation rate should not move,
+ *   the slow one reports gaps instead;</li>
+ *   <li>the same with the slow subscriber on BLOCK - backpressure, publishers are held to its pace.</li>
+ * </ul>
+ *
+ * <pre>
+ * java -cp bench/target/benchmarks.jar edu.ccrm.bench.ChangeFeedBenchmark [--publishers=4] [--cycles=200000] [--capacity=65536]
+ *      [--students=20000] [--courses=200]
+ * </pre>
+ * One cycle is enroll, grade and drop of a random course by one of the publisher's students, three events.
+ */
+public final class ChangeFeedBenchmark {
+    private static final int BATCH = 1024;
+    private static final long SLOW_BATCH_SLEEP_MILLIS = 2;
+
+    private final int publishers;
+    private final int cycles;
+    private final int capacity;
+    private final SyntheticData data;
+
+    private ChangeFeedBenchmark(int publishers, int cycles, int capacity, int students, int courses) {
+        this.publishers = publishers;
+        this.cycles = cycles;
+        this.capacity = capacity;
+        this.data = new SyntheticData(students, courses, 0);
+    }
+
+    public static void main(String[] args) throws Exception {
+        ChangeFeedBenchmark b = new ChangeFeedBenchmark(intOption(args, "--publishers=", 4),
+                intOption(args, "--cycles=", 200_000), intOption(args, "--capacity=", 65_536),
+                intOption(args, "--students=", 20_000), intOption(args, "--courses=", 200));
+        System.out.printf("%d publishers x %d cycles, ring capacity %d%n", b.publishers, b.cycles, b.capacity);
+        b.run("warm-up", true, null, 2);
+        b.run("no feed", false, null, 1);
+        b.run("3 fast subscribers", true, null, 1);
+        b.run("3 fast + slow (DROP)", true, ChangeFeed.OverflowPolicy.DROP, 1);
+        b.run("3 fast + slow (BLOCK)", true, ChangeFeed.OverflowPolicy.BLOCK, 1);
+    }
+
+    private static int intOption(String[] args, String prefix, int defaultValue) {
+        for (String a : args) if (a.startsWith(prefix)) return Integer.parseInt(a.substring(prefix.length()));
+        return defaultValue;
+    }
+
+    private void run(String label, boolean withFeed, ChangeFeed.OverflowPolicy slowPolicy, int rounds) throws Exception {
+        for (int round = 0; round < rounds; round++) {
+            StudentService ss = new StudentService();
+            CourseService cs = new CourseService();
+            EnrollmentService es = new EnrollmentService(ss, cs);
+            data.populate(ss, cs, es);
+
+            ChangeFeed feed = withFeed ? new ChangeFeed(ss, cs, es, capacity) : null;
+            List<ChangeFeed.Subscription> subs = new ArrayList<>();
+            long[] maxLagNanos = new long[1];
+            if (feed != null) {
+                long[] count = new long[1];
+                subs.add(feed.subscribe("count", batch -> count[0] += batch.size(), ChangeFeed.OverflowPolicy.DROP, BATCH));
+                Map<String, Integer> perCourse = new HashMap<>();
+                subs.add(feed.subscribe("tally", batch -> {
+                    for (ChangeEvent e : batch) {
+                        if (e.getType() == ChangeEvent.Type.ENROLLED) perCourse.merge(e.getCourseCode(), 1, Integer::sum);
+                        else if (e.getType() == ChangeEvent.Type.DROPPED) perCourse.merge(e.getCourseCode(), -1, Integer::sum);
+                    }
+                }, ChangeFeed.OverflowPolicy.DROP, BATCH));
+                subs.add(feed.subscribe("lag", batch -> {
+                    long lag = System.nanoTime() - batch.get(0).getTimestampNanos();
+                    if (lag > maxLagNanos[0]) maxLagNanos[0] = lag;
+                }, ChangeFeed.OverflowPolicy.DROP, BATCH));
+                if (slowPolicy != null) {
+                    subs.add(feed.subscribe("slow", batch -> Thread.sleep(SLOW_BATCH_SLEEP_MILLIS), slowPolicy, BATCH));
+                }
+            }
+
+            long elapsed = drive(es);
+            long published = feed == null ? 0 : feed.getPublished();
+            if (feed != null) {
+                // give the fast subscribers a moment to catch up before reading their counters
+                for (int i = 0; i < 100 && lagging(subs); i++) Thread.sleep(10);
+                feed.close();
+            }
+            if (rounds > 1 && round < rounds - 1) continue;
+            System.out.printf("%n%-24s %10.0f cycles/s  (%d ms)%n", label, (double) publishers * cycles / (elapsed / 1e9),
+                    elapsed / 1_000_000);
+            if (feed != null) {
+                System.out.printf("  %d events published, %d publisher stalls, max delivery lag %.1f ms%n", published,
+                        feed.getPublisherStalls(), maxLagNanos[0] / 1e6);
+                for (ChangeFeed.Subscription s : subs) {
+                    System.out.printf("  %-6s %-5s %10.0f events/s  %d delivered in %d batches, %d missed%n", s.getName(),
+                            s.getPolicy(), s.getDelivered() / (elapsed / 1e9), s.getDelivered(), s.getBatches(), s.getMissed());
+                }
+            }
+        }
+    }
+
+    private static boolean lagging(List<ChangeFeed.Subscription> subs) {
+        for (ChangeFeed.Subscription s : subs) {
+            if (!s.getName().equals("slow") && s.getLag() > 0) return true;
+        }
+        return false;
+    }
+
+    // each publisher works on its own slice of students so they contend only on course seats
+    private long drive(EnrollmentService es) throws Exception {
+        String[] regNos = data.regNos();
+        String[] codes = data.codes();
+        int slice = regNos.length / publishers;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < publishers; p++) {
+            int base = p * slice;
+            SplittableRandom rnd = new SplittableRandom(31L * p + 1);
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < cycles; i++) {
+                    String reg = regNos[base + rnd.nextInt(slice)];
+                    String code = codes[data.popularCourse(rnd)];
+                    es.enroll(reg, code);
+                    es.assignGrade(reg, code, Grade.values()[rnd.nextInt(Grade.values().length)]);
+                    es.drop(reg, code);
+                }
+            }, "publisher-" + p);
+            threads.add(t);
+            t.start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread t : threads) t.join();
+        return System.nanoTime() - t0;
+    }
+}
@@ -0,0 +1,101 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.CsvReader;
+import edu.ccrm.io.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link CsvReader} and the CsvWriter-based export against the code they replaced
+ * ({@link LegacyCsv}: splitCsv plus unescape per line, String.format rows buffered in a list) on
+ * a synthetic students.csv. The parse benchmarks read every field of every record; run with
+ * {@code -prof gc} to compare allocation per operation as well as time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvBenchmarks {
+    private static final int COURSES_PER_STUDENT = 5;
+
+    @Param({"100000", "1000000"})
+    public int students;
+
+    private List<Student> roster;
+    private Path file;
+    private Path legacyOut;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        Registry.useScratchDataDir();
+        SyntheticData data = new SyntheticData(students, Math.max(50, students / 100), 0);
+        roster = new ArrayList<>(students);
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < students; i++) {
+            Student s = data.student(i);
+            codes.clear();
+            for (int k = 0; k < COURSES_PER_STUDENT; k++) codes.add(data.codes()[(i * 7 + k * 13) % data.getCourses()]);
+            s.enrollCourses(codes);
+            roster.add(s);
+        }
+        FileUtil.exportStudentsCsv(roster);
+        file = FileUtil.dataFile("students.csv");
+        legacyOut = file.resolveSibling("students-legacy.csv");
+    }
+
+    @Benchmark
+    public long parseLegacy() throws IOException {
+        long h = 0;
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            for (String line : (Iterable<String>) lines.skip(1)::iterator) {
+                String[] parts = LegacyCsv.splitCsv(line);
+                for (String p : parts) h += LegacyCsv.unescape(p).length();
+            }
+        }
+        return h;
+    }
+
+    @Benchmark
+    public long parseCsvReader() throws IOException {
+        long h = 0;
+        try (CsvReader r = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            r.next(); // header
+            while (r.next()) {
+                for (int f = 0; f < r.fieldCount(); f++) h += r.length(f);
+            }
+        }
+        return h;
+    }
+
+    @Benchmark
+    public void exportLegacy() throws IOException {
+        LegacyCsv.exportStudentsCsv(roster, legacyOut);
+    }
+
+    @Benchmark
+    public void exportCsvWriter() throws IOException {
+        FileUtil.exportStudentsCsv(roster);
+    }
+}
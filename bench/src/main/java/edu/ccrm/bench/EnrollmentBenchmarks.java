@@ -0,0 +1,61 @@
+package edu.ccrm.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** {@code EnrollmentService} aggregates and registration over a populated {@link Registry}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnrollmentBenchmarks {
+    static final int COHORT = 20_000;
+
+    /** A cohort of students registered (untimed) before each iteration, so every enroll is a first enrollment. */
+    @State(Scope.Benchmark)
+    public static class Cohort {
+        private final String[] regNos = new String[COHORT];
+        private int round;
+        private int next;
+
+        @Setup(Level.Iteration)
+        public void register(Registry r) {
+            for (int i = 0; i < COHORT; i++) {
+                regNos[i] = "B" + round + "-" + i;
+                r.students.createStudent(regNos[i], "Bench Student", regNos[i] + "@bench.edu");
+            }
+            round++;
+            next = 0;
+        }
+    }
+
+    @Benchmark
+    public double calculateGPA(Registry r) {
+        return r.enrollments.calculateGPA(r.nextRegNo());
+    }
+
+    @Benchmark
+    public int studentTotalCredits(Registry r) {
+        return r.enrollments.studentTotalCredits(r.nextRegNo());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = COHORT)
+    @Measurement(iterations = 5, batchSize = COHORT)
+    public boolean enroll(Registry r, Cohort c) {
+        return r.enrollments.enroll(c.regNos[c.next++], r.nextCode());
+    }
+}
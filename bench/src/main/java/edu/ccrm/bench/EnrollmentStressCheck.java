@@ -0,0 +1,199 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Multithreaded stress check of {@code EnrollmentService}. Many threads enroll, waitlist, drop,
+ * bulk-enroll and grade a small pool of students into a small pool of courses, so they collide
+ * on the same students, courses and seats all the time. Afterwards the state must be consistent:
+ * <ul>
+ *   <li>running totals equal a recompute from the rows ({@code verifyTotals});</li>
+ *   <li>no student is over 24 credits;</li>
+ *   <li>no (regNo, course) pair is enrolled twice, and each student's course list matches their rows;</li>
+ *   <li>no course holds more students than seats, and taken seats equal the roster size.</li>
+ * </ul>
+ * A second round runs the same load while another thread keeps changing course credits, racing
+ * the credit listener against enrolls and drops. The credit cap is not checked there: raising a
+ * course's credits may legitimately push its students over 24, since the cap applies when they
+ * enroll.
+ *
+ * <pre>
+ * java -cp bench/target/benchmarks.jar edu.ccrm.bench.EnrollmentStressCheck [--threads=16] [--ops=200000]
+ *      [--students=64] [--courses=24] [--rounds=3]
+ * </pre>
+ * Exits with status 1 if any check fails.
+ */
+public final class EnrollmentStressCheck {
+    private static final int MAX_CREDITS = 24;
+
+    private final int threads;
+    private final int ops;
+    private final int students;
+    private final int courses;
+    private final List<String> failures = new ArrayList<>();
+
+    private EnrollmentStressCheck(int threads, int ops, int students, int courses) {
+        this.threads = threads;
+        this.ops = ops;
+        this.students = students;
+        this.courses = courses;
+    }
+
+    public static void main(String[] args) throws Exception {
+        EnrollmentStressCheck check = new EnrollmentStressCheck(
+                intOption(args, "--threads=", Math.max(8, 2 * Runtime.getRuntime().availableProcessors())),
+                intOption(args, "--ops=", 200_000), intOption(args, "--students=", 64), intOption(args, "--courses=", 24));
+        int rounds = intOption(args, "--rounds=", 3);
+        System.out.printf("%d threads x %d operations on %d students and %d courses%n", check.threads, check.ops,
+                check.students, check.courses);
+        for (int round = 1; round <= rounds; round++) {
+            check.run("round " + round, false, round);
+            check.run("round " + round + " + credit changes", true, round);
+        }
+        if (check.failures.isEmpty()) {
+            System.out.println("OK");
+            return;
+        }
+        for (String f : check.failures) System.out.println("FAIL " + f);
+        System.exit(1);
+    }
+
+    private static int intOption(String[] args, String prefix, int defaultValue) {
+        for (String a : args) if (a.startsWith(prefix)) return Integer.parseInt(a.substring(prefix.length()));
+        return defaultValue;
+    }
+
+    private void run(String label, boolean changeCredits, long seed) throws Exception {
+        StudentService ss = new StudentService();
+        CourseService cs = new CourseService();
+        EnrollmentService es = new EnrollmentService(ss, cs);
+        String[] regNos = new String[students];
+        for (int i = 0; i < students; i++) {
+            regNos[i] = SyntheticData.regNo(i);
+            ss.createStudent(regNos[i], "Stress Student " + i, "s" + i + "@stress.edu");
+        }
+        // credits 3-6 so a handful of courses reaches the cap; every third course has few seats
+        List<Course> catalog = new ArrayList<>();
+        for (int i = 0; i < courses; i++) {
+            Course c = new Course("STR" + (100 + i), "Stress " + i, 3 + i % 4, "Dr. Load", "FALL", "CSE",
+                    i % 3 == 0 ? 1 + students / 8 : 0);
+            cs.addCourse(c);
+            catalog.add(c);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom rnd = new SplittableRandom(seed * 1_000 + t);
+            workers.add(new Thread(() -> work(es, regNos, catalog, rnd, start), "stress-" + t));
+        }
+        Thread changer = !changeCredits ? null : new Thread(() -> {
+            SplittableRandom rnd = new SplittableRandom(seed);
+            await(start);
+            while (!done.get()) {
+                catalog.get(rnd.nextInt(courses)).setCredits(2 + rnd.nextInt(5));
+                Thread.yield();
+            }
+        }, "stress-credits");
+        for (Thread w : workers) w.start();
+        if (changer != null) changer.start();
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) w.join();
+        done.set(true);
+        if (changer != null) changer.join();
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+
+        int before = failures.size();
+        verify(label, ss, cs, es, catalog, !changeCredits);
+        System.out.printf("%-32s %6d ms  %5d enrollments  %s%n", label, ms, es.listAll().size(),
+                failures.size() == before ? "ok" : (failures.size() - before) + " failure(s)");
+    }
+
+    private void work(EnrollmentService es, String[] regNos, List<Course> catalog, SplittableRandom rnd,
+                      CountDownLatch start) {
+        await(start);
+        for (int i = 0; i < ops; i++) {
+            String reg = regNos[rnd.nextInt(regNos.length)];
+            String code = catalog.get(rnd.nextInt(catalog.size())).getCode();
+            int op = rnd.nextInt(100);
+            if (op < 35) es.enroll(reg, code);
+            else if (op < 50) es.enrollOrWaitlist(reg, code);
+            else if (op < 80) es.drop(reg, code);
+            else if (op < 90) es.assignGrade(reg, code, Grade.values()[rnd.nextInt(Grade.values().length)]);
+            else {
+                // a small bulk feed, duplicates of the same course included
+                List<EnrollmentRequest> batch = new ArrayList<>();
+                for (int k = 0; k < 4; k++) {
+                    batch.add(new EnrollmentRequest(regNos[rnd.nextInt(regNos.length)],
+                            catalog.get(rnd.nextInt(catalog.size())).getCode(), null));
+                }
+                es.enrollAll(batch);
+            }
+        }
+    }
+
+    private static void await(CountDownLatch start) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void verify(String label, StudentService ss, CourseService cs, EnrollmentService es, List<Course> catalog,
+                        boolean checkCap) {
+        List<String> mismatched = es.verifyTotals();
+        if (!mismatched.isEmpty()) fail(label, mismatched.size() + " students' running totals disagree with their rows, e.g. " + mismatched.get(0));
+
+        Set<String> pairs = new HashSet<>();
+        for (Enrollment e : es.listAll()) {
+            if (!pairs.add(e.getRegNo() + "|" + e.getCourseCode().toUpperCase(Locale.ROOT))) {
+                fail(label, "duplicate enrollment " + e.getRegNo() + " in " + e.getCourseCode());
+            }
+        }
+        for (Student s : ss.listAll()) {
+            int rows = es.listEnrollmentsForStudent(s.getRegNo()).size();
+            if (s.enrolledCourseCount() != rows) {
+                fail(label, s.getRegNo() + " lists " + s.enrolledCourseCount() + " courses but has " + rows + " enrollments");
+            }
+            int credits = es.recomputeTotals(s.getRegNo()).getEnrolledCredits();
+            if (checkCap && credits > MAX_CREDITS) fail(label, s.getRegNo() + " is enrolled for " + credits + " credits");
+        }
+        for (Course c : catalog) {
+            int enrolled = es.countForCourse(c.getCode());
+            if (c.hasSeatLimit() && enrolled > c.getCapacity()) {
+                fail(label, c.getCode() + " has " + enrolled + " students for " + c.getCapacity() + " seats");
+            }
+            if (es.seatsTaken(c.getCode()) != enrolled) {
+                fail(label, c.getCode() + " counts " + es.seatsTaken(c.getCode()) + " seats taken for " + enrolled + " students");
+            }
+            for (String regNo : es.waitlistFor(c.getCode())) {
+                if (ss.findByRegNo(regNo).map(s -> s.isEnrolledIn(c.getCode())).orElse(false)) {
+                    fail(label, regNo + " is both enrolled in and waitlisted for " + c.getCode());
+                }
+            }
+        }
+    }
+
+    private void fail(String label, String message) {
+        failures.add(label + ": " + message);
+    }
+}
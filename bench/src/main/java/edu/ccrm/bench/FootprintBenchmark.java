@@ -0,0 +1,147 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Retained heap of the students and the current-term enrollment store, measured with JOL by
+ * walking the object graph, against {@link LegacyLayout} (course codes as strings, a
+ * CopyOnWriteArrayList of codes per student and a composite-key map over the enrollments) holding
+ * the same data. Both sides share nothing but the course code strings, which the legacy side
+ * counts once. Running totals, seat pools and the listing indexes are laid out the same way in
+ * both and are left out.
+ *
+ * <pre>
+ * java -Djdk.attach.allowAttachSelf -cp bench/target/benchmarks.jar edu.ccrm.bench.FootprintBenchmark
+ *      [--students=100000] [--per-student=6] [--courses=500] [--histogram]
+ * </pre>
+ * {@code --histogram} also prints the per-class breakdown of both layouts.
+ */
+public final class FootprintBenchmark {
+    private static final String TERM = "2026-FALL";
+
+    private final int students;
+    private final int perStudent;
+    private final int courses;
+
+    private FootprintBenchmark(int students, int perStudent, int courses) {
+        if (perStudent > courses) throw new IllegalArgumentException("--per-student must not exceed --courses");
+        this.students = students;
+        this.perStudent = perStudent;
+        this.courses = courses;
+    }
+
+    public static void main(String[] args) throws Exception {
+        FootprintBenchmark b = new FootprintBenchmark(intOption(args, "--students=", 100_000),
+                intOption(args, "--per-student=", 6), intOption(args, "--courses=", 500));
+        boolean histogram = List.of(args).contains("--histogram");
+        System.out.printf("%d students x %d enrollments over %d courses%n", b.students, b.perStudent, b.courses);
+
+        GraphLayout current = b.current();
+        GraphLayout legacy = b.legacy();
+        b.print("legacy layout", legacy);
+        b.print("current layout", current);
+        System.out.printf("%-16s %+.1f%%%n", "change", 100.0 * (current.totalSize() - legacy.totalSize()) / legacy.totalSize());
+        if (histogram) {
+            System.out.println("\nlegacy layout\n" + legacy.toFootprint());
+            System.out.println("current layout\n" + current.toFootprint());
+        }
+    }
+
+    private static int intOption(String[] args, String prefix, int defaultValue) {
+        for (String a : args) if (a.startsWith(prefix)) return Integer.parseInt(a.substring(prefix.length()));
+        return defaultValue;
+    }
+
+    private void print(String label, GraphLayout layout) {
+        System.out.printf("%-16s %,14d bytes  %,11d objects  %,7.0f bytes/student  %,6.0f bytes/enrollment%n", label,
+                layout.totalSize(), layout.totalCount(), (double) layout.totalSize() / students,
+                (double) layout.totalSize() / ((long) students * perStudent));
+    }
+
+    // the same courses and grades for both layouts
+    private int[] coursesOf(int student) {
+        SplittableRandom rnd = new SplittableRandom(student);
+        int[] picked = new int[perStudent];
+        for (int k = 0; k < perStudent; k++) {
+            int c;
+            do c = rnd.nextInt(courses); while (contains(picked, k, c));
+            picked[k] = c;
+        }
+        return picked;
+    }
+
+    private static boolean contains(int[] a, int n, int v) {
+        for (int i = 0; i < n; i++) if (a[i] == v) return true;
+        return false;
+    }
+
+    private static Grade gradeOf(int student, int k) {
+        Grade[] grades = Grade.values();
+        return (student + k) % 3 == 0 ? null : grades[(student + k) % grades.length];
+    }
+
+    private static String regNo(int i) { return SyntheticData.regNo(i); }
+
+    private GraphLayout current() throws ReflectiveOperationException {
+        CourseService cs = new CourseService();
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < courses; i++) {
+            Course c = new Course("FP" + (1000 + i), "Footprint " + i, 3, "Dr. Heap", "FALL", "CSE");
+            cs.addCourse(c);
+            codes.add(c.getCode());
+        }
+        EnrollmentService es = new EnrollmentService(new StudentService(), cs);
+        es.restoreCurrentTerm(TERM);
+        // students stay out of the StudentService: its change listener would pull every service into the graph
+        Student[] all = new Student[students];
+        List<Enrollment> rows = new ArrayList<>(perStudent);
+        for (int i = 0; i < students; i++) {
+            Student s = new Student(i + 1, regNo(i), "Footprint Student " + i, "fp" + i + "@bench.edu", LocalDate.of(2026, 9, 1));
+            rows.clear();
+            int[] picked = coursesOf(i);
+            for (int k = 0; k < perStudent; k++) rows.add(new Enrollment(s.getRegNo(), codes.get(picked[k]), gradeOf(i, k)));
+            es.restoreEnrollments(s, rows);
+            all[i] = s;
+        }
+        // the store is package-private to the service; it is read reflectively so the real layout is measured
+        Field store = EnrollmentService.class.getDeclaredField("store");
+        store.setAccessible(true);
+        return GraphLayout.parseInstance(all, store.get(es));
+    }
+
+    private GraphLayout legacy() {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < courses; i++) codes.add("FP" + (1000 + i));
+        LegacyLayout.Store store = new LegacyLayout.Store();
+        LegacyLayout.Student[] all = new LegacyLayout.Student[students];
+        for (int i = 0; i < students; i++) {
+            LegacyLayout.Student s = new LegacyLayout.Student(i + 1, regNo(i), "Footprint Student " + i,
+                    "fp" + i + "@bench.edu", LocalDate.of(2026, 9, 1));
+            List<LegacyLayout.Enrollment> rows = new ArrayList<>(perStudent);
+            List<String> enrolled = new ArrayList<>(perStudent);
+            int[] picked = coursesOf(i);
+            for (int k = 0; k < perStudent; k++) {
+                String code = codes.get(picked[k]);
+                rows.add(new LegacyLayout.Enrollment(s.regNo, code, gradeOf(i, k), TERM));
+                enrolled.add(code);
+            }
+            store.addAllForStudent(s.regNo, rows);
+            s.enrolledCourseCodes.addAllAbsent(enrolled);
+            all[i] = s;
+        }
+        return GraphLayout.parseInstance(all, store);
+    }
+}
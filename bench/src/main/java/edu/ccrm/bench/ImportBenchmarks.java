@@ -0,0 +1,93 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.FileUtil;
+import edu.ccrm.io.LoadReport;
+import edu.ccrm.io.ParallelCsvImporter;
+import edu.ccrm.service.StudentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of {@link ParallelCsvImporter} over a synthetic students.csv with 1, 2, 4 and all
+ * available threads ({@code threads=0}), next to the sequential {@code FileUtil.loadStudents}.
+ * Each operation loads the whole file into fresh services. The default file is about 75 MB; for
+ * multi-GB inputs pass e.g. {@code -p students=20000000} (the file is written once per trial).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ImportBenchmarks {
+
+    @State(Scope.Benchmark)
+    public static class StudentsFile {
+        @Param({"1000000"})
+        public int students;
+
+        Path file;
+
+        @Setup(Level.Trial)
+        public void write() throws IOException {
+            Registry.useScratchDataDir();
+            FileUtil.ensureDataDir();
+            file = FileUtil.dataFile("students.csv");
+            SyntheticData data = new SyntheticData(students, Math.max(50, students / 100), 0);
+            // streamed a row at a time so the file can be much larger than the heap
+            try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                w.write("id,regNo,fullName,email,active,enrollmentDate,enrolledCourses\n");
+                for (int i = 0; i < students; i++) {
+                    Student s = data.student(i);
+                    w.write(s.getId() + "," + s.getRegNo() + "," + s.getFullName() + "," + s.getEmail() + ",true,"
+                            + s.getEnrollmentDate() + "," + data.codes()[i % data.getCourses()] + ";"
+                            + data.codes()[(i * 7) % data.getCourses()] + "\n");
+                }
+            }
+            System.out.printf("%n%s: %d MB%n", file, Files.size(file) >> 20);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pool {
+        /** importer parallelism, 0 = available processors */
+        @Param({"1", "2", "4", "0"})
+        public int threads;
+
+        ParallelCsvImporter importer;
+
+        @Setup(Level.Trial)
+        public void create() {
+            importer = new ParallelCsvImporter(threads == 0 ? Runtime.getRuntime().availableProcessors() : threads);
+        }
+    }
+
+    @Benchmark
+    public long sequential(StudentsFile f) throws IOException {
+        LoadReport r = FileUtil.loadStudents(new StudentService(), null);
+        return r.getLoaded();
+    }
+
+    @Benchmark
+    public long parallel(StudentsFile f, Pool p) throws IOException {
+        LoadReport r = p.importer.loadStudents(f.file, new StudentService(), null);
+        return r.getLoaded();
+    }
+}
@@ -0,0 +1,86 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.io.FileUtil;
+import edu.ccrm.io.SnapshotIO;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code FileUtil} export and import, and the {@code SnapshotIO} snapshot, of a populated {@link Registry}. Files go to a scratch data
+ * directory unless -Dccrm.data.dir is given.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IoBenchmarks {
+
+    /** The registry exported once, so the load benchmarks have files to read. */
+    @State(Scope.Benchmark)
+    public static class Exported {
+        @Setup(Level.Trial)
+        public void export(Registry r) throws IOException {
+            Registry.useScratchDataDir();
+            FileUtil.exportAll(r.students, r.courses, r.enrollments);
+            SnapshotIO.save(SnapshotIO.defaultFile(), r.students, r.courses, r.enrollments);
+        }
+    }
+
+    /** Empty services for each load. */
+    @State(Scope.Thread)
+    public static class Empty {
+        StudentService students;
+        CourseService courses;
+        EnrollmentService enrollments;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            students = new StudentService();
+            courses = new CourseService();
+            enrollments = new EnrollmentService(students, courses);
+        }
+    }
+
+    @Benchmark
+    public long exportAll(Registry r, Exported files) throws IOException {
+        return FileUtil.exportAll(r.students, r.courses, r.enrollments);
+    }
+
+    @Benchmark
+    public long loadCoursesAndStudents(Exported files, Empty e) throws IOException {
+        return FileUtil.loadCourses(e.courses).getLoaded() + FileUtil.loadStudents(e.students, e.enrollments).getLoaded();
+    }
+
+    @Benchmark
+    public void saveSnapshot(Registry r, Exported files) throws IOException {
+        SnapshotIO.save(SnapshotIO.defaultFile(), r.students, r.courses, r.enrollments);
+    }
+
+    /** The same state as loadCoursesAndStudents, read from the binary snapshot. */
+    @Benchmark
+    public int loadSnapshot(Exported files, Empty e) throws IOException {
+        SnapshotIO.load(SnapshotIO.defaultFile(), e.students, e.courses, e.enrollments);
+        return e.students.size();
+    }
+
+    @Benchmark
+    public int importStudentsCsv(Exported files) throws IOException {
+        return FileUtil.importStudentsCsv().size();
+    }
+}
@@ -0,0 +1,112 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.io.Journal;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable mutations per second through the {@link Journal} at several group-commit windows. Each
+ * operation assigns a grade, which appends one record and returns once it is fsynced. With one
+ * thread every record pays a whole fsync (plus the window); with many threads a wider window lets
+ * one fsync cover more writers. Records per fsync are printed at the end of each trial. The journal
+ * goes to a scratch file unless -Dccrm.data.dir is given; the numbers depend on the disk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalBenchmarks {
+    static final String COURSE = "JRN101";
+    static final int RING = 16; // students per thread
+    static final Grade[] GRADES = Grade.values();
+
+    @State(Scope.Benchmark)
+    public static class Journaled {
+        /** group-commit window in milliseconds, 0 = sync as soon as anything is pending */
+        @Param({"0", "1", "2", "5", "10"})
+        public long window;
+
+        StudentService students;
+        EnrollmentService enrollments;
+        Journal journal;
+
+        @Setup(Level.Trial)
+        public void open() throws IOException {
+            Registry.useScratchDataDir();
+            students = new StudentService();
+            CourseService courses = new CourseService();
+            enrollments = new EnrollmentService(students, courses);
+            courses.addCourse(new Course(COURSE, "Journaled course", 3, "Dr. Disk", "FALL", "CSE"));
+            Path file = Files.createTempFile(Path.of(System.getProperty("ccrm.data.dir")), "journal", ".log");
+            journal = new Journal(file, window);
+            journal.attach(students, courses, enrollments);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            long records = journal.recordCount();
+            long syncs = journal.syncCount();
+            System.out.printf("%nwindow %d ms: %d records in %d fsyncs (%.1f per fsync)%n", window, records, syncs,
+                    syncs == 0 ? 0.0 : (double) records / syncs);
+            journal.close();
+            Files.deleteIfExists(journal.getFile());
+        }
+    }
+
+    /** Each thread grades its own students, so threads only share the journal. */
+    @State(Scope.Thread)
+    public static class Graders {
+        final String[] ring = new String[RING];
+        int next;
+
+        @Setup(Level.Trial)
+        public void enroll(Journaled j, ThreadParams t) {
+            for (int i = 0; i < RING; i++) {
+                ring[i] = "J" + t.getThreadIndex() + "-" + i;
+                j.students.createStudent(ring[i], "Journal Student", ring[i] + "@bench.edu");
+                j.enrollments.enroll(ring[i], COURSE);
+            }
+        }
+    }
+
+    private static boolean grade(Journaled j, Graders g) {
+        int n = g.next++;
+        return j.enrollments.assignGrade(g.ring[n & (RING - 1)], COURSE, GRADES[n % GRADES.length]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean oneThread(Journaled j, Graders g) {
+        return grade(j, g);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean sixteenThreads(Journaled j, Graders g) {
+        return grade(j, g);
+    }
+}
@@ -0,0 +1,62 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Student;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// FileUtil's CSV code from before CsvReader and CsvWriter replaced it, kept verbatim (apart from
+// the file parameter) as the baseline for CsvBenchmarks
+final class LegacyCsv {
+    private LegacyCsv() {}
+
+    static void exportStudentsCsv(Collection<Student> students, Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("id,regNo,fullName,email,active,enrollmentDate,enrolledCourses");
+        for (Student s : students) {
+            String enrolled = String.join(";", s.getEnrolledCourseCodes());
+            lines.add(String.format("%d,%s,%s,%s,%s,%s,%s",
+                    s.getId(), s.getRegNo(), escape(s.getFullName()), s.getEmail(),
+                    s.isActive(), s.getEnrollmentDate(), escape(enrolled)));
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    static String escape(String s) {
+        if (s == null) return "";
+        return s.replace(",", "\\,");
+    }
+
+    static String[] splitCsv(String line) {
+        // simple split that treats escaped commas \, (sufficient for basic csv here)
+        List<String> out = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        boolean esc = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (esc) {
+                sb.append(ch);
+                esc = false;
+            } else if (ch == '\\') {
+                esc = true;
+            } else if (ch == ',') {
+                out.add(sb.toString());
+                sb = new StringBuilder();
+            } else {
+                sb.append(ch);
+            }
+        }
+        out.add(sb.toString());
+        return out.toArray(new String[0]);
+    }
+
+    static String unescape(String s) {
+        return s == null ? "" : s.replace("\\,", ",");
+    }
+}
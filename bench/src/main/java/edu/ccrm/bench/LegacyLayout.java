@@ -0,0 +1,103 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.ChangeListener;
+import edu.ccrm.domain.Grade;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// the Student, Enrollment and EnrollmentStore layouts from before course codes were dictionary
+// encoded: codes as String references, each student's courses in a CopyOnWriteArrayList<String>
+// and a composite-key map over every enrollment. Fields only, as the baseline for
+// FootprintBenchmark; the term field added to Enrollment later is included so only the layout
+// differs.
+final class LegacyLayout {
+    private LegacyLayout() {}
+
+    static final class Student {
+        int id;
+        String regNo;
+        volatile String fullName;
+        volatile String email;
+        volatile boolean active = true;
+        final CopyOnWriteArrayList<String> enrolledCourseCodes = new CopyOnWriteArrayList<>();
+        LocalDate enrollmentDate;
+        final List<ChangeListener<Student>> listeners = new CopyOnWriteArrayList<>();
+
+        Student(int id, String regNo, String fullName, String email, LocalDate enrollmentDate) {
+            this.id = id;
+            this.regNo = regNo;
+            this.fullName = fullName;
+            this.email = email;
+            this.enrollmentDate = enrollmentDate;
+        }
+    }
+
+    static final class Enrollment {
+        final String regNo;
+        final String courseCode;
+        final String term;
+        volatile Grade grade;
+
+        Enrollment(String regNo, String courseCode, Grade grade, String term) {
+            this.regNo = regNo;
+            this.courseCode = courseCode;
+            this.grade = grade;
+            this.term = term;
+        }
+    }
+
+    static final class Store {
+        final Map<Key, Enrollment> byKey = new ConcurrentHashMap<>();
+        final Map<String, List<Enrollment>> byStudent = new ConcurrentHashMap<>();
+        final Map<String, Roster> byCourse = new ConcurrentHashMap<>();
+
+        void addAllForStudent(String regNo, List<Enrollment> batch) {
+            for (Enrollment e : batch) {
+                byKey.put(new Key(regNo, e.courseCode), e);
+                byCourse.computeIfAbsent(codeKey(e.courseCode), k -> new Roster()).add(e);
+            }
+            byStudent.computeIfAbsent(regNo, k -> new CopyOnWriteArrayList<>()).addAll(batch);
+        }
+    }
+
+    static final class Roster {
+        final Queue<Enrollment> entries = new ConcurrentLinkedQueue<>();
+        final AtomicInteger count = new AtomicInteger();
+
+        void add(Enrollment e) {
+            entries.add(e);
+            count.incrementAndGet();
+        }
+    }
+
+    static final class Key {
+        final String regNo;
+        final String courseCode;
+
+        Key(String regNo, String courseCode) {
+            this.regNo = regNo;
+            this.courseCode = codeKey(courseCode);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return regNo.equals(k.regNo) && courseCode.equals(k.courseCode);
+        }
+
+        @Override
+        public int hashCode() { return 31 * regNo.hashCode() + courseCode.hashCode(); }
+    }
+
+    static String codeKey(String code) { return code.toUpperCase(Locale.ROOT); }
+}
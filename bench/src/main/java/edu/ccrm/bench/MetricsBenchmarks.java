@@ -0,0 +1,110 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link Metrics} probes. {@code Metrics.ENABLED} is fixed when the class loads, so
+ * each setting runs in its own fork: the {@code *Disabled} methods in a plain JVM, the
+ * {@code *Enabled} ones with {@code -Dccrm.metrics=true}. {@code bare} is the same work with no
+ * probe at all; {@code probeDisabled} should match it. The {@code gpa*} pair times a real
+ * instrumented call, calculateGPA, both ways.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmarks {
+    private static final Metrics.Timer TIMER = Metrics.timer("bench.probe", "MetricsBenchmarks probe");
+    private static final Metrics.Counter COUNTER = Metrics.counter("bench.probe_calls", "MetricsBenchmarks probe calls");
+    private static final String ENABLED = "-Dccrm.metrics=true";
+    static final int STUDENTS = 64; // power of two
+
+    @State(Scope.Thread)
+    public static class Work {
+        final long[] values = new long[16];
+        final String[] regNos = new String[STUDENTS];
+        EnrollmentService enrollments;
+        int next;
+
+        @Setup(Level.Trial)
+        public void create() {
+            for (int i = 0; i < values.length; i++) values[i] = i * 31L;
+            StudentService students = new StudentService();
+            CourseService courses = new CourseService();
+            enrollments = new EnrollmentService(students, courses);
+            Grade[] grades = Grade.values();
+            for (int c = 0; c < 4; c++) courses.addCourse(new Course("MET10" + c, "Metrics " + c, 3, "Dr. Probe", "FALL", "CSE"));
+            for (int i = 0; i < STUDENTS; i++) {
+                regNos[i] = "M" + i;
+                students.createStudent(regNos[i], "Metrics Student", regNos[i] + "@bench.edu");
+                for (int c = 0; c < 4; c++) {
+                    enrollments.enroll(regNos[i], "MET10" + c);
+                    enrollments.assignGrade(regNos[i], "MET10" + c, grades[(i + c) % grades.length]);
+                }
+            }
+        }
+
+        // a few nanoseconds of work the probe is wrapped around
+        long work() {
+            long sum = 0;
+            for (long v : values) sum += v ^ (sum << 1);
+            return sum;
+        }
+
+        String nextRegNo() { return regNos[next++ & (STUDENTS - 1)]; }
+    }
+
+    private static long probed(Work w) {
+        long t0 = Metrics.start();
+        long r = w.work();
+        COUNTER.increment();
+        TIMER.stop(t0);
+        return r;
+    }
+
+    @Benchmark
+    public long bare(Work w) {
+        return w.work();
+    }
+
+    @Benchmark
+    public long probeDisabled(Work w) {
+        return probed(w);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = ENABLED)
+    public long probeEnabled(Work w) {
+        return probed(w);
+    }
+
+    @Benchmark
+    public double gpaDisabled(Work w) {
+        return w.enrollments.calculateGPA(w.nextRegNo());
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = ENABLED)
+    public double gpaEnabled(Work w) {
+        return w.enrollments.calculateGPA(w.nextRegNo());
+    }
+}
@@ -0,0 +1,61 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.SplittableRandom;
+
+/**
+ * Services populated from {@link SyntheticData} at the {@code scale} parameter (students), shared
+ * by the service, persistence and term benchmarks. Lookup keys are drawn once, with course keys
+ * following the popularity skew, so a benchmark only indexes an array to pick its next key.
+ */
+@State(Scope.Benchmark)
+public class Registry {
+    private static final int PROBES = 1 << 16;
+
+    @Param({"10000", "100000"})
+    public int scale;
+
+    SyntheticData data;
+    StudentService students;
+    CourseService courses;
+    EnrollmentService enrollments;
+
+    private final String[] regProbe = new String[PROBES];
+    private final String[] codeProbe = new String[PROBES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        data = SyntheticData.ofScale(scale);
+        students = new StudentService();
+        courses = new CourseService();
+        enrollments = new EnrollmentService(students, courses);
+        data.populate(students, courses, enrollments);
+        SplittableRandom rnd = new SplittableRandom(7);
+        for (int i = 0; i < PROBES; i++) {
+            regProbe[i] = data.regNos()[rnd.nextInt(scale)];
+            codeProbe[i] = data.codes()[data.popularCourse(rnd)];
+        }
+    }
+
+    String nextRegNo() { return regProbe[next++ & (PROBES - 1)]; }
+
+    String nextCode() { return codeProbe[next++ & (PROBES - 1)]; }
+
+    // FileUtil reads ccrm.data.dir when it loads, so this has to run before its first use
+    static void useScratchDataDir() throws IOException {
+        if (System.getProperty("ccrm.data.dir") == null) {
+            System.setProperty("ccrm.data.dir", Files.createTempDirectory("ccrm-bench").toString());
+        }
+    }
+}
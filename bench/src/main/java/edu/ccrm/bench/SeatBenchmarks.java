@@ -0,0 +1,103 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentResult;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seat allocation on a single hot course. Every thread keeps a ring of its own students and, per
+ * operation, drops the next one from the course and enrolls them again, so all threads fight over
+ * the same seat counter. With a seat limit of one ring, eight threads want eight times the seats
+ * there are and most attempts come back COURSE_FULL. The {@code allocated} and {@code full}
+ * counters report successful allocations and rejections per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatBenchmarks {
+    static final String HOT = "HOT101";
+    static final int RING = 16; // seats each thread tries to hold
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        /** seat limit of the hot course, 0 = unlimited */
+        @Param({"0", "16"})
+        public int capacity;
+
+        StudentService students;
+        EnrollmentService enrollments;
+
+        @Setup(Level.Trial)
+        public void create() {
+            students = new StudentService();
+            CourseService courses = new CourseService();
+            enrollments = new EnrollmentService(students, courses);
+            courses.addCourse(new Course(HOT, "Hot course", 3, "Dr. Popular", "FALL", "CSE", capacity));
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Outcome {
+        public long allocated;
+        public long full;
+        String[] ring = new String[RING];
+        int next;
+
+        @Setup(Level.Trial)
+        public void register(Catalog c, ThreadParams t) {
+            for (int i = 0; i < RING; i++) {
+                ring[i] = "H" + t.getThreadIndex() + "-" + i;
+                c.students.createStudent(ring[i], "Hot Student", ring[i] + "@bench.edu");
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            allocated = 0;
+            full = 0;
+        }
+    }
+
+    private static EnrollmentResult reallocate(Catalog c, Outcome o) {
+        String reg = o.ring[o.next++ & (RING - 1)];
+        c.enrollments.drop(reg, HOT);
+        EnrollmentResult r = c.enrollments.tryEnroll(reg, HOT);
+        if (r == EnrollmentResult.ENROLLED) o.allocated++;
+        else if (r == EnrollmentResult.COURSE_FULL) o.full++;
+        return r;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public EnrollmentResult oneThread(Catalog c, Outcome o) {
+        return reallocate(c, o);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public EnrollmentResult eightThreads(Catalog c, Outcome o) {
+        return reallocate(c, o);
+    }
+}
@@ -0,0 +1,32 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Student;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/** {@code StudentService} lookups and listing over a populated {@link Registry}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentBenchmarks {
+
+    @Benchmark
+    public Optional<Student> findByRegNo(Registry r) {
+        return r.students.findByRegNo(r.nextRegNo());
+    }
+
+    @Benchmark
+    public int listAll(Registry r) {
+        return r.students.listAll().size();
+    }
+}
@@ -0,0 +1,160 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.BatchEnrollmentReport;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic registry: N students, M courses and about K enrollments with the skew a
+ * real registrar sees. Course popularity is Zipf-distributed (a few intro courses take most of the
+ * enrollments), per-student load varies around K/N, credits are 2-5 with 3 and 4 most common, and
+ * grades lean towards A-C. The same seed always produces the same data.
+ */
+public final class SyntheticData {
+    private static final String[] DEPARTMENTS = {"CSE", "ECE", "MECH", "CIVIL", "MATH", "PHYS", "CHEM", "BIO", "HUM", "MGMT"};
+    private static final String[] SEMESTERS = {"SPRING", "SUMMER", "FALL"};
+    private static final String[] FIRST = {"Aarav", "Diya", "Kabir", "Meera", "Rohan", "Ananya", "Vikram", "Isha",
+            "Arjun", "Saanvi", "Noah", "Emma", "Liam", "Olivia", "Mateo", "Sofia", "Chen", "Yuki", "Omar", "Amara"};
+    private static final String[] LAST = {"Sharma", "Iyer", "Khan", "Patel", "Reddy", "Nair", "Gupta", "Das",
+            "Smith", "Garcia", "Nguyen", "Kim", "Okafor", "Silva", "Muller", "Rossi", "Tanaka", "Haddad"};
+    // cumulative grade weights in Grade order S, A, B, C, D, E, F
+    private static final int[] GRADE_CDF = {8, 30, 58, 80, 91, 96, 100};
+    private static final int[] CREDITS = {2, 3, 3, 3, 4, 4, 4, 5};
+
+    private final int students;
+    private final int courses;
+    private final long enrollments;
+    private final long seed;
+
+    private final String[] regNos;
+    private final String[] codes;
+    private final double[] popularityCdf;
+
+    public SyntheticData(int students, int courses, long enrollments, double zipfExponent, long seed) {
+        if (students <= 0 || courses <= 0 || enrollments < 0) throw new IllegalArgumentException("sizes must be positive");
+        this.students = students;
+        this.courses = courses;
+        this.enrollments = enrollments;
+        this.seed = seed;
+        this.regNos = new String[students];
+        for (int i = 0; i < students; i++) regNos[i] = regNo(i);
+        this.codes = new String[courses];
+        for (int i = 0; i < courses; i++) codes[i] = DEPARTMENTS[i % DEPARTMENTS.length] + (100 + i);
+        this.popularityCdf = new double[courses];
+        double sum = 0;
+        for (int i = 0; i < courses; i++) {
+            sum += 1.0 / Math.pow(i + 1, zipfExponent);
+            popularityCdf[i] = sum;
+        }
+        for (int i = 0; i < courses; i++) popularityCdf[i] /= sum;
+    }
+
+    /** Default skew (Zipf s = 1.1) and seed. */
+    public SyntheticData(int students, int courses, long enrollments) {
+        this(students, courses, enrollments, 1.1, 42L);
+    }
+
+    /** The benchmark data set at a scale: one course per 100 students (at least 50), five enrollment requests per student. */
+    public static SyntheticData ofScale(int students) {
+        return new SyntheticData(students, Math.max(50, students / 100), (long) students * 5);
+    }
+
+    public static String regNo(int i) { return String.format("R%07d", i); }
+
+    public int getStudents() { return students; }
+    public int getCourses() { return courses; }
+    public long getEnrollments() { return enrollments; }
+    public String[] regNos() { return regNos; }
+    public String[] codes() { return codes; }
+
+    /** A course index drawn by popularity. */
+    public int popularCourse(SplittableRandom rnd) {
+        int i = Arrays.binarySearch(popularityCdf, rnd.nextDouble());
+        return Math.min(i < 0 ? -i - 1 : i, courses - 1);
+    }
+
+    public Course course(int i) {
+        SplittableRandom rnd = new SplittableRandom(seed ^ (0x9E3779B97F4A7C15L * (i + 1)));
+        String dept = DEPARTMENTS[i % DEPARTMENTS.length];
+        return new Course(codes[i], dept + " topic " + i, CREDITS[rnd.nextInt(CREDITS.length)],
+                "Dr. " + LAST[rnd.nextInt(LAST.length)], SEMESTERS[rnd.nextInt(SEMESTERS.length)], dept);
+    }
+
+    public Student student(int i) {
+        SplittableRandom rnd = new SplittableRandom(seed ^ (0xC2B2AE3D27D4EB4FL * (i + 1)));
+        String name = FIRST[rnd.nextInt(FIRST.length)] + " " + LAST[rnd.nextInt(LAST.length)];
+        return new Student(i + 1, regNos[i], name, regNos[i].toLowerCase(Locale.ROOT) + "@campus.edu",
+                LocalDate.of(2018 + rnd.nextInt(6), 1 + rnd.nextInt(12), 1 + rnd.nextInt(28)));
+    }
+
+    public static Grade grade(SplittableRandom rnd) {
+        int r = rnd.nextInt(100);
+        for (int g = 0; g < GRADE_CDF.length; g++) if (r < GRADE_CDF[g]) return Grade.values()[g];
+        return Grade.F;
+    }
+
+    /**
+     * The enrollment requests, grouped by student. Each student asks for a load around K/N
+     * (uniform between half and one and a half times it); about 80% of requests carry a grade.
+     */
+    public List<EnrollmentRequest> enrollmentRequests() {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        List<EnrollmentRequest> out = new ArrayList<>((int) Math.min(enrollments, Integer.MAX_VALUE - 8));
+        double mean = (double) enrollments / students;
+        long left = enrollments;
+        for (int s = 0; s < students && left > 0; s++) {
+            int want = (int) Math.round(mean * (0.5 + rnd.nextDouble()));
+            if (s == students - 1) want = (int) left;
+            want = (int) Math.min(want, Math.min(left, courses));
+            for (int k = 0; k < want; k++) {
+                String code = codes[popularCourse(rnd)];
+                out.add(new EnrollmentRequest(regNos[s], code, rnd.nextInt(10) < 8 ? grade(rnd) : null));
+            }
+            left -= want;
+        }
+        return out;
+    }
+
+    /** Loads everything into the services; returns the bulk enrollment outcome (duplicates and credit-cap rejections included). */
+    public BatchEnrollmentReport populate(StudentService ss, CourseService cs, EnrollmentService es) {
+        for (int i = 0; i < courses; i++) cs.addCourse(course(i));
+        for (int i = 0; i < students; i++) ss.addStudent(student(i));
+        return es.enrollAll(enrollmentRequests());
+    }
+
+    /** Writes the same data as batch-mode commands (see {@code AppMain --batch}). */
+    public void writeBatchCommands(Path file) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < courses; i++) {
+                Course c = course(i);
+                w.write("course " + c.getCode() + " " + c.getCredits() + " 0 " + c.getSemester() + " " + c.getDepartment()
+                        + " \"" + c.getInstructor() + "\" " + c.getTitle() + "\n");
+            }
+            for (int i = 0; i < students; i++) {
+                Student s = student(i);
+                w.write("student " + s.getRegNo() + " " + s.getEmail() + " " + s.getFullName() + "\n");
+            }
+            for (EnrollmentRequest r : enrollmentRequests()) {
+                w.write("enroll " + r.getRegNo() + " " + r.getCourseCode() + "\n");
+                if (r.getGrade() != null) w.write("grade " + r.getRegNo() + " " + r.getCourseCode() + " " + r.getGrade() + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.TermSegment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-term history: the registry's term is closed {@link #TERMS} times (re-enrolling the
+ * synthetic requests into each new term), so GPA and segment loads run with several closed terms
+ * behind the current one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TermBenchmarks {
+    static final int TERMS = 4;
+
+    @State(Scope.Benchmark)
+    public static class History {
+        EnrollmentService es;
+        Registry registry;
+        String oldest;
+        private int term;
+
+        @Setup(Level.Trial)
+        public void closeTerms(Registry r) throws IOException {
+            registry = r;
+            es = r.enrollments;
+            es.openTermArchive(Files.createTempDirectory("ccrm-terms"));
+            while (es.closedTerms().size() < TERMS) {
+                refill();
+                es.closeTerm(nextTerm());
+            }
+            refill();
+            oldest = es.closedTerms().get(0);
+        }
+
+        // the current term after a close is empty: register the synthetic requests again
+        void refill() {
+            if (es.listAll().isEmpty()) es.enrollAll(registry.data.enrollmentRequests());
+        }
+
+        String nextTerm() { return "T" + ++term; }
+    }
+
+    /** Refills the current term before each single-shot close. */
+    @State(Scope.Benchmark)
+    public static class Refilled {
+        @Setup(Level.Iteration)
+        public void refill(History h) { h.refill(); }
+    }
+
+    /** Drops every closed term from memory before each single-shot load. */
+    @State(Scope.Benchmark)
+    public static class Offloaded {
+        @Setup(Level.Iteration)
+        public void offload(History h) { h.es.offloadClosedTerms(); }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int closeTerm(History h, Refilled current) throws IOException {
+        return h.es.closeTerm(h.nextTerm()).rowCount();
+    }
+
+    @Benchmark
+    public double calculateGPA(Registry r, History h) {
+        return h.es.calculateGPA(r.nextRegNo());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int loadSegment(History h, Offloaded cold) {
+        return h.es.findClosedTerm(h.oldest).map(TermSegment::rowCount).orElse(0);
+    }
+}
@@ -0,0 +1,213 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.io.Journal;
+import edu.ccrm.io.SnapshotIO;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.MutationListener;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.service.StudentTotals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Races term closes against journal checkpoints, then restarts from disk the way AppMain does
+ * (term archive, snapshot, journal replay) and compares the result with the state before the
+ * restart. A checkpoint that captured a half-closed term would bring the closed term back as
+ * current while it is also archived, counting its credits twice. Each round uses a fresh data
+ * directory under the system temp dir:
+ * <ul>
+ *   <li>one thread enrolls and grades every student, closes the term, and repeats; a listener
+ *       pauses in termClosing, after the journal has recorded the close, to widen the race;</li>
+ *   <li>another checkpoints the journal in a loop until the last close returns, so the snapshot
+ *       a restart loads is often one taken while that close was in progress;</li>
+ *   <li>after a restart the current term, the closed terms, the current rows and every student's
+ *       cumulative totals must be unchanged.</li>
+ * </ul>
+ *
+ * <pre>
+ * java -cp bench/target/benchmarks.jar edu.ccrm.bench.TermCloseCheckpointCheck [--rounds=20] [--terms=3]
+ *      [--students=32]
+ * </pre>
+ * Exits with status 1 if any check fails.
+ */
+public final class TermCloseCheckpointCheck {
+    private static final int COURSES = 4;
+    private static final long CLOSE_PAUSE_MS = 20;
+
+    private final int terms;
+    private final int students;
+    private final List<String> failures = new ArrayList<>();
+
+    private TermCloseCheckpointCheck(int terms, int students) {
+        this.terms = terms;
+        this.students = students;
+    }
+
+    public static void main(String[] args) throws Exception {
+        TermCloseCheckpointCheck check = new TermCloseCheckpointCheck(intOption(args, "--terms=", 3),
+                intOption(args, "--students=", 32));
+        int rounds = intOption(args, "--rounds=", 20);
+        System.out.printf("%d rounds of %d term closes on %d students, checkpointing throughout%n", rounds,
+                check.terms, check.students);
+        for (int round = 1; round <= rounds; round++) check.run("round " + round);
+        if (check.failures.isEmpty()) {
+            System.out.println("OK");
+            return;
+        }
+        for (String f : check.failures) System.out.println("FAIL " + f);
+        System.exit(1);
+    }
+
+    private static int intOption(String[] args, String prefix, int defaultValue) {
+        for (String a : args) if (a.startsWith(prefix)) return Integer.parseInt(a.substring(prefix.length()));
+        return defaultValue;
+    }
+
+    private void run(String label) throws Exception {
+        Path dir = Files.createTempDirectory("ccrm-termcheck");
+        try {
+            StudentService ss = new StudentService();
+            CourseService cs = new CourseService();
+            EnrollmentService es = new EnrollmentService(ss, cs);
+            es.openTermArchive(dir.resolve("terms"));
+            es.restoreCurrentTerm("T0");
+            Journal journal = new Journal(dir.resolve("journal.log"), 0);
+            journal.attach(ss, cs, es);
+            // a slow listener after the journal holds the close open between its record and the clear
+            es.addMutationListener(new MutationListener() {
+                @Override
+                public void termClosing(String closedTerm, String nextTerm) {
+                    pause();
+                }
+            });
+            String[] regNos = new String[students];
+            for (int i = 0; i < students; i++) {
+                regNos[i] = SyntheticData.regNo(i);
+                ss.createStudent(regNos[i], "Term Student " + i, "t" + i + "@term.edu");
+            }
+            for (int c = 0; c < COURSES; c++) cs.addCourse(new Course("TRM" + (100 + c), "Term " + c, 3, "Dr. Close", "FALL", "CSE"));
+
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicBoolean done = new AtomicBoolean();
+            List<Throwable> errors = new ArrayList<>();
+            Thread closer = new Thread(() -> {
+                await(start);
+                try {
+                    for (int t = 1; t <= terms; t++) {
+                        fillTerm(es, regNos, t);
+                        es.closeTerm("T" + t);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    done.set(true);
+                }
+            }, "term-closer");
+            Thread checkpointer = new Thread(() -> {
+                await(start);
+                try {
+                    while (!done.get()) journal.checkpoint(() -> SnapshotIO.save(dir.resolve("snapshot.bin"), ss, cs, es));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, "checkpointer");
+            Thread.UncaughtExceptionHandler record = (th, e) -> { synchronized (errors) { errors.add(e); } };
+            closer.setUncaughtExceptionHandler(record);
+            checkpointer.setUncaughtExceptionHandler(record);
+            long t0 = System.nanoTime();
+            closer.start();
+            checkpointer.start();
+            start.countDown();
+            closer.join();
+            checkpointer.join();
+            journal.close();
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+
+            int before = failures.size();
+            for (Throwable e : errors) failures.add(label + ": " + e);
+            if (errors.isEmpty()) verifyRestart(label, dir, es, regNos);
+            System.out.printf("%-10s %6d ms  %s%n", label, ms,
+                    failures.size() == before ? "ok" : (failures.size() - before) + " failure(s)");
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    // every student takes every course and is graded in it, so each term adds to the cumulative totals
+    private static void fillTerm(EnrollmentService es, String[] regNos, int term) {
+        Grade[] grades = Grade.values();
+        for (int i = 0; i < regNos.length; i++) {
+            for (int c = 0; c < COURSES; c++) {
+                String code = "TRM" + (100 + c);
+                es.enroll(regNos[i], code);
+                es.assignGrade(regNos[i], code, grades[(i + c + term) % grades.length]);
+            }
+        }
+    }
+
+    private void verifyRestart(String label, Path dir, EnrollmentService expected, String[] regNos) {
+        StudentService ss = new StudentService();
+        CourseService cs = new CourseService();
+        EnrollmentService es = new EnrollmentService(ss, cs);
+        try {
+            es.openTermArchive(dir.resolve("terms"));
+            Path snapshot = dir.resolve("snapshot.bin");
+            if (Files.exists(snapshot)) SnapshotIO.load(snapshot, ss, cs, es);
+            Journal.replay(dir.resolve("journal.log"), ss, cs, es);
+        } catch (Exception e) {
+            failures.add(label + ": restart failed: " + e);
+            return;
+        }
+        if (!es.getCurrentTerm().equals(expected.getCurrentTerm())) {
+            failures.add(label + ": current term " + es.getCurrentTerm() + " after restart, expected " + expected.getCurrentTerm());
+        }
+        if (!es.closedTerms().equals(expected.closedTerms())) {
+            failures.add(label + ": closed terms " + es.closedTerms() + " after restart, expected " + expected.closedTerms());
+        }
+        if (es.listAll().size() != expected.listAll().size()) {
+            failures.add(label + ": " + es.listAll().size() + " current enrollments after restart, expected " + expected.listAll().size());
+        }
+        for (String regNo : regNos) {
+            StudentTotals got = es.cumulativeTotalsFor(regNo);
+            StudentTotals want = expected.cumulativeTotalsFor(regNo);
+            if (!got.equals(want)) {
+                failures.add(label + ": " + regNo + " cumulative " + got + " after restart, expected " + want);
+                return; // one student is enough to show it
+            }
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(CLOSE_PAUSE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
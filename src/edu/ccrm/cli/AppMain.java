@@ -4,34 +4,114 @@ import edu.ccrm.domain.Course;
 import edu.ccrm.domain.Enrollment;
 import edu.ccrm.domain.Grade;
 import edu.ccrm.domain.Student;
+import edu.ccrm.io.BackupReport;
 import edu.ccrm.io.FileUtil;
+import edu.ccrm.io.Journal;
+import edu.ccrm.io.LoadReport;
+import edu.ccrm.io.ParallelCsvImporter;
+import edu.ccrm.io.SnapshotIO;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.service.ChangeFeed;
 import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentResult;
 import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.Page;
+import edu.ccrm.service.RegistrarReport;
+import edu.ccrm.service.ReportingService;
+import edu.ccrm.service.SearchIndex;
 import edu.ccrm.service.StudentService;
+import edu.ccrm.service.TermSegment;
+import edu.ccrm.service.Transcript;
+import edu.ccrm.service.TranscriptCache;
 import edu.ccrm.util.ConsoleUtil;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 public class AppMain {
+    private static final int PAGE_SIZE = 20;
 
     public static void main(String[] args) {
+        // must be decided before any instrumented class loads; Metrics.ENABLED is a constant after that
+        if (Arrays.asList(args).contains("--metrics")) System.setProperty("ccrm.metrics", "true");
         StudentService studentService = new StudentService();
         CourseService courseService = new CourseService();
         EnrollmentService enrollmentService = new EnrollmentService(studentService, courseService);
 
-        // try to import existing csvs
+        // prefer the binary snapshot; otherwise load existing csvs (courses first so the students'
+        // enrolled courses can be restored)
         try {
             FileUtil.ensureDataDir();
-            List<Student> importedStudents = FileUtil.importStudentsCsv();
-            for (Student s : importedStudents) {
-                // we don't have a create-with-id method matching import; cheat by adding into map via service reflection not available;
-                // simpler: show import size and let user export later. (This keeps code short.)
+            // closed terms first: replaying a term close must know whether its segment was written
+            int terms = enrollmentService.openTermArchive(FileUtil.dataFile("terms"));
+            if (terms > 0) System.out.println("Opened " + terms + " closed term(s): " + enrollmentService.closedTerms());
+            if (Files.exists(SnapshotIO.defaultFile())) {
+                long t0 = System.nanoTime();
+                SnapshotIO.load(SnapshotIO.defaultFile(), studentService, courseService, enrollmentService);
+                System.out.printf("Loaded snapshot: %d students, %d courses, %d enrollments in %d ms%n",
+                        studentService.size(), courseService.size(), enrollmentService.listAll().size(),
+                        (System.nanoTime() - t0) / 1_000_000);
+            } else if (Arrays.asList(args).contains("--parallel-load")) {
+                // memory-mapped, chunked parse across all cores; meant for very large data files
+                ParallelCsvImporter importer = new ParallelCsvImporter(Runtime.getRuntime().availableProcessors());
+                printLoadReport(importer.loadCourses(FileUtil.dataFile("courses.csv"), courseService));
+                printLoadReport(importer.loadStudents(FileUtil.dataFile("students.csv"), studentService, enrollmentService));
+            } else {
+                printLoadReport(FileUtil.loadCourses(courseService));
+                printLoadReport(FileUtil.loadStudents(studentService, enrollmentService));
             }
         } catch (Exception e) {
-            // ignore; data directory may not exist
+            // carrying on would journal onto partial state and let the next snapshot overwrite the good one
+            abortStartup("Could not load data", e);
+        }
+
+        // replay changes made since the last snapshot, then journal everything from here on
+        try {
+            long replayed = Journal.replay(Journal.defaultFile(), studentService, courseService, enrollmentService);
+            if (replayed > 0) System.out.println("Replayed " + replayed + " journal records");
+        } catch (Exception e) {
+            abortStartup("Could not replay the journal", e);
+        }
+        Journal journal = null;
+        try {
+            journal = new Journal(Journal.defaultFile(), journalCommitWindow(args));
+            journal.attach(studentService, courseService, enrollmentService);
+        } catch (Exception e) {
+            System.out.println("Journal unavailable, changes will not be durable: " + e.getMessage());
+        }
+
+        TranscriptCache transcripts = new TranscriptCache(studentService, courseService, enrollmentService,
+                intOption(args, "--transcript-cache=", 1024));
+        // in-process consumers that can trail a change subscribe to the feed instead of listening synchronously
+        ChangeFeed feed = new ChangeFeed(studentService, courseService, enrollmentService,
+                intOption(args, "--feed-capacity=", 65_536));
+        SearchIndex search = new SearchIndex(studentService, courseService, feed);
+
+        int servePort = servePort(args);
+        if (servePort >= 0) {
+            serve(servePort, studentService, courseService, enrollmentService, transcripts, journal);
+            return;
+        }
+
+        String batch = batchSource(args);
+        if (batch != null) {
+            System.exit(runBatch(batch, args, studentService, courseService, enrollmentService, transcripts, journal));
         }
 
         mainLoop:
@@ -42,17 +122,28 @@ public class AppMain {
             System.out.println("3. Enrollment & Grading");
             System.out.println("4. File Operations (export/backup)");
             System.out.println("5. Demo: Stream filter (courses by instructor)");
+            System.out.println("6. Registrar reports");
+            System.out.println("7. Metrics");
             System.out.println("0. Exit");
             String choice = ConsoleUtil.readLine("Enter choice: ");
 
             switch (choice) {
-                case "1" -> studentMenu(studentService);
-                case "2" -> courseMenu(courseService);
-                case "3" -> enrollmentMenu(studentService, courseService, enrollmentService);
-                case "4" -> fileMenu(studentService, courseService);
+                case "1" -> studentMenu(studentService, search);
+                case "2" -> courseMenu(courseService, search);
+                case "3" -> enrollmentMenu(studentService, courseService, enrollmentService, transcripts);
+                case "4" -> fileMenu(studentService, courseService, enrollmentService, journal);
                 case "5" -> streamDemo(courseService);
+                case "6" -> reportsMenu(new ReportingService(courseService, enrollmentService));
+                case "7" -> metricsMenu(feed);
                 case "0" -> {
                     System.out.println("Goodbye!");
+                    if (journal != null) {
+                        try {
+                            journal.close();
+                        } catch (Exception e) {
+                            System.out.println("Journal close failed: " + e.getMessage());
+                        }
+                    }
                     break mainLoop; // labeled break to exit from nested switch/loop
                 }
                 default -> System.out.println("Invalid choice.");
@@ -60,7 +151,102 @@ public class AppMain {
         }
     }
 
-    private static void studentMenu(StudentService ss) {
+    // --serve listens on the default port, --serve=<port> on another (0 = any free port); -1 when not serving
+    private static int servePort(String[] args) {
+        for (String a : args) {
+            if (a.equals("--serve")) return 7070;
+            if (a.startsWith("--serve=")) return Integer.parseInt(a.substring("--serve=".length()));
+        }
+        return -1;
+    }
+
+    private static void serve(int port, StudentService ss, CourseService cs, EnrollmentService es,
+                              TranscriptCache transcripts, Journal journal) {
+        CommandServer server;
+        try {
+            server = new CommandServer(ss, cs, es, transcripts, journal, port);
+        } catch (Exception e) {
+            System.out.println("Could not start server: " + e.getMessage());
+            return;
+        }
+        System.out.println("Serving on 127.0.0.1:" + server.getPort() + " (Ctrl-C to stop)");
+        // Ctrl-C: stop accepting, then make sure everything journaled so far is on disk
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                if (journal != null) journal.close();
+            } catch (Exception e) {
+                System.err.println("Shutdown failed: " + e.getMessage());
+            }
+            System.out.println("Served " + server.requestCount() + " requests over " + server.connectionCount() + " connections");
+        }));
+        try {
+            server.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --batch reads commands from stdin, --batch=<file> from a file; null when interactive
+    private static String batchSource(String[] args) {
+        for (String a : args) {
+            if (a.equals("--batch")) return "-";
+            if (a.startsWith("--batch=")) return a.substring("--batch=".length());
+        }
+        return null;
+    }
+
+    private static int runBatch(String source, String[] args, StudentService ss, CourseService cs, EnrollmentService es,
+                                TranscriptCache transcripts, Journal journal) {
+        // unless --batch-sync, commands don't wait for their own fsync; the runner syncs at the end
+        if (journal != null && !Arrays.asList(args).contains("--batch-sync")) journal.setDeferredSync(true);
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), 1 << 16);
+        int status;
+        try (BufferedReader in = source.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedReader(Path.of(source), StandardCharsets.UTF_8)) {
+            status = new BatchRunner(ss, cs, es, transcripts, journal, out).run(in) ? 0 : 1;
+        } catch (Exception e) {
+            System.err.println("Batch failed: " + e.getMessage());
+            status = 2;
+        }
+        try {
+            out.flush();
+            if (journal != null) journal.close();
+        } catch (Exception e) {
+            System.err.println("Journal close failed: " + e.getMessage());
+            status = 2;
+        }
+        return status;
+    }
+
+    // persisted state exists but did not load: stop before anything can be saved over it
+    private static void abortStartup(String what, Exception e) {
+        System.err.println(what + ": " + e.getMessage());
+        System.err.println("Nothing was changed. Fix or move the files under " + FileUtil.dataDir().toAbsolutePath()
+                + " and start again.");
+        System.exit(1);
+    }
+
+    // --journal-window=<ms>: how long the journal waits to group concurrent commits into one fsync
+    private static long journalCommitWindow(String[] args) {
+        return intOption(args, "--journal-window=", 2);
+    }
+
+    private static int intOption(String[] args, String prefix, int defaultValue) {
+        for (String a : args) {
+            if (a.startsWith(prefix)) return Integer.parseInt(a.substring(prefix.length()));
+        }
+        return defaultValue;
+    }
+
+    private static void printLoadReport(LoadReport r) {
+        System.out.println("Loaded " + r);
+        r.getRejectedSamples().stream().limit(5).forEach(msg -> System.out.println("  rejected " + msg));
+        if (r.getRejected() > 5) System.out.println("  ...");
+    }
+
+    private static void studentMenu(StudentService ss, SearchIndex search) {
         while (true) {
             System.out.println("\n-- Student Menu --");
             System.out.println("1. Add student");
@@ -68,6 +254,7 @@ public class AppMain {
             System.out.println("3. Update student");
             System.out.println("4. Deactivate student");
             System.out.println("5. Print profile & transcript (GPA)");
+            System.out.println("6. Search by name or email");
             System.out.println("0. Back");
             String c = ConsoleUtil.readLine("Choice: ");
             switch (c) {
@@ -79,7 +266,8 @@ public class AppMain {
                     System.out.println("Added: " + s);
                 }
                 case "2" -> {
-                    ss.listAll().forEach(System.out::println);
+                    boolean byName = ConsoleUtil.readLine("Order by (i)d or (n)ame [i]: ").trim().equalsIgnoreCase("n");
+                    showPages(cursor -> byName ? ss.pageByName(cursor, PAGE_SIZE) : ss.pageById(cursor, PAGE_SIZE));
                 }
                 case "3" -> {
                     String reg = ConsoleUtil.readLine("RegNo to update: ");
@@ -107,19 +295,26 @@ public class AppMain {
                     // Try to compute GPA via EnrollmentService would be better, but we'll show enrolled codes
                     System.out.println("Enrolled course codes: " + st.getEnrolledCourseCodes());
                 }
+                case "6" -> {
+                    String q = ConsoleUtil.readLine("Search (partial names/emails, typos ok): ");
+                    List<Student> found = search.searchStudents(q, 20);
+                    if (found.isEmpty()) System.out.println("No matches.");
+                    else found.forEach(System.out::println);
+                }
                 case "0" -> { return; }
                 default -> System.out.println("Invalid.");
             }
         }
     }
 
-    private static void courseMenu(CourseService cs) {
+    private static void courseMenu(CourseService cs, SearchIndex search) {
         while (true) {
             System.out.println("\n-- Course Menu --");
             System.out.println("1. Add course");
             System.out.println("2. List courses");
             System.out.println("3. Update course");
             System.out.println("4. Deactivate course");
+            System.out.println("5. Search by title");
             System.out.println("0. Back");
             String c = ConsoleUtil.readLine("Choice: ");
             switch (c) {
@@ -130,11 +325,12 @@ public class AppMain {
                     String inst = ConsoleUtil.readLine("Instructor: ");
                     String sem = ConsoleUtil.readLine("Semester: ");
                     String dept = ConsoleUtil.readLine("Department: ");
-                    Course course = new Course(code, title, credits, inst, sem, dept);
-                    cs.addCourse(course);
-                    System.out.println("Added: " + course);
+                    int capacity = ConsoleUtil.readInt("Seat capacity (blank = unlimited): ", 0);
+                    Course course = new Course(code, title, credits, inst, sem, dept, capacity);
+                    if (cs.addCourse(course)) System.out.println("Added: " + course);
+                    else System.out.println("A course with code " + code + " already exists.");
                 }
-                case "2" -> cs.listAll().forEach(System.out::println);
+                case "2" -> showPages(cursor -> cs.pageByCode(cursor, PAGE_SIZE));
                 case "3" -> {
                     String code = ConsoleUtil.readLine("Code to update: ");
                     Optional<Course> oc = cs.findByCode(code);
@@ -143,9 +339,11 @@ public class AppMain {
                     String nTitle = ConsoleUtil.readLine("New title (blank keep): ");
                     int nCredits = ConsoleUtil.readInt("New credits (blank keep default -1): ", -1);
                     String nInst = ConsoleUtil.readLine("New instructor (blank keep): ");
+                    int nCapacity = ConsoleUtil.readInt("New seat capacity (blank keep, 0 = unlimited): ", -1);
                     if (!nTitle.isBlank()) cobj.setTitle(nTitle);
                     if (nCredits > 0) cobj.setCredits(nCredits);
                     if (!nInst.isBlank()) cobj.setInstructor(nInst);
+                    if (nCapacity >= 0) cobj.setCapacity(nCapacity);
                     System.out.println("Updated: " + cobj);
                 }
                 case "4" -> {
@@ -153,13 +351,19 @@ public class AppMain {
                     if (cs.deactivateCourse(code)) System.out.println("Deactivated.");
                     else System.out.println("Not found.");
                 }
+                case "5" -> {
+                    String q = ConsoleUtil.readLine("Search (partial title words, typos ok): ");
+                    List<Course> found = search.searchCourses(q, 20);
+                    if (found.isEmpty()) System.out.println("No matches.");
+                    else found.forEach(System.out::println);
+                }
                 case "0" -> { return; }
                 default -> System.out.println("Invalid.");
             }
         }
     }
 
-    private static void enrollmentMenu(StudentService ss, CourseService cs, EnrollmentService es) {
+    private static void enrollmentMenu(StudentService ss, CourseService cs, EnrollmentService es, TranscriptCache transcripts) {
         outer:
         while (true) {
             System.out.println("\n-- Enrollment & Grading --");
@@ -167,15 +371,25 @@ public class AppMain {
             System.out.println("2. Assign grade");
             System.out.println("3. Show student enrollments & GPA");
             System.out.println("4. List all enrollments");
+            System.out.println("5. Drop course");
+            System.out.println("6. Show course roster & waitlist");
+            System.out.println("7. Transcript cache stats");
+            System.out.println("8. Student history by term");
+            System.out.println("9. Close current term (" + es.getCurrentTerm() + ")");
+            System.out.println("10. Offload closed terms from memory");
             System.out.println("0. Back");
             String c = ConsoleUtil.readLine("Choice: ");
             switch (c) {
                 case "1" -> {
                     String reg = ConsoleUtil.readLine("Student RegNo: ");
                     String code = ConsoleUtil.readLine("Course code: ");
-                    boolean ok = es.enroll(reg, code);
-                    if (ok) System.out.println("Enrolled.");
-                    else System.out.println("Failed to enroll (exists, not found or credit limit).");
+                    EnrollmentResult r = es.enrollOrWaitlist(reg, code);
+                    switch (r) {
+                        case ENROLLED -> System.out.println("Enrolled.");
+                        case WAITLISTED -> System.out.println("Course is full; added to waitlist at position "
+                                + es.waitlistFor(code).size() + ".");
+                        default -> System.out.println("Failed to enroll: " + r);
+                    }
                 }
                 case "2" -> {
                     String reg = ConsoleUtil.readLine("Student RegNo: ");
@@ -188,62 +402,181 @@ public class AppMain {
                 }
                 case "3" -> {
                     String reg = ConsoleUtil.readLine("Student RegNo: ");
-                    Optional<Student> os = ss.findByRegNo(reg);
-                    if (os.isEmpty()) { System.out.println("No such student."); break; }
-                    Student s = os.get();
-                    s.printProfile();
-                    System.out.println("-- Enrollments --");
-                    List<Enrollment> ent = es.listEnrollmentsForStudent(reg);
-                    ent.forEach(System.out::println);
-                    System.out.printf("GPA: %.2f%n", es.calculateGPA(reg));
+                    Optional<Transcript> t = transcripts.get(reg);
+                    System.out.println(t.isPresent() ? t.get() : "No such student.");
                 }
                 case "4" -> es.listAll().forEach(System.out::println);
+                case "7" -> System.out.println(transcripts.stats());
+                case "8" -> {
+                    String reg = ConsoleUtil.readLine("Student RegNo: ");
+                    if (ss.findByRegNo(reg).isEmpty()) { System.out.println("No such student."); break; }
+                    List<String> terms = new ArrayList<>(es.closedTerms());
+                    terms.add(es.getCurrentTerm());
+                    for (String term : terms) {
+                        List<Enrollment> rows = es.listEnrollmentsForStudent(reg, term);
+                        if (rows.isEmpty()) continue;
+                        System.out.printf("-- %s (term GPA %.2f) --%n", term, es.termGpa(reg, term));
+                        rows.forEach(System.out::println);
+                    }
+                    System.out.printf("Cumulative GPA: %.2f%n", es.calculateGPA(reg));
+                }
+                case "9" -> {
+                    String next = ConsoleUtil.readLine("Next term (e.g. 2026-SPRING): ");
+                    if (!ConsoleUtil.readLine("Freeze all " + es.getCurrentTerm() + " enrollments? (y/N): ").equalsIgnoreCase("y")) break;
+                    try {
+                        TermSegment closed = es.closeTerm(next);
+                        System.out.println("Closed " + closed + "; current term is now " + es.getCurrentTerm());
+                    } catch (IllegalArgumentException | IOException e) {
+                        System.out.println("Could not close the term: " + e.getMessage());
+                    }
+                }
+                case "10" -> System.out.println("Offloaded " + es.offloadClosedTerms() + " closed term(s); "
+                        + es.residentClosedTerms() + " still in memory.");
+                case "5" -> {
+                    String reg = ConsoleUtil.readLine("Student RegNo: ");
+                    String code = ConsoleUtil.readLine("Course code: ");
+                    System.out.println(es.drop(reg, code) ? "Dropped." : "No such enrollment or waitlist entry.");
+                }
+                case "6" -> {
+                    String code = ConsoleUtil.readLine("Course code: ");
+                    Optional<Course> oc = cs.findByCode(code);
+                    if (oc.isEmpty()) { System.out.println("Not found."); break; }
+                    Course course = oc.get();
+                    System.out.println(course);
+                    es.listEnrollmentsForCourse(code).forEach(System.out::println);
+                    System.out.println("Seats taken: " + es.seatsTaken(code)
+                            + (course.hasSeatLimit() ? " / " + course.getCapacity() : ""));
+                    System.out.println("Waitlist: " + es.waitlistFor(code));
+                }
                 case "0" -> { break outer; } // labeled break to exit to previous menu
                 default -> System.out.println("Invalid.");
             }
         }
     }
 
-    private static void fileMenu(StudentService ss, CourseService cs) {
+    private static void fileMenu(StudentService ss, CourseService cs, EnrollmentService es, Journal journal) {
         while (true) {
             System.out.println("\n-- File Operations --");
-            System.out.println("1. Export students.csv & courses.csv");
-            System.out.println("2. Backup data folder");
+            System.out.println("1. Export students.csv, courses.csv & enrollments.csv");
+            System.out.println("2. Backup data folder (incremental)");
             System.out.println("3. Show data directory size");
+            System.out.println("4. Save binary snapshot (students, courses, enrollments & grades)");
+            System.out.println("5. Restore a backup");
             System.out.println("0. Back");
             String c = ConsoleUtil.readLine("Choice: ");
             switch (c) {
                 case "1" -> {
                     try {
-                        FileUtil.exportStudentsCsv(ss.listAll());
-                        FileUtil.exportCoursesCsv(cs.listAll());
-                        System.out.println("Exported to data/students.csv and data/courses.csv");
+                        long bytes = FileUtil.exportAll(ss, cs, es);
+                        System.out.println("Exported " + bytes + " bytes to data/students.csv, data/courses.csv and data/enrollments.csv");
                     } catch (Exception e) {
                         System.out.println("Export failed: " + e.getMessage());
                     }
                 }
                 case "2" -> {
                     try {
-                        Path p = FileUtil.backupData();
-                        System.out.println("Backup created at: " + p.toAbsolutePath());
+                        BackupReport r = FileUtil.backupDataIncremental();
+                        System.out.println("Backup created at " + r.getBackupDir().toAbsolutePath());
+                        System.out.println(r);
                     } catch (Exception e) {
                         System.out.println("Backup failed: " + e.getMessage());
                     }
                 }
                 case "3" -> {
                     try {
-                        long size = FileUtil.directorySizeRecursive(Path.of("data"));
-                        System.out.println("Data dir size (bytes): " + size);
+                        long size = FileUtil.directorySizeRecursive(FileUtil.dataDir());
+                        long onDisk = FileUtil.directorySizeRecursive(FileUtil.dataDir(), true);
+                        System.out.println("Data dir size (bytes): " + size + " logical, " + onDisk + " on disk (deduplicated)");
                     } catch (Exception e) {
                         System.out.println("Failed: " + e.getMessage());
                     }
                 }
+                case "4" -> {
+                    try {
+                        if (journal != null) {
+                            // the snapshot covers everything journaled so far
+                            journal.checkpoint(() -> SnapshotIO.save(SnapshotIO.defaultFile(), ss, cs, es));
+                        } else {
+                            SnapshotIO.save(SnapshotIO.defaultFile(), ss, cs, es);
+                        }
+                        System.out.println("Snapshot written to " + SnapshotIO.defaultFile());
+                    } catch (Exception e) {
+                        System.out.println("Snapshot failed: " + e.getMessage());
+                    }
+                }
+                case "5" -> {
+                    try {
+                        List<Path> backups = FileUtil.listBackups();
+                        if (backups.isEmpty()) {
+                            System.out.println("No backups.");
+                            break;
+                        }
+                        for (int i = 0; i < backups.size(); i++) System.out.println((i + 1) + ". " + backups.get(i).getFileName());
+                        int n = ConsoleUtil.readInt("Restore which: ", 0);
+                        if (n < 1 || n > backups.size()) {
+                            System.out.println("Invalid.");
+                            break;
+                        }
+                        int files = FileUtil.restoreBackup(backups.get(n - 1));
+                        System.out.println("Restored " + files + " files; restart to load the restored data.");
+                    } catch (Exception e) {
+                        System.out.println("Restore failed: " + e.getMessage());
+                    }
+                }
+                case "0" -> { return; }
+                default -> System.out.println("Invalid.");
+            }
+        }
+    }
+
+    private static void metricsMenu(ChangeFeed feed) {
+        while (true) {
+            System.out.println("\n-- Metrics --");
+            System.out.println("1. Show operation latencies and counters");
+            System.out.println("2. Write Prometheus file (data/metrics.prom)");
+            System.out.println("3. Reset");
+            System.out.println("4. Change feed subscribers");
+            System.out.println("0. Back");
+            String c = ConsoleUtil.readLine("Choice: ");
+            switch (c) {
+                case "1" -> System.out.print(Metrics.dumpText());
+                case "2" -> {
+                    try {
+                        Metrics.writePrometheus(FileUtil.dataFile("metrics.prom"));
+                        System.out.println("Written to " + FileUtil.dataFile("metrics.prom"));
+                    } catch (Exception e) {
+                        System.out.println("Write failed: " + e.getMessage());
+                    }
+                }
+                case "3" -> {
+                    Metrics.reset();
+                    System.out.println("Reset.");
+                }
+                case "4" -> {
+                    System.out.println(feed.getPublished() + " events published, capacity " + feed.getCapacity());
+                    for (ChangeFeed.Subscription s : feed.getSubscriptions()) System.out.println("  " + s);
+                }
                 case "0" -> { return; }
                 default -> System.out.println("Invalid.");
             }
         }
     }
 
+    // prints one page at a time; Enter fetches the next page, q stops
+    private static <T> void showPages(Function<Page.Cursor, Page<T>> fetch) {
+        Page<T> page = fetch.apply(null);
+        int shown = 0;
+        while (true) {
+            page.getItems().forEach(System.out::println);
+            shown += page.getItems().size();
+            if (!page.hasMore()) break;
+            String more = ConsoleUtil.readLine("-- " + shown + " shown; Enter for more, q to stop: ");
+            if (more.trim().equalsIgnoreCase("q")) break;
+            page = fetch.apply(page.getNextCursor());
+        }
+        if (shown == 0) System.out.println("None.");
+    }
+
     private static void streamDemo(CourseService cs) {
         System.out.println("\n-- Stream Demo: find courses by instructor --");
         String instr = ConsoleUtil.readLine("Instructor name: ");
@@ -251,4 +584,49 @@ public class AppMain {
         if (found.isEmpty()) System.out.println("None found.");
         else found.forEach(System.out::println);
     }
+
+    private static void reportsMenu(ReportingService rs) {
+        long t0 = System.nanoTime();
+        RegistrarReport report = rs.generate();
+        System.out.printf("Report over %d students, %d enrollments built in %d ms%n",
+                report.studentCount(), report.enrollmentCount(), (System.nanoTime() - t0) / 1_000_000);
+        String grades = Arrays.toString(Grade.values()).replace("]", ", ungraded]");
+        while (true) {
+            System.out.println("\n-- Registrar Reports --");
+            System.out.println("1. Top N students (cumulative GPA)");
+            System.out.println("2. Class rank of a student (cumulative GPA)");
+            System.out.println("3. Department GPA distribution (current term)");
+            System.out.println("4. Grade histogram by semester (current term)");
+            System.out.println("5. Grade histogram for a course (current term)");
+            System.out.println("0. Back");
+            String c = ConsoleUtil.readLine("Choice: ");
+            switch (c) {
+                case "1" -> {
+                    int n = ConsoleUtil.readInt("N: ", 10);
+                    report.topStudents(n).forEach(System.out::println);
+                }
+                case "2" -> {
+                    String reg = ConsoleUtil.readLine("RegNo: ");
+                    System.out.println(report.rankOf(reg).map(Object::toString).orElse("Not ranked (no graded credits)."));
+                }
+                case "3" -> {
+                    Map<String, Double> means = report.departmentMeanGpa();
+                    System.out.println("GPA buckets: [0-1) [1-2) ... [9-10]");
+                    report.departmentGpaHistogram().forEach((dept, hist) ->
+                            System.out.printf("%s (mean %.2f): %s%n", dept, means.get(dept), Arrays.toString(hist)));
+                }
+                case "4" -> {
+                    System.out.println("Columns: " + grades);
+                    report.gradeHistogramBySemester().forEach((sem, hist) -> System.out.println(sem + ": " + Arrays.toString(hist)));
+                }
+                case "5" -> {
+                    String code = ConsoleUtil.readLine("Course code: ");
+                    System.out.println("Columns: " + grades);
+                    System.out.println(Arrays.toString(report.gradeHistogram(code)));
+                }
+                case "0" -> { return; }
+                default -> System.out.println("Invalid.");
+            }
+        }
+    }
 }
@@ -0,0 +1,211 @@
+package edu.ccrm.cli;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.io.BackupReport;
+import edu.ccrm.io.FileUtil;
+import edu.ccrm.io.Journal;
+import edu.ccrm.io.SnapshotIO;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentResult;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.service.Transcript;
+import edu.ccrm.service.TranscriptCache;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Non-interactive command mode: one command per line, no prompts, output buffered. Successful
+ * mutations print nothing, so millions of lines can be pushed through; waitlistings, rejections
+ * and errors print one line each, prefixed with the input line number. A throughput summary is
+ * written at the end.
+ *
+ * <pre>
+ * student REG EMAIL FULL NAME...
+ * course CODE CREDITS CAPACITY SEMESTER DEPARTMENT INSTRUCTOR TITLE...   (capacity 0 = unlimited)
+ * enroll REG CODE        drop REG CODE        grade REG CODE GRADE
+ * transcript REG         export               snapshot               backup
+ * sync                   (wait for journaled changes to reach disk)
+ * closeterm NEXT         (freeze the current term's enrollments and make NEXT current)
+ * metrics [FILE]         (print the metrics table, or write them to FILE in Prometheus format)
+ * </pre>
+ * Blank lines and lines starting with '#' are skipped; double quotes group words into one field.
+ */
+final class BatchRunner {
+    private enum Command {
+        STUDENT(3), COURSE(7), ENROLL(2), DROP(2), GRADE(3), TRANSCRIPT(1), EXPORT(0), SNAPSHOT(0), BACKUP(0), SYNC(0),
+        METRICS(0), CLOSETERM(1);
+
+        final int minArgs;
+
+        Command(int minArgs) { this.minArgs = minArgs; }
+    }
+
+    private final StudentService ss;
+    private final CourseService cs;
+    private final EnrollmentService es;
+    private final TranscriptCache transcripts;
+    private final Journal journal; // may be null
+    private final Writer out;
+
+    private final long[] counts = new long[Command.values().length];
+    private long ok;
+    private long waitlisted; // counted in ok as well
+    private long rejected;
+    private long errors;
+
+    BatchRunner(StudentService ss, CourseService cs, EnrollmentService es, TranscriptCache transcripts,
+                Journal journal, Writer out) {
+        this.ss = ss;
+        this.cs = cs;
+        this.es = es;
+        this.transcripts = transcripts;
+        this.journal = journal;
+        this.out = out;
+    }
+
+    /** Runs every command from the reader; returns true if no line was malformed or failed. */
+    boolean run(BufferedReader in) throws IOException {
+        long t0 = System.nanoTime();
+        List<String> fields = new ArrayList<>(8);
+        long lineNo = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            fields.clear();
+            tokenize(line, fields);
+            if (fields.isEmpty() || fields.get(0).startsWith("#")) continue;
+            try {
+                execute(lineNo, fields);
+            } catch (RuntimeException | IOException e) {
+                errors++;
+                out.write("line " + lineNo + ": error: " + e.getMessage() + "\n");
+            }
+        }
+        // the commands are only done once their journal records are durable
+        if (journal != null) journal.sync();
+        long elapsed = System.nanoTime() - t0;
+        writeSummary(elapsed);
+        out.flush();
+        return errors == 0;
+    }
+
+    private void execute(long lineNo, List<String> f) throws IOException {
+        Command cmd;
+        try {
+            cmd = Command.valueOf(f.get(0).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown command '" + f.get(0) + "'");
+        }
+        if (f.size() - 1 < cmd.minArgs) throw new IllegalArgumentException(cmd.name().toLowerCase(Locale.ROOT) + " needs " + cmd.minArgs + " arguments");
+        counts[cmd.ordinal()]++;
+        switch (cmd) {
+            case STUDENT -> {
+                if (ss.findByRegNo(f.get(1)).isPresent()) { reject(lineNo, "student " + f.get(1) + " already exists"); return; }
+                ss.createStudent(f.get(1), join(f, 3), f.get(2));
+            }
+            case COURSE -> {
+                Course c = new Course(f.get(1), join(f, 7), Integer.parseInt(f.get(2)), f.get(6), f.get(4), f.get(5),
+                        Integer.parseInt(f.get(3)));
+                if (!cs.addCourse(c)) { reject(lineNo, "course " + f.get(1) + " already exists"); return; }
+            }
+            case ENROLL -> {
+                EnrollmentResult r = es.enrollOrWaitlist(f.get(1), f.get(2));
+                if (r == EnrollmentResult.WAITLISTED) {
+                    waitlisted++;
+                    out.write("line " + lineNo + ": enroll " + f.get(1) + " " + f.get(2) + ": WAITLISTED\n");
+                } else if (r != EnrollmentResult.ENROLLED) {
+                    reject(lineNo, "enroll " + f.get(1) + " " + f.get(2) + ": " + r);
+                    return;
+                }
+            }
+            case DROP -> {
+                if (!es.drop(f.get(1), f.get(2))) { reject(lineNo, "drop " + f.get(1) + " " + f.get(2) + ": no such enrollment"); return; }
+            }
+            case GRADE -> {
+                Grade g = Grade.fromString(f.get(3));
+                if (g == null) throw new IllegalArgumentException("invalid grade '" + f.get(3) + "'");
+                if (!es.assignGrade(f.get(1), f.get(2), g)) { reject(lineNo, "grade " + f.get(1) + " " + f.get(2) + ": not enrolled"); return; }
+            }
+            case TRANSCRIPT -> {
+                Optional<Transcript> t = transcripts.get(f.get(1));
+                if (t.isEmpty()) { reject(lineNo, "transcript " + f.get(1) + ": no such student"); return; }
+                out.write(t.get().toString());
+                out.write('\n');
+            }
+            case EXPORT -> out.write("exported " + FileUtil.exportAll(ss, cs, es) + " bytes\n");
+            case SNAPSHOT -> {
+                if (journal != null) journal.checkpoint(() -> SnapshotIO.save(SnapshotIO.defaultFile(), ss, cs, es));
+                else SnapshotIO.save(SnapshotIO.defaultFile(), ss, cs, es);
+                out.write("snapshot written to " + SnapshotIO.defaultFile() + "\n");
+            }
+            case BACKUP -> {
+                BackupReport r = FileUtil.backupDataIncremental();
+                out.write(r + "\n");
+            }
+            case SYNC -> {
+                if (journal != null) journal.sync();
+            }
+            case METRICS -> {
+                if (f.size() > 1) Metrics.writePrometheus(Path.of(f.get(1)));
+                else out.write(Metrics.dumpText());
+            }
+            case CLOSETERM -> out.write("line " + lineNo + ": closed " + es.closeTerm(f.get(1)) + "\n");
+        }
+        ok++;
+    }
+
+    private void reject(long lineNo, String reason) throws IOException {
+        rejected++;
+        out.write("line " + lineNo + ": " + reason + "\n");
+    }
+
+    private void writeSummary(long elapsedNanos) throws IOException {
+        long total = ok + rejected + errors;
+        double secs = elapsedNanos / 1e9;
+        StringBuilder sb = new StringBuilder("batch: ");
+        sb.append(total).append(" commands (").append(ok).append(" ok, ").append(waitlisted).append(" waitlisted, ")
+                .append(rejected).append(" rejected, ").append(errors).append(" errors) in ").append(String.format("%.3f", secs)).append(" s, ")
+                .append(String.format("%.0f", secs > 0 ? total / secs : 0)).append(" commands/s");
+        if (journal != null) sb.append(", ").append(journal.syncCount()).append(" journal syncs");
+        sb.append('\n');
+        for (Command c : Command.values()) {
+            if (counts[c.ordinal()] > 0) sb.append("  ").append(c.name().toLowerCase(Locale.ROOT)).append(": ").append(counts[c.ordinal()]).append('\n');
+        }
+        out.write(sb.toString());
+    }
+
+    // whitespace-separated fields; "double quoted" text is one field
+    static void tokenize(String line, List<String> into) {
+        int n = line.length();
+        int i = 0;
+        while (i < n) {
+            char ch = line.charAt(i);
+            if (ch == ' ' || ch == '\t') { i++; continue; }
+            if (ch == '"') {
+                int end = line.indexOf('"', i + 1);
+                if (end < 0) end = n;
+                into.add(line.substring(i + 1, end));
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < n && (ch = line.charAt(i)) != ' ' && ch != '\t') i++;
+                into.add(line.substring(start, i));
+            }
+        }
+    }
+
+    private static String join(List<String> f, int from) {
+        if (f.size() == from + 1) return f.get(from);
+        return String.join(" ", f.subList(from, f.size()));
+    }
+}
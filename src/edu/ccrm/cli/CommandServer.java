@@ -0,0 +1,312 @@
+package edu.ccrm.cli;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.Journal;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentResult;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.Page;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.service.Transcript;
+import edu.ccrm.service.TranscriptCache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves the shared services to many clients over a loopback TCP socket, one thread per
+ * connection (virtual threads when the JDK has them). Requests use the batch grammar, one per
+ * line, and may be pipelined: responses come back in request order and are flushed only when no
+ * further request is already buffered, so a client sending many requests gets them answered in a
+ * few packets. A response still means the change is durable: the connection's journal records are
+ * synced once, just before each flush, instead of once per request.
+ *
+ * <pre>
+ * ping                                   OK  pong
+ * student REG                            OK  id  regNo  email  ACTIVE|INACTIVE  name
+ * student REG EMAIL FULL NAME...         OK  id            (creates; NO exists if taken)
+ * course CODE                            OK  code  credits  capacity  taken  semester  department  instructor  title
+ * course CODE CREDITS CAPACITY SEMESTER DEPARTMENT INSTRUCTOR TITLE...   OK | NO exists
+ * enroll REG CODE                        OK  ENROLLED|WAITLISTED  or  NO  reason
+ * drop REG CODE | grade REG CODE GRADE   OK  or  NO
+ * transcript REG                         OK  regNo  credits  gpa  CODE:GRADE,CODE:-,...
+ * students id|name LIMIT [TOKEN]         OK  n  TOKEN|-   then n lines: regNo  name
+ * courses LIMIT [TOKEN]                  OK  n  TOKEN|-   then n lines: code  title
+ * quit
+ * </pre>
+ * Response fields are tab-separated; ERR  message reports a malformed request. A listing TOKEN
+ * continues that listing on the same connection.
+ */
+final class CommandServer implements Closeable {
+    private final StudentService ss;
+    private final CourseService cs;
+    private final EnrollmentService es;
+    private final TranscriptCache transcripts;
+    private final Journal journal; // may be null
+    private final ServerSocket listener;
+    private final ExecutorService connections;
+    private final Thread acceptor;
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicInteger accepted = new AtomicInteger();
+    private volatile boolean closed;
+
+    CommandServer(StudentService ss, CourseService cs, EnrollmentService es, TranscriptCache transcripts,
+                  Journal journal, int port) throws IOException {
+        this.ss = ss;
+        this.cs = cs;
+        this.es = es;
+        this.transcripts = transcripts;
+        this.journal = journal;
+        this.listener = new ServerSocket();
+        listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.connections = newPerTaskExecutor("ccrm-conn-");
+        this.acceptor = new Thread(this::acceptLoop, "ccrm-acceptor");
+        acceptor.start();
+    }
+
+    int getPort() { return listener.getLocalPort(); }
+    long requestCount() { return requests.get(); }
+    int connectionCount() { return accepted.get(); }
+
+    /**
+     * One new thread per task: a virtual thread when the running JDK supports them (21+), otherwise
+     * a pooled platform thread. Looked up reflectively so the sources still build on 17.
+     */
+    static ExecutorService newPerTaskExecutor(String namePrefix) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, namePrefix + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /** Blocks until the server is closed. */
+    void await() throws InterruptedException { acceptor.join(); }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket s = listener.accept();
+                s.setTcpNoDelay(true);
+                accepted.incrementAndGet();
+                open.add(s);
+                connections.execute(() -> serve(s));
+            } catch (IOException e) {
+                if (!closed) System.err.println("accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Session session = new Session();
+        List<String> fields = new ArrayList<>(8);
+        if (journal != null) journal.setDeferredSyncOnCurrentThread(true);
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                fields.clear();
+                BatchRunner.tokenize(line, fields);
+                if (fields.isEmpty()) continue;
+                if (fields.get(0).equalsIgnoreCase("quit")) break;
+                requests.incrementAndGet();
+                try {
+                    handle(fields, session, out);
+                } catch (RuntimeException e) {
+                    out.write("ERR\t" + e.getMessage() + "\n");
+                }
+                // pipelining: answer everything already received before paying for a sync and a write
+                if (!in.ready()) flush(out);
+            }
+            flush(out);
+        } catch (SocketException e) {
+            // client went away mid-request
+        } catch (IOException e) {
+            if (!closed) System.err.println("connection failed: " + e.getMessage());
+        } finally {
+            open.remove(socket);
+        }
+    }
+
+    private void flush(Writer out) throws IOException {
+        if (journal != null) journal.sync();
+        out.flush();
+    }
+
+    // a student or course listing in progress; the cursor is the position after the last page sent
+    private static final class Listing {
+        final String kind;
+        final Page.Cursor cursor;
+
+        Listing(String kind, Page.Cursor cursor) {
+            this.kind = kind;
+            this.cursor = cursor;
+        }
+    }
+
+    // per-connection state: open listings, oldest dropped once a client has too many unfinished ones
+    private static final class Session {
+        private static final int MAX_LISTINGS = 64;
+
+        final Map<Integer, Listing> listings = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Listing> eldest) { return size() > MAX_LISTINGS; }
+        };
+        int nextToken = 1;
+    }
+
+    private void handle(List<String> f, Session session, Writer out) throws IOException {
+        String verb = f.get(0).toLowerCase(Locale.ROOT);
+        switch (verb) {
+            case "ping" -> out.write("OK\tpong\n");
+            case "student" -> {
+                need(f, 1);
+                if (f.size() >= 4) {
+                    if (ss.findByRegNo(f.get(1)).isPresent()) { out.write("NO\texists\n"); return; }
+                    Student s = ss.createStudent(f.get(1), join(f, 3), f.get(2));
+                    out.write("OK\t" + s.getId() + "\n");
+                    return;
+                }
+                Optional<Student> os = ss.findByRegNo(f.get(1));
+                if (os.isEmpty()) { out.write("NO\tnot found\n"); return; }
+                Student s = os.get();
+                out.write("OK\t" + s.getId() + "\t" + s.getRegNo() + "\t" + s.getEmail() + "\t"
+                        + (s.isActive() ? "ACTIVE" : "INACTIVE") + "\t" + s.getFullName() + "\n");
+            }
+            case "course" -> {
+                need(f, 1);
+                if (f.size() >= 8) {
+                    Course c = new Course(f.get(1), join(f, 7), Integer.parseInt(f.get(2)), f.get(6), f.get(4), f.get(5),
+                            Integer.parseInt(f.get(3)));
+                    out.write(cs.addCourse(c) ? "OK\n" : "NO\texists\n");
+                    return;
+                }
+                Optional<Course> oc = cs.findByCode(f.get(1));
+                if (oc.isEmpty()) { out.write("NO\tnot found\n"); return; }
+                Course c = oc.get();
+                out.write("OK\t" + c.getCode() + "\t" + c.getCredits() + "\t" + c.getCapacity() + "\t" + es.seatsTaken(c.getCode())
+                        + "\t" + c.getSemester() + "\t" + c.getDepartment() + "\t" + c.getInstructor() + "\t" + c.getTitle() + "\n");
+            }
+            case "enroll" -> {
+                need(f, 2);
+                EnrollmentResult r = es.enrollOrWaitlist(f.get(1), f.get(2));
+                out.write((r.isSuccess() ? "OK\t" : "NO\t") + r + "\n");
+            }
+            case "drop" -> {
+                need(f, 2);
+                out.write(es.drop(f.get(1), f.get(2)) ? "OK\n" : "NO\tnot enrolled\n");
+            }
+            case "grade" -> {
+                need(f, 3);
+                Grade g = Grade.fromString(f.get(3));
+                if (g == null) throw new IllegalArgumentException("invalid grade '" + f.get(3) + "'");
+                out.write(es.assignGrade(f.get(1), f.get(2), g) ? "OK\n" : "NO\tnot enrolled\n");
+            }
+            case "transcript" -> {
+                need(f, 1);
+                Optional<Transcript> t = transcripts.get(f.get(1));
+                if (t.isEmpty()) { out.write("NO\tnot found\n"); return; }
+                StringBuilder sb = new StringBuilder(64).append("OK\t").append(t.get().getRegNo()).append('\t')
+                        .append(t.get().getEnrolledCredits()).append('\t').append(String.format(Locale.ROOT, "%.2f", t.get().getGpa()))
+                        .append('\t');
+                List<Enrollment> rows = t.get().getEnrollments();
+                for (int i = 0; i < rows.size(); i++) {
+                    if (i > 0) sb.append(',');
+                    Enrollment e = rows.get(i);
+                    sb.append(e.getCourseCode()).append(':').append(e.getGrade() == null ? "-" : e.getGrade().name());
+                }
+                out.write(sb.append('\n').toString());
+            }
+            case "students" -> {
+                need(f, 2);
+                boolean byName = f.get(1).equalsIgnoreCase("name");
+                if (!byName && !f.get(1).equalsIgnoreCase("id")) throw new IllegalArgumentException("order must be id or name");
+                Page.Cursor after = continuation(f, 3, "students-" + (byName ? "name" : "id"), session);
+                int limit = Integer.parseInt(f.get(2));
+                Page<Student> page = byName ? ss.pageByName(after, limit) : ss.pageById(after, limit);
+                writePageHeader(page, "students-" + (byName ? "name" : "id"), session, out);
+                for (Student s : page.getItems()) out.write(s.getRegNo() + "\t" + s.getFullName() + "\n");
+            }
+            case "courses" -> {
+                need(f, 1);
+                Page.Cursor after = continuation(f, 2, "courses", session);
+                Page<Course> page = cs.pageByCode(after, Integer.parseInt(f.get(1)));
+                writePageHeader(page, "courses", session, out);
+                for (Course c : page.getItems()) out.write(c.getCode() + "\t" + c.getTitle() + "\n");
+            }
+            default -> throw new IllegalArgumentException("unknown command '" + f.get(0) + "'");
+        }
+    }
+
+    private static Page.Cursor continuation(List<String> f, int index, String kind, Session session) {
+        if (f.size() <= index) return null;
+        Listing l = session.listings.remove(Integer.parseInt(f.get(index)));
+        if (l == null || !l.kind.equals(kind)) throw new IllegalArgumentException("unknown listing token " + f.get(index));
+        return l.cursor;
+    }
+
+    private static void writePageHeader(Page<?> page, String kind, Session session, Writer out) throws IOException {
+        String token = "-";
+        if (page.hasMore()) {
+            int id = session.nextToken++;
+            session.listings.put(id, new Listing(kind, page.getNextCursor()));
+            token = Integer.toString(id);
+        }
+        out.write("OK\t" + page.getItems().size() + "\t" + token + "\n");
+    }
+
+    private static void need(List<String> f, int args) {
+        if (f.size() - 1 < args) throw new IllegalArgumentException(f.get(0) + " needs " + args + " arguments");
+    }
+
+    private static String join(List<String> f, int from) {
+        return from == f.size() - 1 ? f.get(from) : String.join(" ", f.subList(from, f.size()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        listener.close();
+        for (Socket s : open) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                // already closing
+            }
+        }
+        connections.shutdown();
+    }
+}
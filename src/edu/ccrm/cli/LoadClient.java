@@ -0,0 +1,194 @@
+package edu.ccrm.cli;
+
+import edu.ccrm.metrics.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for {@link CommandServer}. It first registers a cohort of students and courses over
+ * one connection, then opens the requested number of connections. Each connection keeps up to
+ * {@code --pipeline} requests in flight with a registrar-like mix: lookups, enrollments, grades,
+ * transcripts and listing pages. Latency is measured per request from send to response, so it
+ * includes the time spent queued behind earlier pipelined requests.
+ *
+ * <pre>
+ * java -cp out edu.ccrm.cli.LoadClient [--port=7070] [--connections=16] [--requests=50000]
+ *      [--pipeline=16] [--students=10000] [--courses=200]
+ * </pre>
+ */
+public final class LoadClient {
+    private enum Kind { LOOKUP, COURSE, ENROLL, GRADE, TRANSCRIPT, LISTING }
+
+    private final int port;
+    private final int students;
+    private final int courses;
+    private final String prefix; // keeps regNos unique across runs against one server
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    private LoadClient(int port, int students, int courses) {
+        this.port = port;
+        this.students = students;
+        this.courses = courses;
+        this.prefix = "L" + Long.toString(System.currentTimeMillis() % 1_000_000, 36);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = intOption(args, "--port=", 7070);
+        int connections = intOption(args, "--connections=", 16);
+        int requests = intOption(args, "--requests=", 50_000);
+        int pipeline = intOption(args, "--pipeline=", 16);
+        LoadClient client = new LoadClient(port, intOption(args, "--students=", 10_000), intOption(args, "--courses=", 200));
+
+        long t0 = System.nanoTime();
+        client.setUp(pipeline);
+        System.out.printf("Set up %d students and %d courses in %d ms%n", client.students, client.courses,
+                (System.nanoTime() - t0) / 1_000_000);
+
+        ExecutorService pool = CommandServer.newPerTaskExecutor("ccrm-load-");
+        List<Future<?>> running = new ArrayList<>();
+        t0 = System.nanoTime();
+        for (int c = 0; c < connections; c++) {
+            long seed = c;
+            running.add(pool.submit(() -> {
+                client.drive(seed, requests, pipeline);
+                return null;
+            }));
+        }
+        for (Future<?> f : running) f.get();
+        long elapsed = System.nanoTime() - t0;
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        client.report(connections, pipeline, elapsed);
+    }
+
+    private static int intOption(String[] args, String prefix, int defaultValue) {
+        for (String a : args) if (a.startsWith(prefix)) return Integer.parseInt(a.substring(prefix.length()));
+        return defaultValue;
+    }
+
+    private String regNo(int i) { return prefix + "S" + i; }
+    private String code(int i) { return prefix + "C" + i; }
+
+    // registers the cohort, pipelining every request and reading the answers at the end
+    private void setUp(int pipeline) throws IOException {
+        try (Socket s = new Socket("127.0.0.1", port)) {
+            s.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+            Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+            int sent = 0;
+            int read = 0;
+            int total = courses + students;
+            while (read < total) {
+                while (sent < total && sent - read < Math.max(pipeline, 256)) {
+                    if (sent < courses) {
+                        // capacity 0: unlimited, so the run measures enrollment rather than waitlisting
+                        out.write("course " + code(sent) + " 3 0 FALL LOAD \"Dr. Load\" Load test course " + sent + "\n");
+                    } else {
+                        int i = sent - courses;
+                        out.write("student " + regNo(i) + " " + regNo(i).toLowerCase(Locale.ROOT) + "@load.test Load Student " + i + "\n");
+                    }
+                    sent++;
+                }
+                out.flush();
+                String line = in.readLine();
+                if (line == null) throw new IOException("server closed the connection during setup");
+                if (!line.startsWith("OK")) throw new IOException("setup rejected: " + line);
+                read++;
+            }
+            out.write("quit\n");
+            out.flush();
+        }
+    }
+
+    private void drive(long seed, int requests, int pipeline) throws IOException {
+        SplittableRandom rnd = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + 1);
+        // ring of in-flight requests: send time and kind, answered in the order sent
+        long[] sentAt = new long[pipeline];
+        Kind[] kinds = new Kind[pipeline];
+        try (Socket s = new Socket("127.0.0.1", port)) {
+            s.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+            Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+            int sent = 0;
+            int read = 0;
+            while (read < requests) {
+                while (sent < requests && sent - read < pipeline) {
+                    int slot = sent % pipeline;
+                    kinds[slot] = send(rnd, out);
+                    sentAt[slot] = System.nanoTime();
+                    sent++;
+                }
+                out.flush();
+                int slot = read % pipeline;
+                String line = in.readLine();
+                if (line == null) throw new IOException("server closed the connection");
+                if (kinds[slot] == Kind.LISTING && line.startsWith("OK")) {
+                    int rows = Integer.parseInt(line.split("\t")[1]);
+                    for (int i = 0; i < rows; i++) in.readLine();
+                }
+                latency.record(System.nanoTime() - sentAt[slot]);
+                responses.increment();
+                if (line.startsWith("NO")) rejected.increment();
+                else if (!line.startsWith("OK")) errors.increment();
+                read++;
+            }
+            out.write("quit\n");
+            out.flush();
+        }
+    }
+
+    // 45% student lookups, 10% course lookups, 20% enrollments, 15% grades, 8% transcripts, 2% listing pages
+    private Kind send(SplittableRandom rnd, Writer out) throws IOException {
+        int r = rnd.nextInt(100);
+        String reg = regNo(rnd.nextInt(students));
+        // a few popular courses draw most enrollments
+        String course = code((int) (courses * Math.pow(rnd.nextDouble(), 3)));
+        if (r < 45) {
+            out.write("student " + reg + "\n");
+            return Kind.LOOKUP;
+        } else if (r < 55) {
+            out.write("course " + course + "\n");
+            return Kind.COURSE;
+        } else if (r < 75) {
+            out.write("enroll " + reg + " " + course + "\n");
+            return Kind.ENROLL;
+        } else if (r < 90) {
+            out.write("grade " + reg + " " + course + " " + "SABCDEF".charAt(rnd.nextInt(7)) + "\n");
+            return Kind.GRADE;
+        } else if (r < 98) {
+            out.write("transcript " + reg + "\n");
+            return Kind.TRANSCRIPT;
+        }
+        out.write("students name 20\n");
+        return Kind.LISTING;
+    }
+
+    private void report(int connections, int pipeline, long elapsedNanos) {
+        LatencyHistogram.Snapshot s = latency.snapshot();
+        double secs = elapsedNanos / 1e9;
+        System.out.printf("%d requests over %d connections (pipeline %d) in %.2f s: %.0f req/s%n", responses.sum(),
+                connections, pipeline, secs, responses.sum() / secs);
+        System.out.printf("latency us: p50 %.0f  p90 %.0f  p99 %.0f  p99.9 %.0f  max %.0f%n", s.valueAt(0.5) / 1e3,
+                s.valueAt(0.9) / 1e3, s.valueAt(0.99) / 1e3, s.valueAt(0.999) / 1e3, s.getMaxNanos() / 1e3);
+        System.out.printf("%d rejected (NO), %d errors%n", rejected.sum(), errors.sum());
+    }
+}
@@ -0,0 +1,7 @@
+package edu.ccrm.domain;
+
+// notified after a property of a domain object changes (used by services to keep indexes in sync)
+@FunctionalInterface
+public interface ChangeListener<T> {
+    void propertyChanged(T source, String property, Object oldValue, Object newValue);
+}
@@ -1,13 +1,20 @@
 package edu.ccrm.domain;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 public class Course {
     private String code;
-    private String title;
-    private int credits;
-    private String instructor;
-    private String semester;
-    private String department;
-    private boolean active = true;
+    // mutable fields are volatile: courses are shared by concurrent registration threads
+    private volatile String title;
+    private volatile int credits;
+    private volatile String instructor;
+    private volatile String semester;
+    private volatile String department;
+    private volatile boolean active = true;
+    private volatile int capacity; // seat limit, 0 = unlimited
+    private final List<ChangeListener<Course>> listeners = new CopyOnWriteArrayList<>();
 
     public Course(String code, String title, int credits, String instructor, String semester, String department) {
         this.code = code;
@@ -18,6 +25,11 @@ public class Course {
         this.department = department;
     }
 
+    public Course(String code, String title, int credits, String instructor, String semester, String department, int capacity) {
+        this(code, title, credits, instructor, semester, department);
+        this.capacity = capacity;
+    }
+
     // getters / setters
     public String getCode() { return code; }
     public String getTitle() { return title; }
@@ -26,17 +38,63 @@ public class Course {
     public String getSemester() { return semester; }
     public String getDepartment() { return department; }
     public boolean isActive() { return active; }
+    public int getCapacity() { return capacity; }
+    public boolean hasSeatLimit() { return capacity > 0; }
+
+    public void setTitle(String title) {
+        String old = this.title;
+        this.title = title;
+        fireChange("title", old, title);
+    }
+
+    public void setCredits(int credits) {
+        int old = this.credits;
+        this.credits = credits;
+        fireChange("credits", old, credits);
+    }
+
+    public void setInstructor(String instructor) {
+        String old = this.instructor;
+        this.instructor = instructor;
+        fireChange("instructor", old, instructor);
+    }
 
-    public void setTitle(String title) { this.title = title; }
-    public void setCredits(int credits) { this.credits = credits; }
-    public void setInstructor(String instructor) { this.instructor = instructor; }
-    public void setSemester(String semester) { this.semester = semester; }
-    public void setDepartment(String department) { this.department = department; }
-    public void deactivate() { this.active = false; }
+    public void setSemester(String semester) {
+        String old = this.semester;
+        this.semester = semester;
+        fireChange("semester", old, semester);
+    }
+
+    public void setDepartment(String department) {
+        String old = this.department;
+        this.department = department;
+        fireChange("department", old, department);
+    }
+
+    public void setCapacity(int capacity) {
+        int old = this.capacity;
+        this.capacity = capacity;
+        fireChange("capacity", old, capacity);
+    }
+
+    public void deactivate() {
+        boolean old = this.active;
+        this.active = false;
+        fireChange("active", old, false);
+    }
+
+    public void addChangeListener(ChangeListener<Course> l) { listeners.add(l); }
+    public void removeChangeListener(ChangeListener<Course> l) { listeners.remove(l); }
+
+    private void fireChange(String property, Object oldValue, Object newValue) {
+        if (Objects.equals(oldValue, newValue)) return;
+        for (ChangeListener<Course> l : listeners) l.propertyChanged(this, property, oldValue, newValue);
+    }
 
     @Override
     public String toString() {
-        return String.format("%s | %s | %dcr | %s | %s | %s | %s",
-                code, title, credits, instructor, semester, department, active ? "ACTIVE" : "INACTIVE");
+        return String.format("%s | %s | %dcr | %s | %s | %s | %s | %s",
+                code, title, credits, instructor, semester, department,
+                capacity > 0 ? capacity + " seats" : "no seat limit", active ? "ACTIVE" : "INACTIVE");
     }
 }
@@ -0,0 +1,70 @@
+package edu.ccrm.domain;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dictionary of course codes. Each distinct code string gets a dense int id the first
+ * time it is seen, so students and enrollments can hold an int instead of their own copy of the
+ * string. Ids are never reused or removed; the table grows with the number of distinct codes, not
+ * with the number of enrollments.
+ *
+ * Codes are case-insensitive, as everywhere else in the catalog: spellings that differ only in case
+ * share one id, and {@link #codeOf} returns the spelling seen first.
+ */
+public final class CourseCodes {
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>(); // every spelling seen
+    private static final Map<String, Integer> folded = new ConcurrentHashMap<>(); // upper-cased code
+    private static volatile String[] codes = new String[256];
+    private static int size; // guarded by the class lock
+
+    private CourseCodes() {}
+
+    /** Id for the code, assigning the next one if the code is new. */
+    public static int idOf(String code) {
+        if (code == null) throw new IllegalArgumentException("course code is null");
+        Integer id = ids.get(code);
+        return id != null ? id : assign(code);
+    }
+
+    /** Id for this exact spelling, or -1 if it has never been seen (does not assign). */
+    public static int find(String code) {
+        Integer id = code == null ? null : ids.get(code);
+        return id == null ? -1 : id;
+    }
+
+    /** Id for the code in any case, or -1 if no spelling of it has been seen (does not assign). */
+    public static int findIgnoreCase(String code) {
+        if (code == null) return -1;
+        Integer id = ids.get(code);
+        if (id == null) id = folded.get(code.toUpperCase(Locale.ROOT));
+        return id == null ? -1 : id;
+    }
+
+    public static String codeOf(int id) { return codes[id]; }
+
+    public static int size() { return folded.size(); }
+
+    // the table slot is written before the id is published through the map, so any thread that
+    // obtained an id also sees its code
+    private static synchronized int assign(String code) {
+        Integer existing = ids.get(code);
+        if (existing != null) return existing;
+        String key = code.toUpperCase(Locale.ROOT);
+        existing = folded.get(key);
+        if (existing != null) {
+            // another spelling of a known code
+            ids.put(code, existing);
+            return existing;
+        }
+        String[] table = codes;
+        if (size == table.length) table = Arrays.copyOf(table, table.length * 2);
+        table[size] = code;
+        codes = table;
+        folded.put(key, size);
+        ids.put(code, size);
+        return size++;
+    }
+}
@@ -1,23 +1,31 @@
 package edu.ccrm.domain;
 
 public class Enrollment {
-    private final String regNo; // student regNo
-    private final String courseCode;
-    private Grade grade;
+    private final String regNo; // student regNo, shared with the Student
+    private final int courseId; // CourseCodes id
+    private final String term;  // e.g. "2025-FALL"; null until the enrollment service files it under a term
+    private volatile Grade grade;
 
     public Enrollment(String regNo, String courseCode, Grade grade) {
+        this(regNo, courseCode, grade, null);
+    }
+
+    public Enrollment(String regNo, String courseCode, Grade grade, String term) {
         this.regNo = regNo;
-        this.courseCode = courseCode;
+        this.courseId = CourseCodes.idOf(courseCode);
         this.grade = grade;
+        this.term = term;
     }
 
     public String getRegNo() { return regNo; }
-    public String getCourseCode() { return courseCode; }
+    public String getCourseCode() { return CourseCodes.codeOf(courseId); }
+    public int getCourseId() { return courseId; }
+    public String getTerm() { return term; }
     public Grade getGrade() { return grade; }
     public void setGrade(Grade g) { this.grade = g; }
 
     @Override
     public String toString() {
-        return String.format("%s - %s : %s", courseCode, regNo, grade == null ? "N/A" : grade.name());
+        return String.format("%s - %s : %s", getCourseCode(), regNo, grade == null ? "N/A" : grade.name());
     }
 }
@@ -2,16 +2,24 @@ package edu.ccrm.domain;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Student {
+    private static final int[] NO_COURSES = new int[0];
+
     private int id;
     private String regNo;
-    private String fullName;
-    private String email;
-    private boolean active = true;
-    private final List<String> enrolledCourseCodes = new ArrayList<>();
+    private volatile String fullName;
+    private volatile String email;
+    private volatile boolean active = true;
+    // sorted CourseCodes ids; replaced (never mutated) under the enrollment lock, read freely by the CLI/exporters
+    private volatile int[] enrolledCourseIds = NO_COURSES;
     private LocalDate enrollmentDate;
+    private final List<ChangeListener<Student>> listeners = new CopyOnWriteArrayList<>();
 
     public Student(int id, String regNo, String fullName, String email, LocalDate enrollmentDate) {
         this.id = id;
@@ -27,19 +35,86 @@ public class Student {
     public String getFullName() { return fullName; }
     public String getEmail() { return email; }
     public boolean isActive() { return active; }
-    public List<String> getEnrolledCourseCodes() { return enrolledCourseCodes; }
+    public List<String> getEnrolledCourseCodes() {
+        int[] ids = enrolledCourseIds;
+        List<String> codes = new ArrayList<>(ids.length);
+        for (int id : ids) codes.add(CourseCodes.codeOf(id));
+        return codes;
+    }
+    public int[] getEnrolledCourseIds() { return enrolledCourseIds.clone(); }
+    public int enrolledCourseCount() { return enrolledCourseIds.length; }
+    public boolean isEnrolledIn(String courseCode) {
+        int id = CourseCodes.findIgnoreCase(courseCode);
+        return id >= 0 && Arrays.binarySearch(enrolledCourseIds, id) >= 0;
+    }
     public LocalDate getEnrollmentDate() { return enrollmentDate; }
 
-    public void setFullName(String fullName) { this.fullName = fullName; }
-    public void setEmail(String email) { this.email = email; }
-    public void deactivate() { this.active = false; }
+    public void setFullName(String fullName) {
+        String old = this.fullName;
+        this.fullName = fullName;
+        fireChange("fullName", old, fullName);
+    }
+
+    public void setEmail(String email) {
+        String old = this.email;
+        this.email = email;
+        fireChange("email", old, email);
+    }
+
+    public void deactivate() {
+        boolean old = this.active;
+        this.active = false;
+        fireChange("active", old, false);
+    }
+
+    public void addChangeListener(ChangeListener<Student> l) { listeners.add(l); }
+    public void removeChangeListener(ChangeListener<Student> l) { listeners.remove(l); }
+
+    private void fireChange(String property, Object oldValue, Object newValue) {
+        if (Objects.equals(oldValue, newValue)) return;
+        for (ChangeListener<Student> l : listeners) l.propertyChanged(this, property, oldValue, newValue);
+    }
+
+    public synchronized void enrollCourse(String courseCode) {
+        int[] ids = enrolledCourseIds;
+        int id = CourseCodes.idOf(courseCode);
+        int at = Arrays.binarySearch(ids, id);
+        if (at >= 0) return;
+        at = -at - 1;
+        int[] next = new int[ids.length + 1];
+        System.arraycopy(ids, 0, next, 0, at);
+        next[at] = id;
+        System.arraycopy(ids, at, next, at + 1, ids.length - at);
+        enrolledCourseIds = next;
+    }
+
+    public synchronized void enrollCourses(Collection<String> courseCodes) {
+        if (courseCodes.isEmpty()) return;
+        int[] ids = enrolledCourseIds;
+        int[] next = Arrays.copyOf(ids, ids.length + courseCodes.size());
+        int n = ids.length;
+        for (String code : courseCodes) next[n++] = CourseCodes.idOf(code);
+        Arrays.sort(next);
+        // drop duplicates in place
+        int w = 0;
+        for (int i = 0; i < next.length; i++) if (w == 0 || next[i] != next[w - 1]) next[w++] = next[i];
+        enrolledCourseIds = w == next.length ? next : Arrays.copyOf(next, w);
+    }
 
-    public void enrollCourse(String courseCode) {
-        if (!enrolledCourseCodes.contains(courseCode)) enrolledCourseCodes.add(courseCode);
+    public synchronized void unenrollCourse(String courseCode) {
+        int[] ids = enrolledCourseIds;
+        int id = CourseCodes.findIgnoreCase(courseCode);
+        int at = id < 0 ? -1 : Arrays.binarySearch(ids, id);
+        if (at < 0) return;
+        int[] next = new int[ids.length - 1];
+        System.arraycopy(ids, 0, next, 0, at);
+        System.arraycopy(ids, at + 1, next, at, ids.length - at - 1);
+        enrolledCourseIds = next;
     }
 
-    public void unenrollCourse(String courseCode) {
-        enrolledCourseCodes.remove(courseCode);
+    /** Forgets the enrolled course codes, e.g. when the term they belong to is closed. */
+    public synchronized void clearEnrolledCourses() {
+        enrolledCourseIds = NO_COURSES;
     }
 
     public void printProfile() {
@@ -48,7 +123,7 @@ public class Student {
         System.out.println("RegNo: " + regNo);
         System.out.println("Name: " + fullName);
         System.out.println("Email: " + email);
-        System.out.println("Enrolled courses: " + enrolledCourseCodes);
+        System.out.println("Enrolled courses: " + getEnrolledCourseCodes());
         System.out.println("Enrollment date: " + enrollmentDate);
         System.out.println("Status: " + (active ? "ACTIVE" : "INACTIVE"));
     }
@@ -0,0 +1,41 @@
+package edu.ccrm.io;
+
+import java.nio.file.Path;
+
+// result of an incremental backup: how much data the backup point covers vs. how much was actually written
+public class BackupReport {
+    private final Path backupDir;
+    private int files;
+    private int newObjects;
+    private long logicalBytes;
+    private long bytesWritten;
+
+    BackupReport(Path backupDir) { this.backupDir = backupDir; }
+
+    void addFile(long size, boolean stored) {
+        files++;
+        logicalBytes += size;
+        if (stored) {
+            newObjects++;
+            bytesWritten += size;
+        }
+    }
+
+    void addMetadata(long bytes) { bytesWritten += bytes; }
+
+    public Path getBackupDir() { return backupDir; }
+    public int getFiles() { return files; }
+    public int getNewObjects() { return newObjects; }
+    public int getReusedObjects() { return files - newObjects; }
+    public long getLogicalBytes() { return logicalBytes; }
+    public long getBytesWritten() { return bytesWritten; }
+
+    /** Bytes written per logical byte backed up; 1.0 is a full copy, near 0 means almost nothing changed. */
+    public double writeRatio() { return logicalBytes == 0 ? 0.0 : (double) bytesWritten / logicalBytes; }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d files (%d new, %d unchanged), %d bytes logical, %d bytes written (%.1f%%)",
+                backupDir, files, newObjects, getReusedObjects(), logicalBytes, bytesWritten, writeRatio() * 100);
+    }
+}
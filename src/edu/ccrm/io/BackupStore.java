@@ -0,0 +1,219 @@
+package edu.ccrm.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Incremental, deduplicating backups of the data directory.
+ *
+ * File contents live once in a content-addressed store ({@code .objects/ab/<sha-256>}). A backup
+ * point is a {@code backup_<timestamp>} directory holding a hard link to the object for each data
+ * file, so it looks like a full copy but costs no extra space, plus a manifest listing name, size,
+ * modification time and hash. Only content the store has never seen is written; files whose size
+ * and modification time match the previous manifest are not even re-read. On file systems without
+ * hard links the backup point falls back to copies and restore still works from the store.
+ *
+ * Data files may be appended to while a backup runs (the journal is), so new content is copied
+ * first and the copy is hashed: an object always holds exactly the bytes its name hashes to.
+ * Temp files ({@code *.tmp}) are in-flight writes and are never backed up.
+ */
+public final class BackupStore {
+    static final String OBJECTS_DIR = ".objects";
+    static final String MANIFEST = "backup.manifest";
+    private static final String BACKUP_PREFIX = "backup_";
+    // closed-term segments; written once, so every backup after the first links the same objects
+    static final String TERMS_DIR = "terms";
+
+    private BackupStore() { }
+
+    private static final class Entry {
+        final String name;
+        final long size;
+        final long modified;
+        final String hash;
+
+        Entry(String name, long size, long modified, String hash) {
+            this.name = name;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Creates a new backup point of the regular files in {@code dataDir} and its {@code terms}
+     * directory, except temp files, named {@code backup_<timestamp>}.
+     */
+    public static BackupReport backup(Path dataDir, String timestamp) throws IOException {
+        Path objects = dataDir.resolve(OBJECTS_DIR);
+        Files.createDirectories(objects);
+        Path backup = dataDir.resolve(BACKUP_PREFIX + timestamp);
+        for (int n = 1; Files.exists(backup); n++) backup = dataDir.resolve(BACKUP_PREFIX + timestamp + "_" + n);
+        Files.createDirectories(backup);
+
+        Map<String, Entry> previous = new HashMap<>();
+        Optional<Path> latest = latestBackup(dataDir);
+        if (latest.isPresent()) {
+            for (Entry e : readManifest(latest.get())) previous.put(e.name, e);
+        }
+
+        BackupReport report = new BackupReport(backup);
+        List<Entry> entries = new ArrayList<>();
+        Map<String, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dataDir, BackupStore::isDataFile)) {
+            for (Path p : ds) files.put(p.getFileName().toString(), p);
+        }
+        Path terms = dataDir.resolve(TERMS_DIR);
+        if (Files.isDirectory(terms)) {
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(terms, BackupStore::isDataFile)) {
+                for (Path p : ds) files.put(TERMS_DIR + "/" + p.getFileName(), p);
+            }
+            Files.createDirectories(backup.resolve(TERMS_DIR));
+        }
+        for (Map.Entry<String, Path> f : files.entrySet()) {
+            String name = f.getKey();
+            Path p = f.getValue();
+            BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+            long size = attrs.size();
+            long modified = attrs.lastModifiedTime().toMillis();
+            Entry prev = previous.get(name);
+            String hash;
+            boolean stored = false;
+            if (prev != null && prev.size == size && prev.modified == modified
+                    && Files.exists(objectPath(objects, prev.hash))) {
+                hash = prev.hash;
+            } else {
+                // the copy is what gets hashed and stored, so a concurrent append cannot split them
+                Path copy = Files.createTempFile(objects, "incoming", ".tmp");
+                try {
+                    Files.copy(p, copy, StandardCopyOption.REPLACE_EXISTING);
+                    size = Files.size(copy);
+                    hash = hash(copy);
+                    stored = storeObject(copy, objectPath(objects, hash));
+                } finally {
+                    Files.deleteIfExists(copy);
+                }
+            }
+            Path object = objectPath(objects, hash);
+            linkOrCopy(object, backup.resolve(name));
+            report.addFile(size, stored);
+            entries.add(new Entry(name, size, modified, hash));
+        }
+        report.addMetadata(writeManifest(backup, entries));
+        return report;
+    }
+
+    /**
+     * Restores every file recorded in the backup point into {@code dataDir}, each one replaced
+     * atomically. Files that were not part of the backup are left alone.
+     */
+    public static int restore(Path dataDir, Path backup) throws IOException {
+        Path objects = dataDir.resolve(OBJECTS_DIR);
+        List<Entry> entries = readManifest(backup);
+        for (Entry e : entries) {
+            Path source = objectPath(objects, e.hash);
+            if (!Files.exists(source)) source = backup.resolve(e.name);
+            if (!Files.exists(source)) throw new IOException("backup content missing for " + e.name);
+            Path target = dataDir.resolve(e.name);
+            Path tmp = dataDir.resolve(e.name + ".restore.tmp");
+            Files.createDirectories(target.getParent());
+            Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return entries.size();
+    }
+
+    /** Backup points in {@code dataDir}, oldest first. */
+    public static List<Path> listBackups(Path dataDir) throws IOException {
+        if (!Files.isDirectory(dataDir)) return List.of();
+        try (Stream<Path> s = Files.list(dataDir)) {
+            return s.filter(p -> p.getFileName().toString().startsWith(BACKUP_PREFIX))
+                    .filter(p -> Files.isRegularFile(p.resolve(MANIFEST)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Optional<Path> latestBackup(Path dataDir) throws IOException {
+        List<Path> all = listBackups(dataDir);
+        return all.isEmpty() ? Optional.empty() : Optional.of(all.get(all.size() - 1));
+    }
+
+    private static Path objectPath(Path objects, String hash) {
+        return objects.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // required of every JRE
+        }
+        ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (ch.read(buf) >= 0) {
+                buf.flip();
+                md.update(buf);
+                buf.clear();
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    // renames the hashed copy into place, so a crash never leaves a truncated object under its
+    // hash; false if the store already had that content
+    private static boolean storeObject(Path copy, Path object) throws IOException {
+        if (Files.exists(object)) return false;
+        Files.createDirectories(object.getParent());
+        Files.move(copy, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    private static boolean isDataFile(Path p) {
+        return Files.isRegularFile(p) && !p.getFileName().toString().endsWith(".tmp");
+    }
+
+    private static void linkOrCopy(Path object, Path link) throws IOException {
+        try {
+            Files.createLink(link, object);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(object, link, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // one line per file: hash, size, modified millis, name (last, so it may contain anything but a newline)
+    private static long writeManifest(Path backup, List<Entry> entries) throws IOException {
+        Path file = backup.resolve(MANIFEST);
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Entry e : entries) {
+                w.write(e.hash + " " + e.size + " " + e.modified + " " + e.name);
+                w.newLine();
+            }
+        }
+        return Files.size(file);
+    }
+
+    private static List<Entry> readManifest(Path backup) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader r = Files.newBufferedReader(backup.resolve(MANIFEST), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                String[] parts = line.split(" ", 4);
+                if (parts.length < 4) continue;
+                entries.add(new Entry(parts[3], Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[0]));
+            }
+        }
+        return entries;
+    }
+}
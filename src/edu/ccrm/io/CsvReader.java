@@ -0,0 +1,240 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reusable reader for the project's CSV dialect: fields separated by ',', a backslash makes the
+ * next character literal (so "\," is a comma inside a field), records end at an unescaped newline.
+ *
+ * Records are unescaped in place inside the read buffer and fields are exposed as views over it,
+ * so reading a record allocates nothing. Views and offsets are only valid until the next call to
+ * {@link #next()}; use {@link #string(int)} to keep a value.
+ */
+public final class CsvReader implements AutoCloseable {
+    private static final int DEFAULT_BUFFER = 64 * 1024;
+
+    private final Reader source; // null when reading a fixed char range
+    private char[] buf;
+    private int pos;   // next unread char
+    private int limit; // end of valid chars
+    private boolean eof;
+
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fieldCount;
+    private long recordNo;
+    private long lines;      // physical lines consumed (unescaped and escaped newlines)
+    private long recordLine; // physical line the current record starts on
+    private Field[] views = new Field[0];
+
+    public CsvReader(Reader source) {
+        this.source = source;
+        this.buf = new char[DEFAULT_BUFFER];
+    }
+
+    /** Reads records from a fixed range of chars; the array is unescaped in place. */
+    public CsvReader(char[] chars, int offset, int length) {
+        this.source = null;
+        this.buf = chars;
+        this.pos = offset;
+        this.limit = offset + length;
+        this.eof = true;
+    }
+
+    /** Advances to the next record; returns false at end of input. */
+    public boolean next() throws IOException {
+        fieldCount = 0;
+        if (pos >= limit && !fill()) return false;
+        recordLine = lines + 1;
+        int out = pos;     // write cursor for unescaped chars (never passes the read cursor)
+        int i = pos;
+        int fieldStart = out;
+        int rawCr = -1;    // where the last unescaped '\r' was written; only that one can be half a CRLF
+        boolean crlf = false;
+        while (true) {
+            if (i >= limit) {
+                int shift = pos;
+                if (!fill()) break; // last record without trailing newline
+                // fill() compacted the buffer; shift our cursors with it
+                shift -= pos;
+                i -= shift;
+                out -= shift;
+                fieldStart -= shift;
+                rawCr -= shift;
+                for (int f = 0; f < fieldCount; f++) {
+                    starts[f] -= shift;
+                    ends[f] -= shift;
+                }
+                continue;
+            }
+            char ch = buf[i];
+            if (ch == '\\') {
+                if (i + 1 >= limit) {
+                    int shift = pos;
+                    if (!fill()) { i++; break; } // dangling backslash at EOF is dropped
+                    shift -= pos;
+                    i -= shift;
+                    out -= shift;
+                    fieldStart -= shift;
+                    rawCr -= shift;
+                    for (int f = 0; f < fieldCount; f++) {
+                        starts[f] -= shift;
+                        ends[f] -= shift;
+                    }
+                    continue;
+                }
+                if (buf[i + 1] == '\n') lines++;
+                buf[out++] = buf[i + 1];
+                i += 2;
+            } else if (ch == ',') {
+                addField(fieldStart, out);
+                fieldStart = out;
+                i++;
+            } else if (ch == '\n') {
+                lines++;
+                crlf = out > fieldStart && rawCr == out - 1;
+                i++;
+                break;
+            } else {
+                if (ch == '\r') rawCr = out;
+                buf[out++] = ch;
+                i++;
+            }
+        }
+        // a CRLF terminator; an escaped '\r' at the end of the last field is data and stays
+        addField(fieldStart, crlf ? out - 1 : out);
+        pos = i;
+        recordNo++;
+        return true;
+    }
+
+    /** Number of records returned so far (the current record's 1-based index). */
+    public long recordNumber() { return recordNo; }
+
+    /**
+     * Physical line (1-based) the current record starts on. It runs ahead of
+     * {@link #recordNumber()} once a field has held an escaped line break.
+     */
+    public long lineNumber() { return recordLine; }
+
+    /** Physical lines consumed so far, i.e. line breaks read, escaped ones included. */
+    public long linesRead() { return lines; }
+
+    public int fieldCount() { return fieldCount; }
+
+    public int length(int field) { return ends[field] - starts[field]; }
+
+    public boolean isBlank(int field) {
+        for (int i = starts[field]; i < ends[field]; i++) if (!Character.isWhitespace(buf[i])) return false;
+        return true;
+    }
+
+    /** True if the record is a single empty/blank field (a blank line). */
+    public boolean isBlankLine() { return fieldCount == 1 && isBlank(0); }
+
+    /** Allocation-free view of a field; reused on the next call for the same index. */
+    public CharSequence field(int field) {
+        if (views.length < fieldCount) views = Arrays.copyOf(views, starts.length);
+        Field v = views[field];
+        if (v == null) v = views[field] = new Field();
+        v.start = starts[field];
+        v.end = ends[field];
+        return v;
+    }
+
+    public String string(int field) {
+        return new String(buf, starts[field], ends[field] - starts[field]);
+    }
+
+    public boolean startsWith(int field, String prefix) {
+        int len = ends[field] - starts[field];
+        if (len < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) if (buf[starts[field] + i] != prefix.charAt(i)) return false;
+        return true;
+    }
+
+    public boolean fieldEquals(int field, String s) {
+        return length(field) == s.length() && startsWith(field, s);
+    }
+
+    /** Parses a (whitespace-trimmed) decimal int without allocating; throws NumberFormatException. */
+    public int intField(int field) {
+        int i = starts[field];
+        int end = ends[field];
+        while (i < end && buf[i] == ' ') i++;
+        while (end > i && buf[end - 1] == ' ') end--;
+        if (i == end) throw new NumberFormatException("empty number in field " + field);
+        boolean neg = buf[i] == '-';
+        if (neg || buf[i] == '+') i++;
+        if (i == end) throw new NumberFormatException("For input string: \"" + string(field) + "\"");
+        long v = 0;
+        for (; i < end; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) throw new NumberFormatException("For input string: \"" + string(field) + "\"");
+            v = v * 10 + d;
+            if (v > (long) Integer.MAX_VALUE + 1) throw new NumberFormatException("Out of range: \"" + string(field) + "\"");
+        }
+        v = neg ? -v : v;
+        if (v > Integer.MAX_VALUE) throw new NumberFormatException("Out of range: \"" + string(field) + "\"");
+        return (int) v;
+    }
+
+    /** Same rule as Boolean.parseBoolean: true only for "true", ignoring case. */
+    public boolean booleanField(int field) {
+        if (length(field) != 4) return false;
+        int s = starts[field];
+        return (buf[s] | 0x20) == 't' && (buf[s + 1] | 0x20) == 'r' && (buf[s + 2] | 0x20) == 'u' && (buf[s + 3] | 0x20) == 'e';
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (source != null) source.close();
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    // moves the unread tail (from pos) to the front and reads more; grows the buffer for long records
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+        int n = source.read(buf, limit, buf.length - limit);
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    private final class Field implements CharSequence {
+        int start;
+        int end;
+
+        @Override
+        public int length() { return end - start; }
+
+        @Override
+        public char charAt(int index) { return buf[start + index]; }
+
+        @Override
+        public CharSequence subSequence(int from, int to) { return new String(buf, start + from, to - from); }
+
+        @Override
+        public String toString() { return new String(buf, start, end - start); }
+    }
+}
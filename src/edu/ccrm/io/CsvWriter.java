@@ -0,0 +1,154 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writer for the CSV dialect read by {@link CsvReader}. Values are escaped and formatted straight
+ * into a reusable char buffer that is encoded as UTF-8 into a byte buffer and written to the
+ * channel, so no per-row strings or line lists are built.
+ */
+public final class CsvWriter implements AutoCloseable {
+    private static final int BUFFER_CHARS = 32 * 1024;
+
+    private final WritableByteChannel out;
+    private final char[] chars = new char[BUFFER_CHARS];
+    private final CharBuffer charView = CharBuffer.wrap(chars);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_CHARS * 3);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private int n;                  // chars buffered
+    private boolean firstInRecord = true;
+    private long bytesWritten;
+
+    public CsvWriter(WritableByteChannel out) {
+        this.out = out;
+    }
+
+    /** Writes a text field, escaping separators, backslashes and line breaks; null becomes empty. */
+    public CsvWriter field(CharSequence value) throws IOException {
+        separator();
+        if (value == null) return this;
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char ch = value.charAt(i);
+            if (ch == ',' || ch == '\\' || ch == '\n' || ch == '\r') put('\\');
+            put(ch);
+        }
+        return this;
+    }
+
+    public CsvWriter field(int value) throws IOException { return field((long) value); }
+
+    public CsvWriter field(long value) throws IOException {
+        separator();
+        if (value == Long.MIN_VALUE) {
+            raw("-9223372036854775808");
+            return this;
+        }
+        if (value < 0) {
+            put('-');
+            value = -value;
+        }
+        if (n + 20 > chars.length) flushChars();
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) digits++;
+        for (int i = n + digits - 1; i >= n; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        n += digits;
+        return this;
+    }
+
+    public CsvWriter field(boolean value) throws IOException {
+        separator();
+        raw(value ? "true" : "false");
+        return this;
+    }
+
+    /** Writes text that is known not to need escaping (e.g. a header line fragment). */
+    public CsvWriter raw(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) put(s.charAt(i));
+        return this;
+    }
+
+    /** Starts a list inside a field: items separated by ';', each escaped like a field. */
+    public CsvWriter listItem(CharSequence item, boolean first) throws IOException {
+        if (first) separator();
+        else put(';');
+        for (int i = 0, len = item.length(); i < len; i++) {
+            char ch = item.charAt(i);
+            if (ch == ',' || ch == '\\' || ch == '\n' || ch == '\r') put('\\');
+            put(ch);
+        }
+        return this;
+    }
+
+    /** Writes an empty field (used for empty lists). */
+    public CsvWriter emptyField() throws IOException {
+        separator();
+        return this;
+    }
+
+    public CsvWriter endRecord() throws IOException {
+        put('\n');
+        firstInRecord = true;
+        return this;
+    }
+
+    public long bytesWritten() { return bytesWritten; }
+
+    public void flush() throws IOException {
+        flushChars();
+        encoder.encode(CharBuffer.allocate(0), bytes, true);
+        drainBytes();
+        encoder.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void separator() throws IOException {
+        if (firstInRecord) firstInRecord = false;
+        else put(',');
+    }
+
+    private void put(char ch) throws IOException {
+        if (n == chars.length) flushChars();
+        chars[n++] = ch;
+    }
+
+    // encodes the buffered chars; a split surrogate pair stays buffered for the next round
+    private void flushChars() throws IOException {
+        charView.clear().limit(n);
+        while (true) {
+            CoderResult r = encoder.encode(charView, bytes, false);
+            if (r.isOverflow()) {
+                drainBytes();
+                continue;
+            }
+            if (r.isError()) r.throwException();
+            break;
+        }
+        drainBytes();
+        int left = charView.remaining();
+        System.arraycopy(chars, charView.position(), chars, 0, left);
+        n = left;
+    }
+
+    private void drainBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) bytesWritten += out.write(bytes);
+        bytes.clear();
+    }
+}
@@ -1,157 +1,485 @@
 package edu.ccrm.io;
 
 import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
 import edu.ccrm.domain.Student;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.service.BatchEnrollmentReport;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 public class FileUtil {
-    private static final Path DATA_DIR = Paths.get("data");
+    // -Dccrm.data.dir moves the data directory (benchmarks point it at a scratch directory)
+    private static final Path DATA_DIR = Paths.get(System.getProperty("ccrm.data.dir", "data"));
+
+    private static final Metrics.Timer EXPORT_STUDENTS_TIME = Metrics.timer("io.export_students", "students.csv export latency");
+    private static final Metrics.Timer EXPORT_COURSES_TIME = Metrics.timer("io.export_courses", "courses.csv export latency");
+    private static final Metrics.Timer EXPORT_ENROLLMENTS_TIME = Metrics.timer("io.export_enrollments", "enrollments.csv export latency");
+    private static final Metrics.Timer EXPORT_ALL_TIME = Metrics.timer("io.export_all", "concurrent export of all csv files");
+    private static final Metrics.Timer IMPORT_STUDENTS_TIME = Metrics.timer("io.import_students", "students.csv import latency");
+    private static final Metrics.Timer IMPORT_COURSES_TIME = Metrics.timer("io.import_courses", "courses.csv import latency");
+    private static final Metrics.Timer LOAD_COURSES_TIME = Metrics.timer("io.load_courses", "streaming courses.csv load latency");
+    private static final Metrics.Timer LOAD_STUDENTS_TIME = Metrics.timer("io.load_students", "streaming students.csv load latency");
+    private static final Metrics.Timer BACKUP_TIME = Metrics.timer("io.backup", "full copy backup latency");
+    private static final Metrics.Timer BACKUP_INCREMENTAL_TIME = Metrics.timer("io.backup_incremental", "incremental backup latency");
+    private static final Metrics.Timer RESTORE_TIME = Metrics.timer("io.restore_backup", "backup restore latency");
+    private static final Metrics.Timer DIRECTORY_SIZE_TIME = Metrics.timer("io.directory_size", "data directory size walk latency");
+
+    public static Path dataDir() { return DATA_DIR; }
+
+    public static Path dataFile(String name) { return DATA_DIR.resolve(name); }
 
     public static void ensureDataDir() throws IOException {
         if (!Files.exists(DATA_DIR)) Files.createDirectories(DATA_DIR);
     }
 
     public static void exportStudentsCsv(Collection<Student> students) throws IOException {
-        ensureDataDir();
-        Path file = DATA_DIR.resolve("students.csv");
-        List<String> lines = new ArrayList<>();
-        lines.add("id,regNo,fullName,email,active,enrollmentDate,enrolledCourses");
-        for (Student s : students) {
-            String enrolled = String.join(";", s.getEnrolledCourseCodes());
-            lines.add(String.format("%d,%s,%s,%s,%s,%s,%s",
-                    s.getId(), s.getRegNo(), escape(s.getFullName()), s.getEmail(),
-                    s.isActive(), s.getEnrollmentDate(), escape(enrolled)));
+        long t0 = Metrics.start();
+        try {
+            ensureDataDir();
+            writeAtomically(DATA_DIR.resolve("students.csv"), w -> writeStudents(students, w));
+        } finally {
+            EXPORT_STUDENTS_TIME.stop(t0);
         }
-        Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
     }
 
     public static void exportCoursesCsv(Collection<Course> courses) throws IOException {
-        ensureDataDir();
-        Path file = DATA_DIR.resolve("courses.csv");
-        List<String> lines = new ArrayList<>();
-        lines.add("code,title,credits,instructor,semester,department,active");
-        for (Course c : courses) {
-            lines.add(String.format("%s,%s,%d,%s,%s,%s,%s",
-                    c.getCode(), escape(c.getTitle()), c.getCredits(), c.getInstructor(), c.getSemester(), c.getDepartment(), c.isActive()));
+        long t0 = Metrics.start();
+        try {
+            ensureDataDir();
+            writeAtomically(DATA_DIR.resolve("courses.csv"), w -> writeCourses(courses, w));
+        } finally {
+            EXPORT_COURSES_TIME.stop(t0);
+        }
+    }
+
+    /** One row per enrollment with its grade, grouped by student in id order. */
+    public static void exportEnrollmentsCsv(StudentService ss, EnrollmentService es) throws IOException {
+        long t0 = Metrics.start();
+        try {
+            ensureDataDir();
+            writeAtomically(DATA_DIR.resolve("enrollments.csv"), w -> writeEnrollments(ss, es, w));
+        } finally {
+            EXPORT_ENROLLMENTS_TIME.stop(t0);
+        }
+    }
+
+    /**
+     * Exports students.csv, courses.csv and enrollments.csv concurrently, one thread per file.
+     * Each file is replaced atomically; returns the total bytes written.
+     */
+    public static long exportAll(StudentService ss, CourseService cs, EnrollmentService es) throws IOException {
+        long t0 = Metrics.start();
+        try {
+            ensureDataDir();
+            List<Callable<Long>> tasks = List.of(
+                    () -> writeAtomically(DATA_DIR.resolve("students.csv"), w -> writeStudents(ss.listAll(), w)),
+                    () -> writeAtomically(DATA_DIR.resolve("courses.csv"), w -> writeCourses(cs.listAll(), w)),
+                    () -> writeAtomically(DATA_DIR.resolve("enrollments.csv"), w -> writeEnrollments(ss, es, w)));
+            ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+            try {
+                long total = 0;
+                for (Future<Long> f : pool.invokeAll(tasks)) total += f.get();
+                return total;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("export interrupted");
+            } finally {
+                pool.shutdownNow();
+            }
+        } finally {
+            EXPORT_ALL_TIME.stop(t0);
+        }
+    }
+
+    @FunctionalInterface
+    interface CsvBody {
+        void write(CsvWriter w) throws IOException;
+    }
+
+    /** Writes the body of a binary file replaced by {@link #writeDataAtomically}. */
+    @FunctionalInterface
+    public interface DataBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ChannelBody {
+        long write(FileChannel ch) throws IOException;
+    }
+
+    static long writeAtomically(Path target, CsvBody body) throws IOException {
+        return replaceAtomically(target, ch -> {
+            CsvWriter w = new CsvWriter(ch);
+            body.write(w);
+            w.flush();
+            return w.bytesWritten();
+        });
+    }
+
+    /**
+     * Replaces {@code target} with what {@code body} writes, durably and atomically: readers and a
+     * crash see the old file or the complete new one, and a failed write leaves no temp file behind.
+     * Returns the number of bytes written.
+     */
+    public static long writeDataAtomically(Path target, DataBody body) throws IOException {
+        return replaceAtomically(target, ch -> {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16));
+            body.write(out);
+            out.flush();
+            return ch.position();
+        });
+    }
+
+    // the body streams to a temp file of its own in the same directory, which is fsynced and then
+    // renamed over the target, and the directory is fsynced so the rename itself survives a crash.
+    // Concurrent writers of the same target never share a temp file, and the last rename wins.
+    private static long replaceAtomically(Path target, ChannelBody body) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        long bytes;
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                bytes = body.write(ch);
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        forceDirectory(dir);
+        return bytes;
+    }
+
+    // makes a rename in dir durable; some platforms (Windows) cannot open a directory for this,
+    // and there the rename is as durable as the file system makes it
+    private static void forceDirectory(Path dir) throws IOException {
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (AccessDeniedException | UnsupportedOperationException e) {
+            // not supported for directories here
         }
-        Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
     }
 
-    private static String escape(String s) {
-        if (s == null) return "";
-        return s.replace(",", "\\,");
+    static void writeStudents(Iterable<Student> students, CsvWriter w) throws IOException {
+        w.raw(STUDENT_HEADER).endRecord();
+        for (Student s : students) {
+            w.field(s.getId()).field(s.getRegNo()).field(s.getFullName()).field(s.getEmail())
+                    .field(s.isActive()).field(s.getEnrollmentDate().toString());
+            List<String> codes = s.getEnrolledCourseCodes();
+            if (codes.isEmpty()) w.emptyField();
+            for (int i = 0; i < codes.size(); i++) w.listItem(codes.get(i), i == 0);
+            w.endRecord();
+        }
+    }
+
+    static void writeEnrollments(StudentService ss, EnrollmentService es, CsvWriter w) throws IOException {
+        w.raw(ENROLLMENT_HEADER).endRecord();
+        for (Student s : ss.listAll()) {
+            for (Enrollment e : es.listEnrollmentsForStudent(s.getRegNo())) {
+                w.field(e.getRegNo()).field(e.getCourseCode());
+                if (e.getGrade() == null) w.emptyField();
+                else w.field(e.getGrade().name());
+                w.endRecord();
+            }
+        }
+    }
+
+    static void writeCourses(Iterable<Course> courses, CsvWriter w) throws IOException {
+        w.raw(COURSE_HEADER).endRecord();
+        for (Course c : courses) {
+            w.field(c.getCode()).field(c.getTitle()).field(c.getCredits()).field(c.getInstructor())
+                    .field(c.getSemester()).field(c.getDepartment()).field(c.isActive()).field(c.getCapacity())
+                    .endRecord();
+        }
     }
 
     public static List<Student> importStudentsCsv() throws IOException {
-        Path file = DATA_DIR.resolve("students.csv");
-        if (!Files.exists(file)) return Collections.emptyList();
-        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
-            return lines.skip(1).map(line -> {
-                String[] parts = splitCsv(line);
-                try {
-                    int id = Integer.parseInt(parts[0]);
-                    String regNo = parts[1];
-                    String name = unescape(parts[2]);
-                    String email = parts[3];
-                    boolean active = Boolean.parseBoolean(parts[4]);
-                    String date = parts[5];
-                    String enrolled = parts.length > 6 ? unescape(parts[6]) : "";
-                    Student s = new Student(id, regNo, name, email, java.time.LocalDate.parse(date));
-                    if (!active) s.deactivate();
-                    if (!enrolled.isBlank()) {
-                        for (String code : enrolled.split(";")) {
-                            if (!code.isBlank()) s.enrollCourse(code);
-                        }
+        long t0 = Metrics.start();
+        try {
+            Path file = DATA_DIR.resolve("students.csv");
+            if (!Files.exists(file)) return Collections.emptyList();
+            List<Student> out = new ArrayList<>();
+            try (CsvReader r = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+                while (r.next()) {
+                    if (r.isBlankLine() || isHeader(r, "id")) continue;
+                    try {
+                        out.add(parseStudent(r, null));
+                    } catch (RuntimeException ex) {
+                        // unparseable row: skipped, as before (loadStudents reports these)
                     }
-                    return s;
-                } catch (Exception ex) {
-                    return null;
                 }
-            }).filter(Objects::nonNull).collect(Collectors.toList());
+            }
+            return out;
+        } finally {
+            IMPORT_STUDENTS_TIME.stop(t0);
         }
     }
 
     public static List<Course> importCoursesCsv() throws IOException {
-        Path file = DATA_DIR.resolve("courses.csv");
-        if (!Files.exists(file)) return Collections.emptyList();
-        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
-            return lines.skip(1).map(line -> {
-                String[] p = splitCsv(line);
-                try {
-                    String code = p[0];
-                    String title = unescape(p[1]);
-                    int credits = Integer.parseInt(p[2]);
-                    String inst = p[3];
-                    String sem = p[4];
-                    String dept = p[5];
-                    boolean active = Boolean.parseBoolean(p[6]);
-                    Course c = new Course(code, title, credits, inst, sem, dept);
-                    if (!active) c.deactivate();
-                    return c;
-                } catch (Exception ex) {
-                    return null;
+        long t0 = Metrics.start();
+        try {
+            Path file = DATA_DIR.resolve("courses.csv");
+            if (!Files.exists(file)) return Collections.emptyList();
+            List<Course> out = new ArrayList<>();
+            try (CsvReader r = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+                while (r.next()) {
+                    if (r.isBlankLine() || isHeader(r, "code")) continue;
+                    try {
+                        out.add(parseCourse(r));
+                    } catch (RuntimeException ex) {
+                        // unparseable row: skipped, as before (loadCourses reports these)
+                    }
+                }
+            }
+            return out;
+        } finally {
+            IMPORT_COURSES_TIME.stop(t0);
+        }
+    }
+
+    private static final String STUDENT_HEADER = "id,regNo,fullName,email,active,enrollmentDate,enrolledCourses";
+    private static final String COURSE_HEADER = "code,title,credits,instructor,semester,department,active,capacity";
+    private static final String ENROLLMENT_HEADER = "regNo,courseCode,grade";
+    private static final int ENROLLMENT_BATCH = 10_000;
+
+    /**
+     * Streams data/courses.csv into the service one row at a time. Rows that fail to parse or
+     * duplicate an existing code are counted in the report instead of being dropped silently.
+     */
+    public static LoadReport loadCourses(CourseService cs) throws IOException {
+        long t0 = Metrics.start();
+        try {
+            Path file = DATA_DIR.resolve("courses.csv");
+            LoadReport report = new LoadReport(file.toString());
+            if (!Files.exists(file)) return report;
+            try (CsvReader r = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+                while (r.next()) {
+                    long lineNo = r.lineNumber();
+                    if (r.isBlankLine() || (r.recordNumber() == 1 && isHeader(r, "code"))) continue;
+                    try {
+                        Course c = parseCourse(r);
+                        if (cs.addCourse(c)) report.accept();
+                        else report.reject(lineNo, "duplicate course code " + c.getCode());
+                    } catch (RuntimeException ex) {
+                        report.reject(lineNo, describe(ex));
+                    }
                 }
-            }).filter(Objects::nonNull).collect(Collectors.toList());
-        }
-    }
-
-    private static String[] splitCsv(String line) {
-        // simple split that treats escaped commas \, (sufficient for basic csv here)
-        List<String> out = new ArrayList<>();
-        StringBuilder sb = new StringBuilder();
-        boolean esc = false;
-        for (int i = 0; i < line.length(); i++) {
-            char ch = line.charAt(i);
-            if (esc) {
-                sb.append(ch);
-                esc = false;
-            } else if (ch == '\\') {
-                esc = true;
-            } else if (ch == ',') {
-                out.add(sb.toString());
-                sb = new StringBuilder();
-            } else {
-                sb.append(ch);
+            }
+            return report;
+        } finally {
+            LOAD_COURSES_TIME.stop(t0);
+        }
+    }
+
+    /**
+     * Streams data/students.csv into the student service keeping the stored ids. When an enrollment
+     * service is given, the enrolledCourses column is replayed through its batch API in bounded
+     * chunks (load courses first); otherwise the codes are only kept on the Student.
+     */
+    public static LoadReport loadStudents(StudentService ss, EnrollmentService es) throws IOException {
+        long t0 = Metrics.start();
+        try {
+            Path file = DATA_DIR.resolve("students.csv");
+            LoadReport report = new LoadReport(file.toString());
+            if (!Files.exists(file)) return report;
+            List<EnrollmentRequest> pending = new ArrayList<>();
+            List<Long> pendingLines = new ArrayList<>();
+            try (CsvReader r = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+                List<String> codes = new ArrayList<>();
+                while (r.next()) {
+                    long lineNo = r.lineNumber();
+                    if (r.isBlankLine() || (r.recordNumber() == 1 && isHeader(r, "id"))) continue;
+                    codes.clear();
+                    try {
+                        Student s = parseStudent(r, es == null ? null : codes);
+                        if (!ss.addStudent(s)) {
+                            report.reject(lineNo, "duplicate regNo " + s.getRegNo());
+                            continue;
+                        }
+                        report.accept();
+                        for (String code : codes) {
+                            pending.add(new EnrollmentRequest(s.getRegNo(), code));
+                            pendingLines.add(lineNo);
+                        }
+                    } catch (RuntimeException ex) {
+                        report.reject(lineNo, describe(ex));
+                    }
+                    if (pending.size() >= ENROLLMENT_BATCH) flushEnrollments(es, pending, pendingLines, report);
+                }
+            }
+            if (!pending.isEmpty()) flushEnrollments(es, pending, pendingLines, report);
+            return report;
+        } finally {
+            LOAD_STUDENTS_TIME.stop(t0);
+        }
+    }
+
+    static void flushEnrollments(EnrollmentService es, List<EnrollmentRequest> pending, List<Long> lines,
+                                         LoadReport report) {
+        BatchEnrollmentReport r = es.enrollAll(pending);
+        for (int i : r.failedIndices()) {
+            report.reject(lines.get(i), "enrollment " + pending.get(i).getCourseCode() + " rejected: " + r.result(i));
+        }
+        pending.clear();
+        lines.clear();
+    }
+
+    private static boolean isHeader(CsvReader r, String firstColumn) {
+        return r.fieldCount() > 1 && r.fieldEquals(0, firstColumn);
+    }
+
+    // codesOut == null: enrolled course codes go onto the Student; otherwise they are collected there
+    static Student parseStudent(CsvReader r, List<String> codesOut) {
+        if (r.fieldCount() < 6) throw new IllegalArgumentException("expected at least 6 fields, got " + r.fieldCount());
+        int id = r.intField(0);
+        if (r.isBlank(1)) throw new IllegalArgumentException("missing regNo");
+        String regNo = r.string(1);
+        String name = r.string(2);
+        String email = r.string(3);
+        boolean active = r.booleanField(4);
+        LocalDate date = LocalDate.parse(r.field(5));
+        Student s = new Student(id, regNo, name, email, date);
+        if (!active) s.deactivate();
+        if (r.fieldCount() > 6) {
+            CharSequence enrolled = r.field(6);
+            int from = 0;
+            for (int i = 0; i <= enrolled.length(); i++) {
+                if (i < enrolled.length() && enrolled.charAt(i) != ';') continue;
+                String code = enrolled.subSequence(from, i).toString().trim();
+                from = i + 1;
+                if (code.isEmpty()) continue;
+                if (codesOut == null) s.enrollCourse(code);
+                else codesOut.add(code);
             }
         }
-        out.add(sb.toString());
-        return out.toArray(new String[0]);
+        return s;
     }
 
-    private static String unescape(String s) {
-        return s == null ? "" : s.replace("\\,", ",");
+    static Course parseCourse(CsvReader r) {
+        if (r.fieldCount() < 6) throw new IllegalArgumentException("expected at least 6 fields, got " + r.fieldCount());
+        if (r.isBlank(0)) throw new IllegalArgumentException("missing course code");
+        String code = r.string(0);
+        String title = r.string(1);
+        int credits = r.intField(2);
+        String inst = r.string(3);
+        String sem = r.string(4);
+        String dept = r.string(5);
+        boolean active = r.fieldCount() <= 6 || r.booleanField(6); // older exports have no active column
+        int capacity = r.fieldCount() > 7 ? r.intField(7) : 0;     // ... nor a capacity column
+        Course c = new Course(code, title, credits, inst, sem, dept, capacity);
+        if (!active) c.deactivate();
+        return c;
+    }
+
+    static String describe(RuntimeException ex) {
+        if (ex instanceof NumberFormatException) return "bad number (" + ex.getMessage() + ")";
+        if (ex instanceof DateTimeParseException) return "bad date '" + ((DateTimeParseException) ex).getParsedString() + "'";
+        return ex.getMessage();
     }
 
     public static Path backupData() throws IOException {
-        ensureDataDir();
-        String ts = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        Path backup = DATA_DIR.resolve("backup_" + ts);
-        Files.createDirectories(backup);
-        try (DirectoryStream<Path> ds = Files.newDirectoryStream(DATA_DIR)) {
-            for (Path p : ds) {
-                if (Files.isDirectory(p) && p.getFileName().toString().startsWith("backup_")) continue;
-                if (Files.isRegularFile(p)) {
-                    Files.copy(p, backup.resolve(p.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        long t0 = Metrics.start();
+        try {
+            ensureDataDir();
+            String ts = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+            Path backup = DATA_DIR.resolve("backup_" + ts);
+            Files.createDirectories(backup);
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(DATA_DIR)) {
+                for (Path p : ds) {
+                    if (Files.isDirectory(p) && p.getFileName().toString().startsWith("backup_")) continue;
+                    if (Files.isRegularFile(p)) {
+                        Files.copy(p, backup.resolve(p.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+                    }
                 }
             }
+            return backup;
+        } finally {
+            BACKUP_TIME.stop(t0);
+        }
+    }
+
+    /** Incremental backup: only content not already in the backup store is written. */
+    public static BackupReport backupDataIncremental() throws IOException {
+        long t0 = Metrics.start();
+        try {
+            ensureDataDir();
+            String ts = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+            return BackupStore.backup(DATA_DIR, ts);
+        } finally {
+            BACKUP_INCREMENTAL_TIME.stop(t0);
+        }
+    }
+
+    public static List<Path> listBackups() throws IOException { return BackupStore.listBackups(DATA_DIR); }
+
+    public static int restoreBackup(Path backup) throws IOException {
+        long t0 = Metrics.start();
+        try {
+            return BackupStore.restore(DATA_DIR, backup);
+        } finally {
+            RESTORE_TIME.stop(t0);
         }
-        return backup;
     }
 
     public static long directorySizeRecursive(Path p) throws IOException {
-        if (!Files.exists(p)) return 0L;
-        try (Stream<Path> s = Files.walk(p)) {
-            return s.filter(Files::isRegularFile).mapToLong(pp -> {
-                try { return Files.size(pp); } catch (IOException e) { return 0L; }
-            }).sum();
+        return directorySizeRecursive(p, false);
+    }
+
+    /**
+     * Total size of the regular files under {@code p}. With {@code deduplicate}, hard links to the
+     * same file (as backup points share with the backup store) are counted once, giving the space
+     * actually used on disk.
+     */
+    public static long directorySizeRecursive(Path p, boolean deduplicate) throws IOException {
+        long t0 = Metrics.start();
+        try {
+            if (!Files.exists(p)) return 0L;
+            Set<Object> seen = new HashSet<>();
+            try (Stream<Path> s = Files.walk(p)) {
+                return s.filter(Files::isRegularFile).mapToLong(pp -> {
+                    try {
+                        BasicFileAttributes attrs = Files.readAttributes(pp, BasicFileAttributes.class);
+                        Object key = attrs.fileKey();
+                        if (deduplicate && key != null && !seen.add(key)) return 0L;
+                        return attrs.size();
+                    } catch (IOException e) { return 0L; }
+                }).sum();
+            }
+        } finally {
+            DIRECTORY_SIZE_TIME.stop(t0);
         }
     }
 }
@@ -0,0 +1,551 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.MutationListener;
+import edu.ccrm.service.StudentService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of every service mutation. Register it with
+ * {@link #attach} after startup; each mutation is appended as a checksummed record and the
+ * calling thread returns only once the record is on disk.
+ *
+ * Group commit: appends go into a shared buffer, and a single flusher thread writes and fsyncs
+ * whatever has accumulated, waking every writer whose record it covered. The commit window is
+ * the longest the flusher waits for more records before syncing (0 = sync as soon as anything is
+ * pending); a wider window means fewer fsyncs shared by more writers.
+ *
+ * Bulk loaders can {@link #setDeferredSync defer} durability: appends then return as soon as the
+ * record is queued (blocking only when too much is pending), and {@link #sync} waits for everything
+ * queued so far.
+ *
+ * On startup, {@link #replay} applies the journal on top of the latest snapshot. A torn record at
+ * the tail (crash mid-write) ends the replay and is truncated away.
+ */
+public final class Journal implements MutationListener, Closeable {
+    private static final byte STUDENT_ADDED = 1;
+    private static final byte STUDENT_CHANGED = 2;
+    private static final byte COURSE_ADDED = 3;
+    private static final byte COURSE_CHANGED = 4;
+    private static final byte ENROLLED = 5;
+    private static final byte DROPPED = 6;
+    private static final byte GRADED = 7;
+    private static final byte WAITLISTED = 8;
+    private static final byte LEFT_WAITLIST = 9;
+    private static final byte TERM_CLOSED = 10;
+
+    // deferred appends block once this much is waiting for the flusher
+    private static final int MAX_DEFERRED_BYTES = 8 * 1024 * 1024;
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_INT = 2;
+    private static final byte VALUE_BOOLEAN = 3;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long commitWindowNanos;
+    private final Thread flusher;
+
+    private final Object lock = new Object();
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(64 * 1024);
+    private ByteArrayOutputStream spare = new ByteArrayOutputStream(64 * 1024);
+    private long appendedSeq;  // last record handed to the journal
+    private long durableSeq;   // last record known to be on disk
+    private long syncs;
+    private IOException failure;
+    private boolean closed;
+    private volatile boolean deferredSync;
+    private final ThreadLocal<Boolean> deferredOnThread = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private volatile EnrollmentService enrollments; // set by attach; checkpoints exclude its term closes
+
+    public Journal(Path file, long commitWindowMillis) throws IOException {
+        if (commitWindowMillis < 0) throw new IllegalArgumentException("commit window must be >= 0");
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.commitWindowNanos = commitWindowMillis * 1_000_000L;
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public static Path defaultFile() { return FileUtil.dataFile("journal.log"); }
+
+    public Path getFile() { return file; }
+
+    /** Registers the journal with all three services. */
+    public void attach(StudentService ss, CourseService cs, EnrollmentService es) {
+        ss.addMutationListener(this);
+        cs.addMutationListener(this);
+        es.addMutationListener(this);
+        enrollments = es;
+    }
+
+    public void detach(StudentService ss, CourseService cs, EnrollmentService es) {
+        ss.removeMutationListener(this);
+        cs.removeMutationListener(this);
+        es.removeMutationListener(this);
+        if (enrollments == es) enrollments = null;
+    }
+
+    /** When on, appends do not wait for the fsync; call {@link #sync} to make them durable. */
+    public void setDeferredSync(boolean deferred) { this.deferredSync = deferred; }
+
+    /**
+     * Defers durability for appends made by the calling thread only, e.g. a server connection that
+     * syncs once per burst of pipelined requests before answering them.
+     */
+    public void setDeferredSyncOnCurrentThread(boolean deferred) { deferredOnThread.set(deferred); }
+
+    /** Waits until every record appended so far is on disk. */
+    public void sync() throws IOException {
+        synchronized (lock) {
+            awaitDurable(appendedSeq);
+        }
+    }
+
+    /** Number of fsyncs issued so far; compare with the record count to see how well commits group. */
+    public long syncCount() {
+        synchronized (lock) { return syncs; }
+    }
+
+    public long recordCount() {
+        synchronized (lock) { return appendedSeq; }
+    }
+
+    @FunctionalInterface
+    public interface Checkpoint {
+        void write() throws IOException;
+    }
+
+    /**
+     * Writes a snapshot (e.g. {@link SnapshotIO#save}) and then empties the journal. New appends
+     * wait until the checkpoint is done, so a crash at any point leaves either the old snapshot with
+     * the full journal or the new snapshot; a mutation racing the snapshot may end up in both,
+     * which replay tolerates. While attached, the checkpoint holds the enrollment service's
+     * student locks ({@link EnrollmentService#runExclusive}): a term close racing it could otherwise
+     * leave the closing term in the snapshot as current while its TERM_CLOSED record is truncated
+     * away, and a restart would count that term twice.
+     */
+    public void checkpoint(Checkpoint snapshot) throws IOException {
+        EnrollmentService es = enrollments;
+        if (es == null) checkpointNow(snapshot);
+        else es.runExclusive(() -> checkpointNow(snapshot));
+    }
+
+    private void checkpointNow(Checkpoint snapshot) throws IOException {
+        synchronized (lock) {
+            while (durableSeq < appendedSeq) awaitDurable(appendedSeq);
+            snapshot.write();
+            channel.truncate(0);
+            channel.force(true);
+        }
+    }
+
+    // ---- MutationListener: one record per mutation ----
+
+    @Override
+    public void studentAdded(Student s) {
+        append(STUDENT_ADDED, r -> {
+            r.writeInt(s.getId());
+            writeString(r, s.getRegNo());
+            writeString(r, s.getFullName());
+            writeString(r, s.getEmail());
+            r.writeBoolean(s.isActive());
+            r.writeLong(s.getEnrollmentDate() == null ? Long.MIN_VALUE : s.getEnrollmentDate().toEpochDay());
+        });
+    }
+
+    @Override
+    public void studentChanged(Student s, String property, Object oldValue, Object newValue) {
+        append(STUDENT_CHANGED, r -> {
+            writeString(r, s.getRegNo());
+            writeString(r, property);
+            writeValue(r, newValue);
+        });
+    }
+
+    @Override
+    public void courseAdded(Course c) {
+        append(COURSE_ADDED, r -> {
+            writeString(r, c.getCode());
+            writeString(r, c.getTitle());
+            r.writeInt(c.getCredits());
+            writeString(r, c.getInstructor());
+            writeString(r, c.getSemester());
+            writeString(r, c.getDepartment());
+            r.writeBoolean(c.isActive());
+            r.writeInt(c.getCapacity());
+        });
+    }
+
+    @Override
+    public void courseChanged(Course c, String property, Object oldValue, Object newValue) {
+        append(COURSE_CHANGED, r -> {
+            writeString(r, c.getCode());
+            writeString(r, property);
+            writeValue(r, newValue);
+        });
+    }
+
+    @Override
+    public void enrolled(Enrollment e) {
+        append(ENROLLED, r -> {
+            writeString(r, e.getRegNo());
+            writeString(r, e.getCourseCode());
+            r.writeByte(e.getGrade() == null ? -1 : e.getGrade().ordinal());
+        });
+    }
+
+    @Override
+    public void dropped(Enrollment e) {
+        append(DROPPED, r -> {
+            writeString(r, e.getRegNo());
+            writeString(r, e.getCourseCode());
+        });
+    }
+
+    @Override
+    public void gradeAssigned(Enrollment e, Grade oldGrade) {
+        append(GRADED, r -> {
+            writeString(r, e.getRegNo());
+            writeString(r, e.getCourseCode());
+            r.writeByte(e.getGrade() == null ? -1 : e.getGrade().ordinal());
+        });
+    }
+
+    @Override
+    public void waitlisted(String regNo, String courseCode) {
+        append(WAITLISTED, r -> {
+            writeString(r, regNo);
+            writeString(r, courseCode);
+        });
+    }
+
+    @Override
+    public void leftWaitlist(String regNo, String courseCode) {
+        append(LEFT_WAITLIST, r -> {
+            writeString(r, regNo);
+            writeString(r, courseCode);
+        });
+    }
+
+    // recorded before the term's rows are cleared, so a failed append leaves the term open
+    @Override
+    public void termClosing(String closedTerm, String nextTerm) {
+        append(TERM_CLOSED, r -> {
+            writeString(r, closedTerm);
+            writeString(r, nextTerm);
+        });
+    }
+
+    @FunctionalInterface
+    private interface RecordBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    // frame: [int length][byte type][body][int crc32 of type+body]; blocks until durable unless deferred
+    private void append(byte type, RecordBody body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            body.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for an in-memory stream
+        }
+        byte[] rec = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(rec);
+        long seq;
+        synchronized (lock) {
+            if (closed) throw new IllegalStateException("journal is closed");
+            writeInt(pending, rec.length);
+            pending.write(rec, 0, rec.length);
+            writeInt(pending, (int) crc.getValue());
+            seq = ++appendedSeq;
+            lock.notifyAll(); // wake the flusher
+            if ((deferredSync || deferredOnThread.get()) && pending.size() < MAX_DEFERRED_BYTES) {
+                if (failure != null) throw new UncheckedIOException("journal write failed", failure);
+                return;
+            }
+            try {
+                awaitDurable(seq);
+            } catch (IOException e) {
+                throw new UncheckedIOException("journal write failed", e);
+            }
+        }
+    }
+
+    // caller holds lock
+    private void awaitDurable(long seq) throws IOException {
+        boolean interrupted = false;
+        while (durableSeq < seq && failure == null) {
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                interrupted = true; // the record is already queued; finish waiting for it
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (failure != null) throw failure;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            long batchSeq;
+            synchronized (lock) {
+                while (pending.size() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.size() == 0) return; // closed and drained
+                // let more writers join this commit, up to the window
+                long deadline = System.nanoTime() + commitWindowNanos;
+                long left;
+                while (!closed && (left = deadline - System.nanoTime()) > 0) {
+                    try {
+                        lock.wait(left / 1_000_000L, (int) (left % 1_000_000L));
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                batch = pending;
+                pending = spare;
+                spare = batch;
+                batchSeq = appendedSeq;
+            }
+            try {
+                ByteBuffer buf = ByteBuffer.wrap(batch.toByteArray());
+                while (buf.hasRemaining()) channel.write(buf);
+                channel.force(false);
+                synchronized (lock) {
+                    durableSeq = batchSeq;
+                    syncs++;
+                    batch.reset();
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    // ---- replay ----
+
+    /**
+     * Applies the journal to the services (call after loading the snapshot and before attaching a
+     * journal). Returns the number of records applied. A torn or corrupt tail is cut off.
+     */
+    public static long replay(Path file, StudentService ss, CourseService cs, EnrollmentService es) throws IOException {
+        if (!Files.exists(file)) return 0;
+        ByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("journal too large to replay: " + size);
+            buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining() && ch.read(buf) >= 0) { }
+            buf.flip();
+        }
+        long applied = 0;
+        int validEnd = 0;
+        Grade[] grades = Grade.values();
+        CRC32 crc = new CRC32();
+        while (buf.remaining() >= 4) {
+            int start = buf.position();
+            int len = buf.getInt();
+            if (len <= 0 || len + 4 > buf.remaining()) break;
+            crc.reset();
+            crc.update(buf.array(), buf.position(), len);
+            if ((int) crc.getValue() != buf.getInt(buf.position() + len)) break;
+            ByteBuffer rec = buf.slice().limit(len);
+            buf.position(buf.position() + len + 4);
+            try {
+                apply(rec, ss, cs, es, grades);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                buf.position(start);
+                break;
+            }
+            applied++;
+            validEnd = buf.position();
+        }
+        if (validEnd < buf.limit()) {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(validEnd);
+                ch.force(true);
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(ByteBuffer r, StudentService ss, CourseService cs, EnrollmentService es, Grade[] grades)
+            throws IOException {
+        byte type = r.get();
+        switch (type) {
+            case STUDENT_ADDED -> {
+                int id = r.getInt();
+                String regNo = readString(r);
+                String name = readString(r);
+                String email = readString(r);
+                boolean active = r.get() != 0;
+                long day = r.getLong();
+                Student s = new Student(id, regNo, name, email, day == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(day));
+                if (!active) s.deactivate();
+                ss.addStudent(s);
+            }
+            case STUDENT_CHANGED -> {
+                Optional<Student> os = ss.findByRegNo(readString(r));
+                String property = readString(r);
+                Object value = readValue(r);
+                os.ifPresent(s -> {
+                    switch (property) {
+                        case "fullName" -> s.setFullName((String) value);
+                        case "email" -> s.setEmail((String) value);
+                        case "active" -> { if (!(Boolean) value) s.deactivate(); }
+                        default -> { }
+                    }
+                });
+            }
+            case COURSE_ADDED -> {
+                Course c = new Course(readString(r), readString(r), r.getInt(), readString(r), readString(r), readString(r));
+                if (r.get() == 0) c.deactivate();
+                c.setCapacity(r.getInt());
+                cs.addCourse(c);
+            }
+            case COURSE_CHANGED -> {
+                Optional<Course> oc = cs.findByCode(readString(r));
+                String property = readString(r);
+                Object value = readValue(r);
+                oc.ifPresent(c -> {
+                    switch (property) {
+                        case "title" -> c.setTitle((String) value);
+                        case "credits" -> c.setCredits((Integer) value);
+                        case "instructor" -> c.setInstructor((String) value);
+                        case "semester" -> c.setSemester((String) value);
+                        case "department" -> c.setDepartment((String) value);
+                        case "capacity" -> c.setCapacity((Integer) value);
+                        case "active" -> { if (!(Boolean) value) c.deactivate(); }
+                        default -> { }
+                    }
+                });
+            }
+            case ENROLLED -> {
+                String regNo = readString(r);
+                String code = readString(r);
+                byte g = r.get();
+                ss.findByRegNo(regNo).ifPresent(s ->
+                        es.restoreEnrollments(s, List.of(new Enrollment(s.getRegNo(), code, g < 0 ? null : grades[g]))));
+            }
+            case DROPPED -> es.restoreDrop(readString(r), readString(r));
+            case GRADED -> {
+                String regNo = readString(r);
+                String code = readString(r);
+                byte g = r.get();
+                es.assignGrade(regNo, code, g < 0 ? null : grades[g]);
+            }
+            case WAITLISTED -> {
+                String regNo = readString(r);
+                es.restoreWaitlist(readString(r), List.of(regNo));
+            }
+            case LEFT_WAITLIST -> es.restoreLeaveWaitlist(readString(r), readString(r));
+            case TERM_CLOSED -> es.restoreTermClosed(readString(r), readString(r));
+            default -> throw new IllegalArgumentException("unknown journal record type " + type);
+        }
+    }
+
+    // ---- encoding helpers ----
+
+    private static void writeInt(ByteArrayOutputStream out, int v) {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static void writeValue(DataOutputStream out, Object v) throws IOException {
+        if (v == null) {
+            out.writeByte(VALUE_NULL);
+        } else if (v instanceof Integer) {
+            out.writeByte(VALUE_INT);
+            out.writeInt((Integer) v);
+        } else if (v instanceof Boolean) {
+            out.writeByte(VALUE_BOOLEAN);
+            out.writeBoolean((Boolean) v);
+        } else {
+            out.writeByte(VALUE_STRING);
+            writeString(out, v.toString());
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int len = in.getInt();
+        if (len < 0) return null;
+        byte[] b = new byte[len];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte tag = in.get();
+        return switch (tag) {
+            case VALUE_NULL -> null;
+            case VALUE_INT -> in.getInt();
+            case VALUE_BOOLEAN -> in.get() != 0;
+            case VALUE_STRING -> readString(in);
+            default -> throw new IllegalArgumentException("unknown value tag " + tag);
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package edu.ccrm.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// result of a streaming CSV load: counts plus the first few rejected rows with their reasons
+public class LoadReport {
+    private static final int MAX_SAMPLES = 100; // keep memory bounded on badly broken files
+
+    private final String source;
+    private long loaded;
+    private long rejected;
+    private final List<String> rejectedSamples = new ArrayList<>();
+
+    public LoadReport(String source) { this.source = source; }
+
+    void accept() { loaded++; }
+
+    void reject(long lineNo, String reason) {
+        rejected++;
+        if (rejectedSamples.size() < MAX_SAMPLES) rejectedSamples.add("line " + lineNo + ": " + reason);
+    }
+
+    public String getSource() { return source; }
+    public long getLoaded() { return loaded; }
+    public long getRejected() { return rejected; }
+    public List<String> getRejectedSamples() { return Collections.unmodifiableList(rejectedSamples); }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d loaded, %d rejected", source, loaded, rejected);
+    }
+}
@@ -0,0 +1,228 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Bulk loader for large students.csv / courses.csv files. The file is memory-mapped in
+ * line-aligned chunks (a newline only ends a record if it is not backslash-escaped), the chunks
+ * are decoded and parsed on a fork-join pool, and the parsed rows are merged into the services in
+ * file order, so the result is the same as {@link FileUtil#loadStudents} whatever the parallelism.
+ */
+public final class ParallelCsvImporter {
+    private static final long DEFAULT_CHUNK_BYTES = 16L * 1024 * 1024;
+    private static final int ENROLLMENT_BATCH = 10_000;
+
+    private final int parallelism;
+    private final long chunkBytes;
+
+    public ParallelCsvImporter(int parallelism) {
+        this(parallelism, DEFAULT_CHUNK_BYTES);
+    }
+
+    public ParallelCsvImporter(int parallelism, long chunkBytes) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1");
+        if (chunkBytes < 1 || chunkBytes > Integer.MAX_VALUE) throw new IllegalArgumentException("bad chunk size " + chunkBytes);
+        this.parallelism = parallelism;
+        this.chunkBytes = chunkBytes;
+    }
+
+    public LoadReport loadCourses(Path file, CourseService cs) throws IOException {
+        LoadReport report = new LoadReport(file.toString());
+        run(file, "code", report, (r, chunk) -> chunk.add(FileUtil.parseCourse(r)), (row, lineNo) -> {
+            Course c = (Course) row;
+            if (cs.addCourse(c)) report.accept();
+            else report.reject(lineNo, "duplicate course code " + c.getCode());
+        });
+        return report;
+    }
+
+    /** Loads students keeping their ids; enrolledCourses are replayed through es when it is non-null. */
+    public LoadReport loadStudents(Path file, StudentService ss, EnrollmentService es) throws IOException {
+        LoadReport report = new LoadReport(file.toString());
+        List<EnrollmentRequest> pending = new ArrayList<>();
+        List<Long> pendingLines = new ArrayList<>();
+        run(file, "id", report, (r, chunk) -> {
+            List<String> codes = es == null ? null : new ArrayList<>();
+            chunk.add(new StudentRow(FileUtil.parseStudent(r, codes), codes));
+        }, (row, lineNo) -> {
+            StudentRow sr = (StudentRow) row;
+            if (!ss.addStudent(sr.student)) {
+                report.reject(lineNo, "duplicate regNo " + sr.student.getRegNo());
+                return;
+            }
+            report.accept();
+            if (sr.codes == null) return;
+            for (String code : sr.codes) {
+                pending.add(new EnrollmentRequest(sr.student.getRegNo(), code));
+                pendingLines.add(lineNo);
+            }
+            if (pending.size() >= ENROLLMENT_BATCH) FileUtil.flushEnrollments(es, pending, pendingLines, report);
+        });
+        if (!pending.isEmpty()) FileUtil.flushEnrollments(es, pending, pendingLines, report);
+        return report;
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        void parse(CsvReader r, Chunk chunk);
+    }
+
+    @FunctionalInterface
+    private interface RowSink {
+        void accept(Object row, long lineNo);
+    }
+
+    private static final class StudentRow {
+        final Student student;
+        final List<String> codes;
+
+        StudentRow(Student student, List<String> codes) {
+            this.student = student;
+            this.codes = codes;
+        }
+    }
+
+    // parse output of one chunk: rows with their chunk-local line numbers, plus rejects
+    private static final class Chunk {
+        final List<Object> rows = new ArrayList<>();
+        final List<Long> rowLines = new ArrayList<>();
+        final List<Long> rejectLines = new ArrayList<>();
+        final List<String> rejectReasons = new ArrayList<>();
+        long lines;
+        long current;
+
+        void add(Object row) {
+            rows.add(row);
+            rowLines.add(current);
+        }
+    }
+
+    private void run(Path file, String headerColumn, LoadReport report, RowParser parser, RowSink sink) throws IOException {
+        if (!Files.exists(file)) return;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> chunks = split(ch);
+            Deque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+            int next = 0;
+            long lineBase = 0;
+            // keep a bounded window of chunks in flight and merge them strictly in file order
+            while (next < chunks.size() || !inFlight.isEmpty()) {
+                while (next < chunks.size() && inFlight.size() < parallelism * 2) {
+                    long[] range = chunks.get(next);
+                    boolean first = next == 0;
+                    inFlight.addLast(pool.submit(() -> parseChunk(ch, range[0], range[1], first, headerColumn, parser)));
+                    next++;
+                }
+                Chunk c = inFlight.removeFirst().get();
+                for (int i = 0; i < c.rejectLines.size(); i++) {
+                    report.reject(lineBase + c.rejectLines.get(i), c.rejectReasons.get(i));
+                }
+                for (int i = 0; i < c.rows.size(); i++) {
+                    sink.accept(c.rows.get(i), lineBase + c.rowLines.get(i));
+                }
+                // every chunk but the last ends just after a line break
+                lineBase += c.lines;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("import interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+            throw new IOException("import failed", cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Chunk parseChunk(FileChannel ch, long start, long end, boolean first, String headerColumn, RowParser parser) {
+        Chunk out = new Chunk();
+        try {
+            MappedByteBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            CharBuffer chars = StandardCharsets.UTF_8.decode(mapped);
+            CsvReader r = new CsvReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+            while (r.next()) {
+                out.current = r.lineNumber();
+                if (r.isBlankLine()) continue;
+                if (first && r.recordNumber() == 1 && r.fieldCount() > 1 && r.fieldEquals(0, headerColumn)) continue;
+                try {
+                    parser.parse(r, out);
+                } catch (RuntimeException ex) {
+                    out.rejectLines.add(out.current);
+                    out.rejectReasons.add(FileUtil.describe(ex));
+                }
+            }
+            out.lines = r.linesRead();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    // cuts the file into [start, end) ranges that each end just after an unescaped newline
+    private List<long[]> split(FileChannel ch) throws IOException {
+        long size = ch.size();
+        long target = Math.max(64 * 1024, Math.min(chunkBytes, size / (parallelism * 4L) + 1));
+        List<long[]> out = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = start + target >= size ? size : recordBoundaryAfter(ch, start + target, size);
+            out.add(new long[]{start, end});
+            start = end;
+        }
+        return out;
+    }
+
+    private static long recordBoundaryAfter(FileChannel ch, long from, long size) throws IOException {
+        // a run of backslashes right before 'from' carries into the scan (odd run = next byte escaped)
+        int run = 0;
+        ByteBuffer one = ByteBuffer.allocate(1);
+        for (long p = from - 1; p >= 0; p--) {
+            one.clear();
+            ch.read(one, p);
+            if (one.get(0) != '\\') break;
+            run++;
+        }
+        ByteBuffer block = ByteBuffer.allocate(8192);
+        long pos = from;
+        while (pos < size) {
+            block.clear();
+            int n = ch.read(block, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                byte b = block.get(i);
+                if (b == '\\') {
+                    run++;
+                    continue;
+                }
+                if (b == '\n' && (run & 1) == 0) return pos + i + 1;
+                run = 0;
+            }
+            pos += n;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,287 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.CourseCodes;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Versioned binary snapshot of the whole in-memory state: course catalog, students (with the id
+ * counter), the current term's enrollments with grades and course waitlists. Closed terms are not
+ * included; they live in their own segment files (see EnrollmentService#openTermArchive).
+ *
+ * Layout: magic, version, then a body of sections and a trailing CRC32 of the body. Course codes
+ * are interned into a string table and referenced by int id; each student record carries its own
+ * enrollments, and waitlists refer to students by their position in the student section. Course
+ * and student records are length-prefixed so a newer reader can skip fields it does not know.
+ * The CSV exports remain the interchange format.
+ */
+public final class SnapshotIO {
+    private static final int MAGIC = 0x4343524D; // "CCRM"
+    private static final short VERSION = 2; // 2 added the current term; version 1 files still load
+    private static final int HEADER_BYTES = 6;
+    private static final int TRAILER_BYTES = 8;
+
+    private SnapshotIO() {}
+
+    public static Path defaultFile() { return FileUtil.dataFile("snapshot.bin"); }
+
+    /** Writes the snapshot to a temp file and renames it over the target when complete. */
+    public static void save(Path file, StudentService ss, CourseService cs, EnrollmentService es) throws IOException {
+        List<Course> courses = cs.listAll();
+        List<Student> students = ss.listAll();
+
+        // one pass takes each student's rows and course ids; codes are interned from these copies, so
+        // a course or enrollment added while the file is written cannot reference an unknown code
+        Enrollment[][] rowsOf = new Enrollment[students.size()][];
+        int[][] idsOf = new int[students.size()][];
+        CodeTable codes = new CodeTable();
+        for (Course c : courses) codes.intern(CourseCodes.idOf(c.getCode()));
+        Map<String, Integer> studentIdx = new HashMap<>(students.size() * 2);
+        for (int i = 0; i < students.size(); i++) {
+            Student s = students.get(i);
+            studentIdx.put(s.getRegNo(), i);
+            rowsOf[i] = es.enrollmentsOf(s.getRegNo());
+            idsOf[i] = s.getEnrolledCourseIds();
+            for (Enrollment e : rowsOf[i]) codes.intern(e.getCourseId());
+            for (int id : idsOf[i]) codes.intern(id);
+        }
+
+        FileUtil.writeDataAtomically(file, raw -> {
+            raw.writeInt(MAGIC);
+            raw.writeShort(VERSION);
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(raw, crc));
+            RecordBuffer rec = new RecordBuffer();
+
+            out.writeInt(ss.getNextId());
+            writeString(out, es.getCurrentTerm());
+            out.writeInt(codes.size);
+            for (int i = 0; i < codes.size; i++) writeString(out, CourseCodes.codeOf(codes.globalIds[i]));
+
+            out.writeInt(courses.size());
+            for (Course c : courses) {
+                DataOutputStream r = rec.begin();
+                r.writeInt(codes.localId(CourseCodes.idOf(c.getCode())));
+                writeString(r, c.getTitle());
+                r.writeInt(c.getCredits());
+                writeString(r, c.getInstructor());
+                writeString(r, c.getSemester());
+                writeString(r, c.getDepartment());
+                r.writeBoolean(c.isActive());
+                r.writeInt(c.getCapacity());
+                rec.writeTo(out);
+            }
+
+            out.writeInt(students.size());
+            for (int i = 0; i < students.size(); i++) {
+                Student s = students.get(i);
+                DataOutputStream r = rec.begin();
+                r.writeInt(s.getId());
+                writeString(r, s.getRegNo());
+                writeString(r, s.getFullName());
+                writeString(r, s.getEmail());
+                r.writeBoolean(s.isActive());
+                r.writeLong(s.getEnrollmentDate() == null ? Long.MIN_VALUE : s.getEnrollmentDate().toEpochDay());
+                // enrollments are stored with their student so loading needs no regrouping
+                Enrollment[] rows = rowsOf[i];
+                r.writeInt(rows.length);
+                for (Enrollment e : rows) {
+                    r.writeInt(codes.localId(e.getCourseId()));
+                    r.writeByte(e.getGrade() == null ? -1 : e.getGrade().ordinal());
+                }
+                // course codes kept on the Student without an enrollment row (e.g. from a CSV import)
+                int[] ids = idsOf[i];
+                int extra = 0;
+                for (int k = 0; k < ids.length; k++) if (!hasRow(rows, ids[k])) ids[extra++] = ids[k];
+                r.writeInt(extra);
+                for (int k = 0; k < extra; k++) r.writeInt(codes.localId(ids[k]));
+                rec.writeTo(out);
+            }
+
+            List<Course> withWaitlist = new ArrayList<>();
+            for (Course c : courses) if (!es.waitlistFor(c.getCode()).isEmpty()) withWaitlist.add(c);
+            out.writeInt(withWaitlist.size());
+            for (Course c : withWaitlist) {
+                List<String> waiting = es.waitlistFor(c.getCode());
+                out.writeInt(codes.localId(CourseCodes.idOf(c.getCode())));
+                out.writeInt(waiting.size());
+                for (String regNo : waiting) out.writeInt(studentIdx.getOrDefault(regNo, -1));
+            }
+
+            out.flush();
+            raw.writeLong(crc.getValue());
+        });
+    }
+
+    /**
+     * Loads a snapshot into empty services. The checksum is verified before anything is applied,
+     * so a corrupt or truncated file leaves the services untouched. So does a snapshot whose current
+     * term is already in the open term archive (IllegalArgumentException).
+     */
+    public static void load(Path file, StudentService ss, CourseService cs, EnrollmentService es) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES || size > Integer.MAX_VALUE) throw new IOException("bad snapshot size " + size);
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (buf.getInt(0) != MAGIC) throw new IOException("not a CCRM snapshot: " + file);
+        short version = buf.getShort(4);
+        if (version != VERSION && version != 1) throw new IOException("unsupported snapshot version " + version);
+        int bodyEnd = buf.limit() - TRAILER_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(buf.duplicate().position(HEADER_BYTES).limit(bodyEnd));
+        if (crc.getValue() != buf.getLong(bodyEnd)) throw new IOException("snapshot checksum mismatch: " + file);
+
+        ByteBuffer in = buf.duplicate().position(HEADER_BYTES).limit(bodyEnd);
+        int nextId = in.getInt();
+        if (version >= 2) es.restoreCurrentTerm(readString(in));
+        String[] codes = new String[in.getInt()];
+        for (int i = 0; i < codes.length; i++) codes[i] = readString(in);
+
+        int courseCount = in.getInt();
+        for (int i = 0; i < courseCount; i++) {
+            int end = recordEnd(in);
+            Course c = new Course(codes[in.getInt()], readString(in), in.getInt(), readString(in), readString(in),
+                    readString(in));
+            if (in.get() == 0) c.deactivate();
+            c.setCapacity(in.getInt());
+            in.position(end);
+            cs.addCourse(c);
+        }
+
+        Grade[] grades = Grade.values();
+        Student[] students = new Student[in.getInt()];
+        List<Enrollment> rows = new ArrayList<>();
+        List<String> extra = new ArrayList<>();
+        for (int i = 0; i < students.length; i++) {
+            int end = recordEnd(in);
+            int id = in.getInt();
+            String regNo = readString(in);
+            String name = readString(in);
+            String email = readString(in);
+            boolean active = in.get() != 0;
+            long day = in.getLong();
+            Student s = new Student(id, regNo, name, email, day == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(day));
+            if (!active) s.deactivate();
+            rows.clear();
+            int n = in.getInt();
+            for (int k = 0; k < n; k++) {
+                String code = codes[in.getInt()];
+                byte g = in.get();
+                rows.add(new Enrollment(regNo, code, g < 0 ? null : grades[g]));
+            }
+            extra.clear();
+            n = in.getInt();
+            for (int k = 0; k < n; k++) extra.add(codes[in.getInt()]);
+            in.position(end);
+            s.enrollCourses(extra);
+            ss.addStudent(s);
+            es.restoreEnrollments(s, rows);
+            students[i] = s;
+        }
+        ss.restoreNextId(nextId);
+
+        int waitlists = in.getInt();
+        List<String> waiting = new ArrayList<>();
+        for (int i = 0; i < waitlists; i++) {
+            String code = codes[in.getInt()];
+            int n = in.getInt();
+            waiting.clear();
+            for (int k = 0; k < n; k++) {
+                int si = in.getInt();
+                if (si >= 0) waiting.add(students[si].getRegNo());
+            }
+            es.restoreWaitlist(code, waiting);
+        }
+    }
+
+    private static boolean hasRow(Enrollment[] rows, int courseId) {
+        for (Enrollment e : rows) if (e.getCourseId() == courseId) return true;
+        return false;
+    }
+
+    // reads a record's length prefix and returns the position just past the record
+    private static int recordEnd(ByteBuffer in) {
+        int len = in.getInt();
+        return in.position() + len;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int len = in.getInt();
+        if (len < 0) return null;
+        String s;
+        if (in.hasArray()) {
+            s = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+        } else {
+            byte[] b = new byte[len];
+            in.get(in.position(), b);
+            s = new String(b, StandardCharsets.UTF_8);
+        }
+        in.position(in.position() + len);
+        return s;
+    }
+
+    // the codes this snapshot references, numbered in first-seen order and keyed by CourseCodes id
+    private static final class CodeTable {
+        private int[] localIds = new int[0];
+        private int[] globalIds = new int[64];
+        private int size;
+
+        void intern(int globalId) {
+            if (globalId >= localIds.length) {
+                int from = localIds.length;
+                localIds = Arrays.copyOf(localIds, Math.max(CourseCodes.size(), globalId + 1));
+                Arrays.fill(localIds, from, localIds.length, -1);
+            }
+            if (localIds[globalId] >= 0) return;
+            if (size == globalIds.length) globalIds = Arrays.copyOf(globalIds, size * 2);
+            globalIds[size] = globalId;
+            localIds[globalId] = size++;
+        }
+
+        int localId(int globalId) { return localIds[globalId]; }
+    }
+
+    // scratch buffer used to length-prefix records without a second pass
+    private static final class RecordBuffer {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        private final DataOutputStream data = new DataOutputStream(bytes);
+
+        DataOutputStream begin() {
+            bytes.reset();
+            return data;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package edu.ccrm.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide operation metrics: latency timers and event counters, registered once as static
+ * fields of the instrumented classes.
+ *
+ * Metrics are off unless the {@code ccrm.metrics} system property is true when this class is first
+ * used (AppMain sets it for {@code --metrics}). {@link #ENABLED} is a static final, so when it is
+ * false the JIT folds {@link #start}, {@link Timer#stop} and {@link Counter#increment} to nothing:
+ * a disabled probe costs no clock read, no allocation and no shared write, and the histograms are
+ * never allocated.
+ */
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("ccrm.metrics");
+
+    private static final List<Timer> TIMERS = new CopyOnWriteArrayList<>();
+    private static final List<Counter> COUNTERS = new CopyOnWriteArrayList<>();
+
+    private Metrics() {}
+
+    /** Latency of one operation; names are dotted, e.g. "enrollment.enroll". */
+    public static final class Timer {
+        private final String name;
+        private final String help;
+        private final LatencyHistogram histogram;
+
+        private Timer(String name, String help) {
+            this.name = name;
+            this.help = help;
+            this.histogram = ENABLED ? new LatencyHistogram() : null;
+        }
+
+        /** Records the time since {@code startNanos}, which came from {@link Metrics#start}. */
+        public void stop(long startNanos) {
+            if (ENABLED) histogram.record(System.nanoTime() - startNanos);
+        }
+
+        public String getName() { return name; }
+        public LatencyHistogram.Snapshot snapshot() { return histogram.snapshot(); }
+    }
+
+    /** Monotonic event count, optionally one of a family sharing a name and told apart by a label. */
+    public static final class Counter {
+        private final String name;
+        private final String help;
+        private final String label; // "key=value" or null
+        private final LongAdder count = new LongAdder();
+
+        private Counter(String name, String help, String label) {
+            this.name = name;
+            this.help = help;
+            this.label = label;
+        }
+
+        public void increment() {
+            if (ENABLED) count.increment();
+        }
+
+        public String getName() { return name; }
+        public long get() { return count.sum(); }
+    }
+
+    /** Start time for a {@link Timer}; 0 when metrics are off. */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    public static Timer timer(String name, String help) {
+        Timer t = new Timer(name, help);
+        TIMERS.add(t);
+        return t;
+    }
+
+    public static Counter counter(String name, String help) {
+        Counter c = new Counter(name, help, null);
+        COUNTERS.add(c);
+        return c;
+    }
+
+    /** One counter per enum constant, indexed by ordinal and labelled {@code label=<constant>}. */
+    public static <E extends Enum<E>> Counter[] counters(String name, String help, String label, E[] values) {
+        Counter[] cs = new Counter[values.length];
+        for (E v : values) {
+            cs[v.ordinal()] = new Counter(name, help, label + "=" + v.name());
+            COUNTERS.add(cs[v.ordinal()]);
+        }
+        return cs;
+    }
+
+    public static void reset() {
+        if (!ENABLED) return;
+        for (Timer t : TIMERS) t.histogram.reset();
+        for (Counter c : COUNTERS) c.count.reset();
+    }
+
+    /** Human-readable table of every timer that has recorded something, then the non-zero counters. */
+    public static String dumpText() {
+        if (!ENABLED) return "Metrics are disabled (start with --metrics).\n";
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-32s %10s %10s %10s %10s %10s %10s%n", "operation", "count", "mean us", "p50 us", "p99 us",
+                "p99.9 us", "max us"));
+        for (Timer t : TIMERS) {
+            LatencyHistogram.Snapshot s = t.histogram.snapshot();
+            if (s.getCount() == 0) continue;
+            sb.append(String.format("%-32s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", t.name, s.getCount(),
+                    s.getMeanNanos() / 1e3, s.valueAt(0.5) / 1e3, s.valueAt(0.99) / 1e3, s.valueAt(0.999) / 1e3,
+                    s.getMaxNanos() / 1e3));
+        }
+        for (Counter c : COUNTERS) {
+            long n = c.get();
+            if (n == 0) continue;
+            sb.append(String.format("%-32s %10d%n", c.label == null ? c.name : c.name + "{" + c.label + "}", n));
+        }
+        return sb.toString();
+    }
+
+    /** Writes every metric in the Prometheus text exposition format, replacing the file atomically. */
+    public static void writePrometheus(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writePrometheus(w);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static void writePrometheus(Writer w) throws IOException {
+        for (Timer t : TIMERS) {
+            String n = promName(t.name) + "_seconds";
+            w.write("# HELP " + n + " " + t.help + "\n# TYPE " + n + " summary\n");
+            LatencyHistogram.Snapshot s = ENABLED ? t.histogram.snapshot() : null;
+            for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+                w.write(n + "{quantile=\"" + q + "\"} " + seconds(s == null ? 0 : s.valueAt(q)) + "\n");
+            }
+            w.write(n + "_sum " + seconds(s == null ? 0 : s.getSumNanos()) + "\n");
+            w.write(n + "_count " + (s == null ? 0 : s.getCount()) + "\n");
+        }
+        String family = null;
+        for (Counter c : COUNTERS) {
+            String n = promName(c.name) + "_total";
+            if (!n.equals(family)) {
+                w.write("# HELP " + n + " " + c.help + "\n# TYPE " + n + " counter\n");
+                family = n;
+            }
+            String labels = "";
+            if (c.label != null) {
+                int eq = c.label.indexOf('=');
+                labels = "{" + c.label.substring(0, eq) + "=\"" + c.label.substring(eq + 1) + "\"}";
+            }
+            w.write(n + labels + " " + c.get() + "\n");
+        }
+    }
+
+    private static String promName(String dotted) {
+        return "ccrm_" + dotted.replace('.', '_');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
@@ -0,0 +1,46 @@
+package edu.ccrm.service;
+
+import java.util.*;
+
+// per-record outcome of EnrollmentService.enrollAll, in the same order as the input records
+public final class BatchEnrollmentReport {
+    private final List<EnrollmentRequest> requests;
+    private final EnrollmentResult[] results;
+
+    BatchEnrollmentReport(List<EnrollmentRequest> requests, EnrollmentResult[] results) {
+        this.requests = requests;
+        this.results = results;
+    }
+
+    public int size() { return results.length; }
+    public EnrollmentRequest request(int i) { return requests.get(i); }
+    public EnrollmentResult result(int i) { return results[i]; }
+
+    public int succeeded() { return count(EnrollmentResult.ENROLLED); }
+    public int failed() { return results.length - succeeded(); }
+
+    public int count(EnrollmentResult r) {
+        int n = 0;
+        for (EnrollmentResult x : results) if (x == r) n++;
+        return n;
+    }
+
+    /** Rejection counts by reason (successful records are not included). */
+    public Map<EnrollmentResult, Integer> failureCounts() {
+        Map<EnrollmentResult, Integer> m = new EnumMap<>(EnrollmentResult.class);
+        for (EnrollmentResult x : results) if (x != EnrollmentResult.ENROLLED) m.merge(x, 1, Integer::sum);
+        return m;
+    }
+
+    /** Indices of the records that were rejected, in input order. */
+    public List<Integer> failedIndices() {
+        List<Integer> out = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) if (results[i] != EnrollmentResult.ENROLLED) out.add(i);
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d records, %d enrolled, failures %s", results.length, succeeded(), failureCounts());
+    }
+}
@@ -0,0 +1,70 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Grade;
+
+/**
+ * One state change published on a {@link ChangeFeed}. Events are immutable and carry only keys
+ * and values (regNo, course code, grade, changed property), never the live domain objects, so a
+ * subscriber reading them later on its own thread sees the change as it was made.
+ */
+public final class ChangeEvent {
+    public enum Type {
+        STUDENT_CREATED,
+        STUDENT_CHANGED,
+        STUDENT_DEACTIVATED,
+        COURSE_CREATED,
+        COURSE_CHANGED,
+        COURSE_DEACTIVATED,
+        ENROLLED,
+        DROPPED,
+        GRADE_ASSIGNED,
+        WAITLISTED,
+        LEFT_WAITLIST,
+        TERM_CLOSED
+    }
+
+    final long sequence;
+    private final Type type;
+    private final long timestampNanos;
+    private final String regNo;      // null for course events
+    private final String courseCode; // null for student events
+    private final Grade grade;       // new grade for GRADE_ASSIGNED, the grade held for DROPPED
+    private final String property;   // *_CHANGED, and "term" for TERM_CLOSED
+    private final Object oldValue;
+    private final Object newValue;
+
+    ChangeEvent(long sequence, Type type, String regNo, String courseCode, Grade grade, String property,
+                Object oldValue, Object newValue) {
+        this.sequence = sequence;
+        this.type = type;
+        this.timestampNanos = System.nanoTime();
+        this.regNo = regNo;
+        this.courseCode = courseCode;
+        this.grade = grade;
+        this.property = property;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    /** Position in the feed; consecutive events have consecutive sequences. */
+    public long getSequence() { return sequence; }
+    public Type getType() { return type; }
+    /** System.nanoTime() when the change was published, for measuring delivery lag. */
+    public long getTimestampNanos() { return timestampNanos; }
+    public String getRegNo() { return regNo; }
+    public String getCourseCode() { return courseCode; }
+    public Grade getGrade() { return grade; }
+    public String getProperty() { return property; }
+    public Object getOldValue() { return oldValue; }
+    public Object getNewValue() { return newValue; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('#').append(sequence).append(' ').append(type);
+        if (regNo != null) sb.append(' ').append(regNo);
+        if (courseCode != null) sb.append(' ').append(courseCode);
+        if (grade != null) sb.append(' ').append(grade);
+        if (property != null) sb.append(' ').append(property).append(": ").append(oldValue).append(" -> ").append(newValue);
+        return sb.toString();
+    }
+}
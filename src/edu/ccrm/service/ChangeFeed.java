@@ -0,0 +1,312 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process change feed: every mutation made through the services is published as a
+ * {@link ChangeEvent} into a bounded ring buffer, and each subscriber drains it in batches on its
+ * own thread.
+ *
+ * Publishing claims a sequence number and stores the event in its slot: one atomic increment and
+ * one compare-and-set, with no locks and no wake-ups, so a mutation never waits for a subscriber
+ * to run. The store only replaces an older event, so a slow publisher cannot clobber a newer lap.
+ * What happens when a subscriber falls a full ring behind depends on its policy:
+ * <ul>
+ *   <li>{@link OverflowPolicy#DROP} - the subscriber skips to the oldest event still in the ring
+ *   and is told how many it missed through {@link Subscriber#onGap} (it should resync, e.g. from
+ *   listAll). Publishers are never slowed down.</li>
+ *   <li>{@link OverflowPolicy#BLOCK} - publishers wait for the subscriber before overwriting an
+ *   event it has not consumed (backpressure). A BLOCK subscriber must not call back into mutating
+ *   service methods: the waiting publisher may hold the lock it needs.</li>
+ * </ul>
+ * Subscribers see events in sequence order, which for any one student is the order the changes
+ * were applied.
+ */
+public final class ChangeFeed implements MutationListener {
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    /** Receives events on the subscription's own thread. */
+    public interface Subscriber {
+        /** A batch of consecutive events; the list is only valid during the call. */
+        void onBatch(List<ChangeEvent> batch) throws Exception;
+
+        /** Called when {@code missed} events were overwritten before this (DROP) subscriber read them. */
+        default void onGap(long missed) {}
+    }
+
+    private static final long MAX_IDLE_PARK_NANOS = 200_000; // bounds delivery delay once a subscriber has gone idle
+
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+    private final int mask;
+    private final AtomicReferenceArray<ChangeEvent> ring;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile Subscription[] gating = new Subscription[0]; // BLOCK subscribers
+    private final LongAdder publisherStalls = new LongAdder();
+
+    /** Creates a feed with room for {@code capacity} unconsumed events (rounded up to a power of two) and attaches it. */
+    public ChangeFeed(StudentService ss, CourseService cs, EnrollmentService es, int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.studentService = ss;
+        this.courseService = cs;
+        this.enrollmentService = es;
+        this.mask = size - 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        ss.addMutationListener(this);
+        cs.addMutationListener(this);
+        es.addMutationListener(this);
+    }
+
+    /** Detaches from the services and stops every subscription. */
+    public void close() {
+        studentService.removeMutationListener(this);
+        courseService.removeMutationListener(this);
+        enrollmentService.removeMutationListener(this);
+        for (Subscription s : subscriptions) s.close();
+    }
+
+    public int getCapacity() { return mask + 1; }
+    /** Number of events published so far. */
+    public long getPublished() { return nextSequence.get(); }
+    /** Times a publisher had to wait for a BLOCK subscriber. */
+    public long getPublisherStalls() { return publisherStalls.sum(); }
+    public List<Subscription> getSubscriptions() { return Collections.unmodifiableList(subscriptions); }
+
+    /**
+     * Starts delivering events published from now on to {@code subscriber}, up to {@code maxBatch}
+     * per call, on a new daemon thread.
+     */
+    public Subscription subscribe(String name, Subscriber subscriber, OverflowPolicy policy, int maxBatch) {
+        if (maxBatch <= 0) throw new IllegalArgumentException("maxBatch must be positive");
+        Subscription s = new Subscription(name, subscriber, policy, maxBatch);
+        subscriptions.add(s);
+        if (policy == OverflowPolicy.BLOCK) updateGating();
+        s.thread.start();
+        return s;
+    }
+
+    private synchronized void updateGating() {
+        List<Subscription> blocking = new ArrayList<>();
+        for (Subscription s : subscriptions) if (s.policy == OverflowPolicy.BLOCK && s.running) blocking.add(s);
+        gating = blocking.toArray(new Subscription[0]);
+    }
+
+    public final class Subscription {
+        private final String name;
+        private final Subscriber subscriber;
+        private final OverflowPolicy policy;
+        private final int maxBatch;
+        private final Thread thread;
+        private final AtomicLong consumed; // next sequence this subscriber will read
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder missed = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private volatile boolean running = true;
+
+        private Subscription(String name, Subscriber subscriber, OverflowPolicy policy, int maxBatch) {
+            this.name = name;
+            this.subscriber = subscriber;
+            this.policy = policy;
+            this.maxBatch = maxBatch;
+            this.consumed = new AtomicLong(nextSequence.get());
+            this.thread = new Thread(this::run, "feed-" + name);
+            thread.setDaemon(true);
+        }
+
+        public String getName() { return name; }
+        public OverflowPolicy getPolicy() { return policy; }
+        public long getDelivered() { return delivered.sum(); }
+        public long getBatches() { return batches.sum(); }
+        public long getMissed() { return missed.sum(); }
+        /** Batches whose onBatch threw; the events are not redelivered. */
+        public long getFailures() { return failures.sum(); }
+        /** Events published but not yet delivered to this subscriber. */
+        public long getLag() { return Math.max(0, nextSequence.get() - consumed.get()); }
+
+        /** Stops delivery after the batch in progress, waiting for the thread to finish. */
+        public void close() {
+            if (!running) return;
+            running = false;
+            subscriptions.remove(this);
+            if (policy == OverflowPolicy.BLOCK) updateGating();
+            LockSupport.unpark(thread);
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void run() {
+            List<ChangeEvent> batch = new ArrayList<>(Math.min(maxBatch, 4096));
+            long expected = consumed.get();
+            int idle = 0;
+            while (running) {
+                ChangeEvent e = ring.get((int) expected & mask);
+                if (e != null && e.sequence == expected) {
+                    batch.add(e);
+                    expected++;
+                    if (batch.size() < maxBatch) continue;
+                } else if (e != null && e.sequence > expected) {
+                    // overwritten (DROP only): deliver what we have, then skip to the oldest event that can still be read
+                    deliver(batch, expected);
+                    long oldest = nextSequence.get() - (mask + 1);
+                    if (oldest > expected) {
+                        missed.add(oldest - expected);
+                        notifyGap(oldest - expected);
+                        expected = oldest;
+                        consumed.set(expected);
+                    }
+                    continue;
+                }
+                if (!batch.isEmpty()) {
+                    deliver(batch, expected);
+                    idle = 0;
+                    continue;
+                }
+                // nothing published yet (or the publisher of the next slot is mid-write): back off
+                if (++idle < 100) Thread.onSpinWait();
+                else if (idle < 200) Thread.yield();
+                else LockSupport.parkNanos(Math.min(MAX_IDLE_PARK_NANOS, 1000L * (idle - 199)));
+            }
+        }
+
+        private void deliver(List<ChangeEvent> batch, long next) {
+            if (batch.isEmpty()) return;
+            try {
+                subscriber.onBatch(batch);
+            } catch (Exception ex) {
+                failures.increment();
+            }
+            delivered.add(batch.size());
+            batches.increment();
+            batch.clear();
+            consumed.set(next);
+        }
+
+        private void notifyGap(long count) {
+            try {
+                subscriber.onGap(count);
+            } catch (RuntimeException ex) {
+                failures.increment();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s): %d delivered in %d batches, %d missed, %d failed, lag %d", name, policy,
+                    getDelivered(), getBatches(), getMissed(), getFailures(), getLag());
+        }
+    }
+
+    // ---- publishing ----
+
+    private void publish(ChangeEvent.Type type, String regNo, String courseCode, Grade grade, String property,
+                         Object oldValue, Object newValue) {
+        long seq = nextSequence.getAndIncrement();
+        Subscription[] g = gating;
+        if (g.length > 0) awaitCapacity(seq, g);
+        store(new ChangeEvent(seq, type, regNo, courseCode, grade, property, oldValue, newValue));
+    }
+
+    // a publisher that stalled between claiming its sequence and storing the event may find the slot
+    // already holding a later lap's event (DROP only); the newer event is kept and this one is lost,
+    // which readers see as a gap
+    private void store(ChangeEvent e) {
+        int slot = (int) e.sequence & mask;
+        ChangeEvent current = ring.get(slot);
+        while (current == null || current.sequence < e.sequence) {
+            if (ring.compareAndSet(slot, current, e)) return;
+            current = ring.get(slot);
+        }
+    }
+
+    // BLOCK subscribers: the slot's previous event (seq - capacity) must have been consumed
+    private void awaitCapacity(long seq, Subscription[] g) {
+        long wrapPoint = seq - (mask + 1);
+        boolean stalled = false;
+        int spins = 0;
+        for (Subscription s : g) {
+            while (s.running && s.consumed.get() <= wrapPoint) {
+                if (!stalled) {
+                    stalled = true;
+                    publisherStalls.increment();
+                }
+                if (++spins < 100) Thread.onSpinWait();
+                else LockSupport.parkNanos(20_000);
+            }
+        }
+    }
+
+    @Override
+    public void studentAdded(Student s) {
+        publish(ChangeEvent.Type.STUDENT_CREATED, s.getRegNo(), null, null, null, null, null);
+    }
+
+    @Override
+    public void studentChanged(Student s, String property, Object oldValue, Object newValue) {
+        ChangeEvent.Type type = property.equals("active") && Boolean.FALSE.equals(newValue)
+                ? ChangeEvent.Type.STUDENT_DEACTIVATED : ChangeEvent.Type.STUDENT_CHANGED;
+        publish(type, s.getRegNo(), null, null, property, oldValue, newValue);
+    }
+
+    @Override
+    public void courseAdded(Course c) {
+        publish(ChangeEvent.Type.COURSE_CREATED, null, c.getCode(), null, null, null, null);
+    }
+
+    @Override
+    public void courseChanged(Course c, String property, Object oldValue, Object newValue) {
+        ChangeEvent.Type type = property.equals("active") && Boolean.FALSE.equals(newValue)
+                ? ChangeEvent.Type.COURSE_DEACTIVATED : ChangeEvent.Type.COURSE_CHANGED;
+        publish(type, null, c.getCode(), null, property, oldValue, newValue);
+    }
+
+    @Override
+    public void enrolled(Enrollment e) {
+        publish(ChangeEvent.Type.ENROLLED, e.getRegNo(), e.getCourseCode(), e.getGrade(), null, null, null);
+    }
+
+    @Override
+    public void dropped(Enrollment e) {
+        publish(ChangeEvent.Type.DROPPED, e.getRegNo(), e.getCourseCode(), e.getGrade(), null, null, null);
+    }
+
+    @Override
+    public void gradeAssigned(Enrollment e, Grade oldGrade) {
+        publish(ChangeEvent.Type.GRADE_ASSIGNED, e.getRegNo(), e.getCourseCode(), e.getGrade(), null, oldGrade, e.getGrade());
+    }
+
+    @Override
+    public void waitlisted(String regNo, String courseCode) {
+        publish(ChangeEvent.Type.WAITLISTED, regNo, courseCode, null, null, null, null);
+    }
+
+    @Override
+    public void leftWaitlist(String regNo, String courseCode) {
+        publish(ChangeEvent.Type.LEFT_WAITLIST, regNo, courseCode, null, null, null, null);
+    }
+
+    @Override
+    public void termClosed(String closedTerm, String nextTerm) {
+        publish(ChangeEvent.Type.TERM_CLOSED, null, null, null, "term", closedTerm, nextTerm);
+    }
+}
@@ -1,33 +1,148 @@
 package edu.ccrm.service;
 
+import edu.ccrm.domain.ChangeListener;
 import edu.ccrm.domain.Course;
+import edu.ccrm.metrics.Metrics;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class CourseService {
-    private final List<Course> courses = new ArrayList<>();
+    private static final Metrics.Timer ADD_TIME = Metrics.timer("course.add", "addCourse latency");
+    private static final Metrics.Timer FIND_TIME = Metrics.timer("course.find_by_code", "findByCode latency");
+    private static final Metrics.Timer LOOKUP_TIME = Metrics.timer("course.find_by_attribute", "findByInstructor/Department/Semester latency");
+    private static final Metrics.Timer LIST_TIME = Metrics.timer("course.list", "listAll and pageByCode latency");
+    private static final String BY_CODE = "courses by code"; // cursor ordering
 
-    public void addCourse(Course c) { courses.add(c); }
-    public List<Course> listAll() { return new ArrayList<>(courses); }
+    // primary key: upper-cased course code; all indexes are concurrent so lookups never block
+    private final Map<String, Course> byCode = new ConcurrentHashMap<>();
+    // courses are never removed, so an append-only queue keeps listAll in insertion order
+    private final Queue<Course> inOrder = new ConcurrentLinkedQueue<>();
+    // the same courses ordered by code key, for pagination
+    private final NavigableMap<String, Course> sortedByCode = new ConcurrentSkipListMap<>();
+    // secondary indexes, keyed case-insensitively like the old equalsIgnoreCase scans
+    private final Map<String, Set<Course>> byInstructor = new ConcurrentHashMap<>();
+    private final Map<String, Set<Course>> byDepartment = new ConcurrentHashMap<>();
+    private final Map<String, Set<Course>> bySemester = new ConcurrentHashMap<>();
 
-    public Optional<Course> findByCode(String code) {
-        return courses.stream()
-                .filter(c -> c.getCode().equalsIgnoreCase(code))
-                .findFirst();
+    private final ChangeListener<Course> reindexer = this::onCourseChanged;
+    private final List<ChangeListener<Course>> courseListeners = new CopyOnWriteArrayList<>();
+
+    private final List<MutationListener> mutationListeners = new CopyOnWriteArrayList<>();
+
+    /** Registers a listener that is notified of changes to every course in the catalog, present and future. */
+    public void addCourseListener(ChangeListener<Course> l) { courseListeners.add(l); }
+
+    public void addMutationListener(MutationListener l) { mutationListeners.add(l); }
+    public void removeMutationListener(MutationListener l) { mutationListeners.remove(l); }
+
+    /** Adds a course; returns false if a course with the same code (ignoring case) already exists. */
+    public boolean addCourse(Course c) {
+        long t0 = Metrics.start();
+        try {
+            if (byCode.putIfAbsent(codeKey(c.getCode()), c) != null) return false;
+            inOrder.add(c);
+            sortedByCode.put(codeKey(c.getCode()), c);
+            addTo(byInstructor, c.getInstructor(), c);
+            addTo(byDepartment, c.getDepartment(), c);
+            addTo(bySemester, c.getSemester(), c);
+            c.addChangeListener(reindexer);
+            for (MutationListener l : mutationListeners) l.courseAdded(c);
+            return true;
+        } finally {
+            ADD_TIME.stop(t0);
+        }
     }
 
-    public List<Course> findByInstructor(String instructor) {
-        return courses.stream()
-                .filter(c -> c.getInstructor().equalsIgnoreCase(instructor))
-                .collect(Collectors.toList());
+    public List<Course> listAll() {
+        long t0 = Metrics.start();
+        List<Course> all = new ArrayList<>(inOrder);
+        LIST_TIME.stop(t0);
+        return all;
+    }
+
+    /** Up to {@code limit} courses in case-insensitive code order after the cursor (null for the first page). */
+    public Page<Course> pageByCode(Page.Cursor after, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be positive");
+        String from = after == null ? null : (String) after.after(BY_CODE);
+        long t0 = Metrics.start();
+        Map<String, Course> rest = from == null ? sortedByCode : sortedByCode.tailMap(from, false);
+        List<Course> items = new ArrayList<>(Math.min(limit, 1024));
+        String last = null;
+        Page.Cursor next = null;
+        for (Map.Entry<String, Course> e : rest.entrySet()) {
+            if (items.size() == limit) {
+                next = new Page.Cursor(BY_CODE, last);
+                break;
+            }
+            items.add(e.getValue());
+            last = e.getKey();
+        }
+        LIST_TIME.stop(t0);
+        return new Page<>(items, next);
+    }
+
+    public int size() { return byCode.size(); }
+
+    public Optional<Course> findByCode(String code) {
+        if (code == null) return Optional.empty();
+        long t0 = Metrics.start();
+        Course c = byCode.get(codeKey(code));
+        FIND_TIME.stop(t0);
+        return Optional.ofNullable(c);
     }
 
+    public List<Course> findByInstructor(String instructor) { return lookup(byInstructor, instructor); }
+    public List<Course> findByDepartment(String department) { return lookup(byDepartment, department); }
+    public List<Course> findBySemester(String semester) { return lookup(bySemester, semester); }
+
     public boolean deactivateCourse(String code) {
         Optional<Course> oc = findByCode(code);
         oc.ifPresent(Course::deactivate);
         return oc.isPresent();
     }
+
+    // keeps secondary indexes in sync when a course is edited through its setters
+    private void onCourseChanged(Course c, String property, Object oldValue, Object newValue) {
+        switch (property) {
+            case "instructor" -> move(byInstructor, (String) oldValue, (String) newValue, c);
+            case "department" -> move(byDepartment, (String) oldValue, (String) newValue, c);
+            case "semester" -> move(bySemester, (String) oldValue, (String) newValue, c);
+            default -> { } // title/credits/active are not indexed
+        }
+        for (ChangeListener<Course> l : courseListeners) l.propertyChanged(c, property, oldValue, newValue);
+        for (MutationListener l : mutationListeners) l.courseChanged(c, property, oldValue, newValue);
+    }
+
+    static String codeKey(String code) { return code.toUpperCase(Locale.ROOT); }
+
+    private static String attrKey(String value) { return value == null ? "" : value.toLowerCase(Locale.ROOT); }
+
+    // bucket mutations run inside compute so emptying a bucket cannot race with an insert into it
+    private static void addTo(Map<String, Set<Course>> index, String value, Course c) {
+        index.compute(attrKey(value), (k, bucket) -> {
+            if (bucket == null) bucket = ConcurrentHashMap.newKeySet();
+            bucket.add(c);
+            return bucket;
+        });
+    }
+
+    private static void move(Map<String, Set<Course>> index, String oldValue, String newValue, Course c) {
+        index.computeIfPresent(attrKey(oldValue), (k, bucket) -> {
+            bucket.remove(c);
+            return bucket.isEmpty() ? null : bucket;
+        });
+        addTo(index, newValue, c);
+    }
+
+    private static List<Course> lookup(Map<String, Set<Course>> index, String value) {
+        long t0 = Metrics.start();
+        Set<Course> bucket = index.get(attrKey(value));
+        List<Course> found = bucket == null ? new ArrayList<>() : new ArrayList<>(bucket);
+        LOOKUP_TIME.stop(t0);
+        return found;
+    }
 }
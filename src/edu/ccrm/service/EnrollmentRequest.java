@@ -0,0 +1,29 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Grade;
+
+// one record of a bulk enrollment feed; grade is optional (null = not yet graded)
+public final class EnrollmentRequest {
+    private final String regNo;
+    private final String courseCode;
+    private final Grade grade;
+
+    public EnrollmentRequest(String regNo, String courseCode) {
+        this(regNo, courseCode, null);
+    }
+
+    public EnrollmentRequest(String regNo, String courseCode, Grade grade) {
+        this.regNo = regNo;
+        this.courseCode = courseCode;
+        this.grade = grade;
+    }
+
+    public String getRegNo() { return regNo; }
+    public String getCourseCode() { return courseCode; }
+    public Grade getGrade() { return grade; }
+
+    @Override
+    public String toString() {
+        return String.format("%s,%s,%s", regNo, courseCode, grade == null ? "" : grade.name());
+    }
+}
@@ -0,0 +1,15 @@
+package edu.ccrm.service;
+
+// outcome of an enrollment attempt; everything except ENROLLED and WAITLISTED is a rejection reason
+public enum EnrollmentResult {
+    ENROLLED,
+    WAITLISTED,
+    STUDENT_NOT_FOUND,
+    COURSE_NOT_FOUND,
+    ALREADY_ENROLLED,
+    ALREADY_WAITLISTED,
+    CREDIT_LIMIT,
+    COURSE_FULL;
+
+    public boolean isSuccess() { return this == ENROLLED || this == WAITLISTED; }
+}
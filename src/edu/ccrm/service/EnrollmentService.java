@@ -1,87 +1,692 @@
 package edu.ccrm.service;
 
 import edu.ccrm.domain.Course;
+import edu.ccrm.domain.CourseCodes;
 import edu.ccrm.domain.Enrollment;
 import edu.ccrm.domain.Grade;
 import edu.ccrm.domain.Student;
+import edu.ccrm.metrics.Metrics;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Enrollments are partitioned by term. The current term lives in the mutable store with running
+ * per-student totals; closing it freezes its rows into a {@link TermSegment} held by the term
+ * archive, which also keeps every student's totals over all closed terms. Credit caps, listings
+ * and mutations therefore only ever see the current term, and cumulative GPA is the sum of two
+ * precomputed totals.
+ */
 public class EnrollmentService {
-    private final List<Enrollment> enrollments = new ArrayList<>();
+    private final EnrollmentStore store = new EnrollmentStore(); // current term only
+    private final Map<String, StudentTotals> totals = new ConcurrentHashMap<>(); // current term only
+    private final TermArchive archive = new TermArchive();
+    private volatile String currentTerm = defaultTerm(); // changed only while holding every student lock
+    private final Map<String, SeatPool> seats = new ConcurrentHashMap<>();
+    // credits per course as the running totals count them; see onCreditsChanged
+    private final Map<String, Integer> chargedCredits = new ConcurrentHashMap<>();
+    private final List<MutationListener> listeners = new CopyOnWriteArrayList<>();
     private static final int MAX_CREDITS = 24;
 
+    private static final Metrics.Timer ENROLL_TIME = Metrics.timer("enrollment.enroll", "tryEnroll latency");
+    private static final Metrics.Timer ENROLL_OR_WAITLIST_TIME = Metrics.timer("enrollment.enroll_or_waitlist", "enrollOrWaitlist latency");
+    private static final Metrics.Timer ENROLL_ALL_TIME = Metrics.timer("enrollment.enroll_all", "bulk enrollAll latency per batch");
+    private static final Metrics.Timer DROP_TIME = Metrics.timer("enrollment.drop", "drop latency");
+    private static final Metrics.Timer GRADE_TIME = Metrics.timer("enrollment.assign_grade", "assignGrade latency");
+    private static final Metrics.Timer GPA_TIME = Metrics.timer("enrollment.calculate_gpa", "calculateGPA latency");
+    private static final Metrics.Timer LIST_TIME = Metrics.timer("enrollment.list", "per-student, per-course and full enrollment listing latency");
+    private static final Metrics.Timer TABLE_TIME = Metrics.timer("enrollment.snapshot_table", "columnar snapshot build latency");
+    // outcome of every enrollment attempt (single and bulk), i.e. the rejection reasons
+    private static final Metrics.Counter[] ENROLL_RESULTS = Metrics.counters("enrollment.results",
+            "enrollment attempts by outcome", "result", EnrollmentResult.values());
+
+    // per-student lock striping: mutations for one student are serialized, different students run in parallel
+    private static final int LOCK_STRIPES = 256; // power of two
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
     private final StudentService studentService;
     private final CourseService courseService;
 
     public EnrollmentService(StudentService ss, CourseService cs) {
         this.studentService = ss;
         this.courseService = cs;
+        for (int i = 0; i < locks.length; i++) locks[i] = new Object();
+        cs.addCourseListener((course, property, oldValue, newValue) -> {
+            if (property.equals("credits")) onCreditsChanged(course);
+            // a larger section frees seats for the waitlist
+            if (property.equals("capacity")) fillFromWaitlist(course, false);
+        });
     }
 
+    public void addMutationListener(MutationListener l) { listeners.add(l); }
+    public void removeMutationListener(MutationListener l) { listeners.remove(l); }
+
     public boolean enroll(String regNo, String courseCode) {
+        return tryEnroll(regNo, courseCode) == EnrollmentResult.ENROLLED;
+    }
+
+    /** Enrolls the student if a seat is free; a full course is rejected with COURSE_FULL. */
+    public EnrollmentResult tryEnroll(String regNo, String courseCode) {
+        long t0 = Metrics.start();
+        EnrollmentResult r = tryEnrollUntimed(regNo, courseCode);
+        ENROLL_TIME.stop(t0);
+        ENROLL_RESULTS[r.ordinal()].increment();
+        return r;
+    }
+
+    private EnrollmentResult tryEnrollUntimed(String regNo, String courseCode) {
         Optional<Student> os = studentService.findByRegNo(regNo);
+        if (os.isEmpty()) return EnrollmentResult.STUDENT_NOT_FOUND;
         Optional<Course> oc = courseService.findByCode(courseCode);
-        if (os.isEmpty() || oc.isEmpty()) return false;
-        Student s = os.get();
+        if (oc.isEmpty()) return EnrollmentResult.COURSE_NOT_FOUND;
+        return enrollResolved(os.get(), oc.get(), null);
+    }
+
+    /** Enrolls the student, or appends them to the course's FIFO waitlist when it is full. */
+    public EnrollmentResult enrollOrWaitlist(String regNo, String courseCode) {
+        long t0 = Metrics.start();
+        EnrollmentResult r = enrollOrWaitlistUntimed(regNo, courseCode);
+        ENROLL_OR_WAITLIST_TIME.stop(t0);
+        ENROLL_RESULTS[r.ordinal()].increment();
+        return r;
+    }
+
+    private EnrollmentResult enrollOrWaitlistUntimed(String regNo, String courseCode) {
+        Optional<Student> os = studentService.findByRegNo(regNo);
+        if (os.isEmpty()) return EnrollmentResult.STUDENT_NOT_FOUND;
+        Optional<Course> oc = courseService.findByCode(courseCode);
+        if (oc.isEmpty()) return EnrollmentResult.COURSE_NOT_FOUND;
+        Course c = oc.get();
+        EnrollmentResult r = enrollResolved(os.get(), c, null);
+        if (r != EnrollmentResult.COURSE_FULL) return r;
+        SeatPool pool = seatPool(c);
+        // waitlist changes are announced under the pool's monitor so listeners see them in queue order
+        synchronized (pool) {
+            // the term closed since the attempt: try again in the new one
+            if (pool.isRetired()) return enrollOrWaitlistUntimed(regNo, courseCode);
+            if (!pool.addToWaitlist(regNo)) return EnrollmentResult.ALREADY_WAITLISTED;
+            for (MutationListener l : listeners) l.waitlisted(regNo, c.getCode());
+        }
+        // a seat may have been released between the failed attempt and joining the queue
+        fillFromWaitlist(c, false);
+        return pool.isWaiting(regNo) ? EnrollmentResult.WAITLISTED : resultAfterPromotion(regNo, c);
+    }
+
+    /**
+     * Drops the student from the course (or its waitlist). A freed seat is handed straight to the
+     * first eligible waitlisted student so walk-in requests cannot jump the queue.
+     */
+    public boolean drop(String regNo, String courseCode) {
+        long t0 = Metrics.start();
+        try {
+            return dropUntimed(regNo, courseCode);
+        } finally {
+            DROP_TIME.stop(t0);
+        }
+    }
+
+    private boolean dropUntimed(String regNo, String courseCode) {
+        Optional<Course> oc = courseService.findByCode(courseCode);
+        if (oc.isEmpty()) return false;
         Course c = oc.get();
-        int currentCredits = studentTotalCredits(regNo);
-        if (currentCredits + c.getCredits() > MAX_CREDITS) {
-            return false;
-        }
-        // prevent duplicate
-        boolean exists = enrollments.stream().anyMatch(e -> e.getRegNo().equals(regNo) && e.getCourseCode().equalsIgnoreCase(courseCode));
-        if (exists) return false;
-        enrollments.add(new Enrollment(regNo, courseCode, null));
-        s.enrollCourse(courseCode);
+        Enrollment removed = removeEnrollment(regNo, c, true);
+        if (removed == null) {
+            SeatPool pool = seatPool(c);
+            synchronized (pool) {
+                if (pool.isRetired() || !pool.removeFromWaitlist(regNo)) return false;
+                for (MutationListener l : listeners) l.leftWaitlist(regNo, c.getCode());
+            }
+            return true;
+        }
+        fillFromWaitlist(c, true);
         return true;
     }
 
     public boolean assignGrade(String regNo, String courseCode, Grade grade) {
-        Optional<Enrollment> oe = enrollments.stream()
-                .filter(e -> e.getRegNo().equals(regNo) && e.getCourseCode().equalsIgnoreCase(courseCode))
-                .findFirst();
-        if (oe.isEmpty()) return false;
-        oe.get().setGrade(grade);
-        return true;
+        long t0 = Metrics.start();
+        try {
+            return assignGradeUntimed(regNo, courseCode, grade);
+        } finally {
+            GRADE_TIME.stop(t0);
+        }
     }
 
-    public int studentTotalCredits(String regNo) {
-        // sum credits for courses the student is enrolled in
-        List<String> codes = enrollments.stream()
-                .filter(e -> e.getRegNo().equals(regNo))
-                .map(Enrollment::getCourseCode)
-                .collect(Collectors.toList());
-        int sum = 0;
-        for (String code : codes) {
-            courseService.findByCode(code).ifPresent(c -> sum += c.getCredits());
+    private boolean assignGradeUntimed(String regNo, String courseCode, Grade grade) {
+        synchronized (lockFor(regNo)) {
+            // looked up under the lock: a term close in between would leave a frozen row behind
+            Enrollment e = store.get(regNo, courseCode);
+            if (e == null) return false;
+            int credits = creditsOf(e);
+            StudentTotals t = totalsFor(regNo);
+            Grade old = e.getGrade();
+            if (old != null) t = t.removeGrade(credits, old.getPoints());
+            e.setGrade(grade);
+            if (grade != null) t = t.addGrade(credits, grade.getPoints());
+            totals.put(regNo, t);
+            for (MutationListener l : listeners) l.gradeAssigned(e, old);
+            return true;
+        }
+    }
+
+    /**
+     * Bulk enrollment for registrar feeds. Records are grouped by student; each group resolves its
+     * student once, takes the student's lock once and checks the credit cap against a running total.
+     * Groups run in parallel. Full courses are reported as COURSE_FULL (no waitlisting), and a grade
+     * on a record is applied right after that record enrolls.
+     */
+    public BatchEnrollmentReport enrollAll(Collection<EnrollmentRequest> requests) {
+        long t0 = Metrics.start();
+        List<EnrollmentRequest> list = requests instanceof List ? (List<EnrollmentRequest>) requests : new ArrayList<>(requests);
+        EnrollmentResult[] results = new EnrollmentResult[list.size()];
+        // resolve every distinct course code once for the whole batch
+        Map<String, Course> courses = new HashMap<>();
+        Course[] resolved = new Course[list.size()];
+        Map<String, List<Integer>> byStudent = new HashMap<>();
+        for (int i = 0; i < list.size(); i++) {
+            EnrollmentRequest req = list.get(i);
+            resolved[i] = courses.computeIfAbsent(req.getCourseCode(), code -> courseService.findByCode(code).orElse(null));
+            byStudent.computeIfAbsent(req.getRegNo(), k -> new ArrayList<>()).add(i);
+        }
+        byStudent.entrySet().parallelStream()
+                .forEach(g -> enrollGroup(g.getKey(), g.getValue(), list, resolved, results));
+        ENROLL_ALL_TIME.stop(t0);
+        if (Metrics.ENABLED) for (EnrollmentResult r : results) ENROLL_RESULTS[r.ordinal()].increment();
+        return new BatchEnrollmentReport(list, results);
+    }
+
+    public BatchEnrollmentReport enrollAll(Stream<EnrollmentRequest> requests) {
+        return enrollAll(requests.collect(Collectors.toList()));
+    }
+
+    private void enrollGroup(String regNo, List<Integer> indices, List<EnrollmentRequest> list, Course[] resolved,
+                             EnrollmentResult[] results) {
+        Optional<Student> os = studentService.findByRegNo(regNo);
+        if (os.isEmpty()) {
+            for (int i : indices) results[i] = EnrollmentResult.STUDENT_NOT_FOUND;
+            return;
+        }
+        Student s = os.get();
+        List<Enrollment> added = new ArrayList<>(indices.size());
+        Set<String> addedCodes = new HashSet<>();
+        synchronized (lockFor(regNo)) {
+            StudentTotals t = totalsFor(regNo);
+            for (int i : indices) {
+                Course c = resolved[i];
+                Grade grade = list.get(i).getGrade();
+                if (c == null) {
+                    results[i] = EnrollmentResult.COURSE_NOT_FOUND;
+                } else if (t.getEnrolledCredits() + creditsOf(c) > MAX_CREDITS) {
+                    results[i] = EnrollmentResult.CREDIT_LIMIT;
+                } else if (addedCodes.contains(CourseService.codeKey(c.getCode())) || store.contains(regNo, c.getCode())) {
+                    results[i] = EnrollmentResult.ALREADY_ENROLLED;
+                } else if (!seatPool(c).tryAcquire(c.getCapacity())) {
+                    results[i] = EnrollmentResult.COURSE_FULL;
+                } else {
+                    added.add(new Enrollment(s.getRegNo(), c.getCode(), grade, currentTerm));
+                    addedCodes.add(CourseService.codeKey(c.getCode()));
+                    t = t.addEnrollment(creditsOf(c));
+                    if (grade != null) t = t.addGrade(creditsOf(c), grade.getPoints());
+                    results[i] = EnrollmentResult.ENROLLED;
+                }
+            }
+            store.addAllForStudent(regNo, added);
+            totals.put(regNo, t);
+            s.enrollCourses(added.stream().map(Enrollment::getCourseCode).collect(Collectors.toList()));
+            for (Enrollment e : added) for (MutationListener l : listeners) l.enrolled(e);
+        }
+    }
+
+    /**
+     * Restores a student's enrollments from trusted persisted state (snapshot or journal replay)
+     * without re-validating credit caps, duplicates or seat limits. Rows must reference catalog
+     * courses; unknown courses are skipped. Rows without a term are filed under the current term.
+     */
+    public void restoreEnrollments(Student s, List<Enrollment> rows) {
+        String regNo = s.getRegNo();
+        List<Enrollment> added = new ArrayList<>(rows.size());
+        List<String> codes = new ArrayList<>(rows.size());
+        synchronized (lockFor(regNo)) {
+            StudentTotals t = totalsFor(regNo);
+            for (Enrollment e : rows) {
+                Course c = courseService.findByCode(e.getCourseCode()).orElse(null);
+                if (c == null || store.contains(regNo, c.getCode())) continue;
+                if (e.getTerm() == null) e = new Enrollment(e.getRegNo(), e.getCourseCode(), e.getGrade(), currentTerm);
+                added.add(e);
+                codes.add(e.getCourseCode());
+                seatPool(c).restoreTaken(1);
+                t = t.addEnrollment(creditsOf(c));
+                if (e.getGrade() != null) t = t.addGrade(creditsOf(c), e.getGrade().getPoints());
+            }
+            store.addAllForStudent(regNo, added);
+            totals.put(regNo, t);
+            s.enrollCourses(codes);
+        }
+    }
+
+    /** Appends students to a course's waitlist in the given order (used when restoring state). */
+    public void restoreWaitlist(String courseCode, List<String> regNos) {
+        courseService.findByCode(courseCode).ifPresent(c -> {
+            SeatPool pool = seatPool(c);
+            for (String regNo : regNos) if (!store.contains(regNo, c.getCode())) pool.addToWaitlist(regNo);
+        });
+    }
+
+    /** Replays a recorded drop: frees the seat without promoting anyone (promotions are replayed separately). */
+    public void restoreDrop(String regNo, String courseCode) {
+        courseService.findByCode(courseCode).ifPresent(c -> {
+            if (removeEnrollment(regNo, c, false) != null) seatPool(c).release();
+        });
+    }
+
+    /** Replays a recorded removal from a waitlist. */
+    public void restoreLeaveWaitlist(String regNo, String courseCode) {
+        courseService.findByCode(courseCode).ifPresent(c -> seatPool(c).removeFromWaitlist(regNo));
+    }
+
+    public List<String> waitlistFor(String courseCode) {
+        SeatPool p = seats.get(CourseService.codeKey(courseCode));
+        return p == null ? new ArrayList<>() : new ArrayList<>(p.waitlist());
+    }
+
+    public int seatsTaken(String courseCode) {
+        SeatPool p = seats.get(CourseService.codeKey(courseCode));
+        return p == null ? 0 : p.taken();
+    }
+
+    // credit check, duplicate check, seat allocation and insert are atomic for this student. With
+    // held the caller already owns a seat in that pool; the pool is looked up under the lock, so a
+    // seat from a term that closed meanwhile is refused rather than carried into the new one.
+    private EnrollmentResult enrollResolved(Student s, Course c, SeatPool held) {
+        String regNo = s.getRegNo();
+        synchronized (lockFor(regNo)) {
+            SeatPool pool = seatPool(c);
+            if (held != null && held != pool) return EnrollmentResult.COURSE_FULL;
+            int credits = creditsOf(c);
+            if (studentTotalCredits(regNo) + credits > MAX_CREDITS) {
+                return EnrollmentResult.CREDIT_LIMIT;
+            }
+            // prevent duplicate
+            if (store.contains(regNo, c.getCode())) return EnrollmentResult.ALREADY_ENROLLED;
+            if (held == null && !pool.tryAcquire(c.getCapacity())) return EnrollmentResult.COURSE_FULL;
+            Enrollment e = new Enrollment(regNo, c.getCode(), null, currentTerm);
+            store.add(e);
+            totals.put(regNo, totalsFor(regNo).addEnrollment(credits));
+            s.enrollCourse(c.getCode());
+            for (MutationListener l : listeners) l.enrolled(e);
+        }
+        return EnrollmentResult.ENROLLED;
+    }
+
+    private Enrollment removeEnrollment(String regNo, Course c, boolean notify) {
+        synchronized (lockFor(regNo)) {
+            Enrollment removed = store.remove(regNo, c.getCode());
+            if (removed == null) return null;
+            int credits = creditsOf(c);
+            StudentTotals t = totalsFor(regNo).addEnrollment(-credits);
+            if (removed.getGrade() != null) t = t.removeGrade(credits, removed.getGrade().getPoints());
+            totals.put(regNo, t);
+            studentService.findByRegNo(regNo).ifPresent(s -> s.unenrollCourse(removed.getCourseCode()));
+            if (notify) for (MutationListener l : listeners) l.dropped(removed);
+            return removed;
         }
-        return sum;
     }
 
+    // promotes waitlisted students while seats are available. With seatHeld the caller already owns
+    // a seat (a drop) and passes it on; a seat nobody on the waitlist can use is released. Stops
+    // once closeTerm retires the pool: that waitlist ended with its term.
+    private void fillFromWaitlist(Course c, boolean seatHeld) {
+        SeatPool pool = seatPool(c);
+        while (true) {
+            if (!seatHeld && !pool.tryAcquire(c.getCapacity())) return;
+            String next;
+            synchronized (pool) {
+                next = pool.isRetired() ? null : pool.pollWaitlist();
+                if (next != null) for (MutationListener l : listeners) l.leftWaitlist(next, c.getCode());
+            }
+            if (next == null) {
+                pool.release();
+                return;
+            }
+            Optional<Student> os = studentService.findByRegNo(next);
+            // on success the seat is consumed; otherwise keep holding it for the next in line
+            seatHeld = os.isEmpty() || enrollResolved(os.get(), c, pool) != EnrollmentResult.ENROLLED;
+        }
+    }
+
+    private EnrollmentResult resultAfterPromotion(String regNo, Course c) {
+        return store.contains(regNo, c.getCode()) ? EnrollmentResult.ENROLLED : EnrollmentResult.CREDIT_LIMIT;
+    }
+
+    private SeatPool seatPool(Course c) {
+        return seats.computeIfAbsent(CourseService.codeKey(c.getCode()), k -> new SeatPool());
+    }
+
+    /** Credits the student is enrolled for in the current term. */
+    public int studentTotalCredits(String regNo) {
+        return totalsFor(regNo).getEnrolledCredits();
+    }
+
+    /** Cumulative GPA over every term, closed and current. */
     public double calculateGPA(String regNo) {
-        List<Enrollment> list = enrollments.stream()
-                .filter(e -> e.getRegNo().equals(regNo) && e.getGrade() != null)
-                .collect(Collectors.toList());
-        int totalCredits = 0;
-        int totalPoints = 0;
-        for (Enrollment e : list) {
-            Optional<Course> oc = courseService.findByCode(e.getCourseCode());
-            if (oc.isEmpty()) continue;
-            int credits = oc.get().getCredits();
-            totalCredits += credits;
-            totalPoints += e.getGrade().getPoints() * credits;
-        }
-        if (totalCredits == 0) return 0.0;
-        return (double) totalPoints / totalCredits;
+        long t0 = Metrics.start();
+        // summed here rather than through cumulativeTotalsFor to skip the intermediate object
+        StudentTotals past = archive.totalsFor(regNo);
+        StudentTotals now = totalsFor(regNo);
+        long graded = (long) past.getGradedCredits() + now.getGradedCredits();
+        double gpa = graded == 0 ? 0.0 : (double) (past.getGradePoints() + now.getGradePoints()) / graded;
+        GPA_TIME.stop(t0);
+        return gpa;
+    }
+
+    /** Returns the running current-term totals for a student (all zero if they have no enrollments). */
+    public StudentTotals totalsFor(String regNo) {
+        return totals.getOrDefault(regNo, StudentTotals.EMPTY);
+    }
+
+    /**
+     * Totals over every term: the closed terms' precomputed sum plus the current term. A reader
+     * racing {@link #closeTerm} may briefly see the closing term counted twice.
+     */
+    public StudentTotals cumulativeTotalsFor(String regNo) {
+        return archive.totalsFor(regNo).plus(totalsFor(regNo));
+    }
+
+    /** Recomputes a student's totals from their enrollment rows, ignoring the running aggregate. */
+    public StudentTotals recomputeTotals(String regNo) {
+        StudentTotals t = StudentTotals.EMPTY;
+        for (Enrollment e : store.forStudent(regNo)) {
+            int credits = creditsOf(e);
+            t = t.addEnrollment(credits);
+            if (e.getGrade() != null) t = t.addGrade(credits, e.getGrade().getPoints());
+        }
+        return t;
+    }
+
+    /** Returns the regNos whose running totals disagree with a full recompute (empty when consistent). */
+    public List<String> verifyTotals() {
+        List<String> mismatched = new ArrayList<>();
+        for (String regNo : totals.keySet()) {
+            synchronized (lockFor(regNo)) {
+                if (!totalsFor(regNo).equals(recomputeTotals(regNo))) mismatched.add(regNo);
+            }
+        }
+        return mismatched;
     }
 
     public List<Enrollment> listEnrollmentsForStudent(String regNo) {
-        return enrollments.stream().filter(e -> e.getRegNo().equals(regNo)).collect(Collectors.toList());
+        long t0 = Metrics.start();
+        List<Enrollment> rows = new ArrayList<>(store.forStudent(regNo));
+        LIST_TIME.stop(t0);
+        return rows;
+    }
+
+    /** The student's enrollments as one consistent array, without the list copy (for bulk writers). */
+    public Enrollment[] enrollmentsOf(String regNo) {
+        return store.forStudent(regNo).toArray(new Enrollment[0]);
+    }
+
+    /**
+     * Copies the current enrollments into a columnar table for bulk reports, one pass over the
+     * students in id order with each course's credits looked up once. Every student with current
+     * rows or closed-term grades gets an index, carrying their closed-term totals.
+     */
+    public EnrollmentTable snapshotTable() {
+        long t0 = Metrics.start();
+        EnrollmentTable table = new EnrollmentTable();
+        int[] creditsById = new int[0];
+        for (Student s : studentService.listAll()) {
+            List<Enrollment> rows = store.forStudent(s.getRegNo());
+            StudentTotals past = archive.totalsFor(s.getRegNo());
+            if (rows.isEmpty() && past.getGradedCredits() == 0) continue;
+            int idx = table.addStudent(s.getId(), s.getRegNo(), past);
+            for (Enrollment e : rows) {
+                int id = e.getCourseId();
+                if (id >= creditsById.length) {
+                    int from = creditsById.length;
+                    creditsById = Arrays.copyOf(creditsById, Math.max(CourseCodes.size(), id + 1));
+                    Arrays.fill(creditsById, from, creditsById.length, -1);
+                }
+                if (creditsById[id] < 0) {
+                    creditsById[id] = courseService.findByCode(e.getCourseCode()).map(Course::getCredits).orElse(0);
+                }
+                table.append(idx, id, e.getGrade(), creditsById[id]);
+            }
+        }
+        TABLE_TIME.stop(t0);
+        return table;
+    }
+
+    public List<Enrollment> listEnrollmentsForCourse(String courseCode) {
+        long t0 = Metrics.start();
+        List<Enrollment> rows = new ArrayList<>(store.forCourse(courseCode));
+        LIST_TIME.stop(t0);
+        return rows;
+    }
+
+    public int countForCourse(String courseCode) {
+        return store.countForCourse(courseCode);
     }
 
     public List<Enrollment> listAll() {
-        return new ArrayList<>(enrollments);
+        long t0 = Metrics.start();
+        List<Enrollment> rows = store.all();
+        LIST_TIME.stop(t0);
+        return rows;
+    }
+
+    // ---- terms ----
+
+    public String getCurrentTerm() { return currentTerm; }
+
+    /** Closed terms, oldest first. */
+    public List<String> closedTerms() { return archive.terms(); }
+
+    /**
+     * Keeps closed terms in {@code dir}: segments already there count towards cumulative GPA at
+     * once and load their rows on first use, and terms closed from now on are written there.
+     * Call before loading the snapshot or replaying the journal. Returns the number of terms found.
+     */
+    public int openTermArchive(Path dir) throws IOException {
+        return archive.open(dir);
+    }
+
+    /**
+     * Closes the current term: its enrollments are frozen into a read-only segment, the close is
+     * recorded ({@link MutationListener#termClosing}), the segment is archived (and written to the
+     * archive directory, if one is open), and only then are seats, waitlists and the students'
+     * enrolled course codes cleared and {@code nextTerm} made current. Every student's lock is
+     * held meanwhile, so no mutation interleaves. If recording the close fails, nothing is
+     * cleared. If writing the segment fails, the term still closes with the segment kept in
+     * memory, and the IOException is rethrown; replaying the journal writes it again.
+     */
+    public TermSegment closeTerm(String nextTerm) throws IOException {
+        checkTermName(nextTerm);
+        TermSegment[] closed = new TermSegment[1];
+        IOException[] unwritten = new IOException[1];
+        withAllStudentLocks(0, () -> {
+            String term = currentTerm;
+            if (term.equals(nextTerm) || archive.contains(nextTerm)) {
+                throw new IllegalArgumentException("term " + nextTerm + " is already open or closed");
+            }
+            TermSegment seg = freezeCurrent(term);
+            for (MutationListener l : listeners) l.termClosing(term, nextTerm);
+            try {
+                archive.add(seg);
+            } catch (IOException e) {
+                unwritten[0] = e;
+            }
+            clearCurrent(nextTerm);
+            for (MutationListener l : listeners) l.termClosed(term, nextTerm);
+            closed[0] = seg;
+        });
+        if (unwritten[0] != null) throw unwritten[0];
+        return closed[0];
+    }
+
+    /** Replays a recorded term close; the segment is rebuilt from the replayed rows unless it is already archived. */
+    public void restoreTermClosed(String closedTerm, String nextTerm) throws IOException {
+        withAllStudentLocks(0, () -> {
+            if (!archive.contains(closedTerm)) archive.add(freezeCurrent(closedTerm));
+            clearCurrent(nextTerm);
+        });
+    }
+
+    /**
+     * Sets the current term from persisted state, before any enrollment is restored. A term that is
+     * already in the archive is refused: its rows would be counted twice.
+     */
+    public void restoreCurrentTerm(String term) {
+        checkTermName(term);
+        if (archive.contains(term)) throw new IllegalArgumentException("term " + term + " is already closed");
+        currentTerm = term;
+    }
+
+    /**
+     * Runs {@code action} with every student lock held, so no mutation or term close interleaves
+     * with it; the journal writes its checkpoint snapshot this way.
+     */
+    public void runExclusive(LockedAction action) throws IOException {
+        withAllStudentLocks(0, action);
+    }
+
+    /** GPA for one term: the current term from the running totals, a closed one from its segment. */
+    public double termGpa(String regNo, String term) {
+        if (term.equals(currentTerm)) return totalsFor(regNo).gpa();
+        TermSegment seg = archive.segment(term);
+        return seg == null ? 0.0 : seg.termGpa(regNo);
+    }
+
+    /** A closed term's segment, loaded from disk if it was offloaded. */
+    public Optional<TermSegment> findClosedTerm(String term) {
+        return Optional.ofNullable(archive.segment(term));
+    }
+
+    /** The student's enrollments in one term, current or closed. */
+    public List<Enrollment> listEnrollmentsForStudent(String regNo, String term) {
+        if (term.equals(currentTerm)) return listEnrollmentsForStudent(regNo);
+        TermSegment seg = archive.segment(term);
+        return seg == null ? new ArrayList<>() : seg.rowsFor(regNo);
+    }
+
+    /** Every enrollment the student has had, oldest term first; offloaded terms are loaded as needed. */
+    public List<Enrollment> listHistoryForStudent(String regNo) {
+        List<Enrollment> rows = new ArrayList<>();
+        for (String term : archive.terms()) {
+            TermSegment seg = archive.segment(term);
+            if (seg != null) rows.addAll(seg.rowsFor(regNo));
+        }
+        rows.addAll(store.forStudent(regNo));
+        return rows;
+    }
+
+    /** Drops closed terms that are on disk from memory; returns how many were dropped. */
+    public int offloadClosedTerms() {
+        return archive.offload();
+    }
+
+    public int residentClosedTerms() {
+        return archive.residentCount();
+    }
+
+    /** How many closed terms may be held in memory at once (least recently used ones are dropped). */
+    public void setMaxResidentTerms(int maxResident) {
+        archive.setMaxResident(maxResident);
+    }
+
+    // caller holds every student lock; builds the segment without changing anything
+    private TermSegment freezeCurrent(String term) {
+        Map<String, List<Enrollment>> rows = new HashMap<>();
+        for (String regNo : store.students()) rows.put(regNo, store.forStudent(regNo));
+        return TermSegment.freeze(term, rows, this::creditsOf);
+    }
+
+    // caller holds every student lock. Waitlist promotions run outside those locks, so each pool is
+    // retired under its own monitor before it is dropped: a promotion in flight then stops, and a
+    // seat it still holds is refused by enrollResolved.
+    private void clearCurrent(String nextTerm) {
+        store.clear();
+        totals.clear();
+        chargedCredits.clear();
+        for (SeatPool p : seats.values()) p.retire();
+        seats.clear();
+        for (Student s : studentService.listAll()) s.clearEnrolledCourses();
+        currentTerm = nextTerm;
+    }
+
+    @FunctionalInterface
+    public interface LockedAction {
+        void run() throws IOException;
+    }
+
+    // takes the stripes in index order, so two callers cannot deadlock each other
+    private void withAllStudentLocks(int from, LockedAction action) throws IOException {
+        if (from == locks.length) {
+            action.run();
+            return;
+        }
+        synchronized (locks[from]) {
+            withAllStudentLocks(from + 1, action);
+        }
+    }
+
+    private static void checkTermName(String term) {
+        // terms name archive files
+        if (term == null || !term.matches("[A-Za-z0-9_-]+")) throw new IllegalArgumentException("invalid term name: " + term);
+    }
+
+    // ccrm.term, or the year and season of today's date, e.g. 2025-FALL
+    private static String defaultTerm() {
+        String term = System.getProperty("ccrm.term");
+        if (term != null) return term;
+        LocalDate today = LocalDate.now();
+        int m = today.getMonthValue();
+        return today.getYear() + "-" + (m <= 5 ? "SPRING" : m <= 7 ? "SUMMER" : "FALL");
+    }
+
+    // A credit change shifts the totals of every student enrolled in the course. Mutations charge
+    // credits at the course's chargedCredits value, read under the student's lock, and that value
+    // only moves here with every student lock held: an enroll or drop racing setCredits charges the
+    // old value consistently, and this walk sees each of its rows. Credits are re-read from the
+    // course, so back-to-back changes settle on the latest.
+    private void onCreditsChanged(Course c) {
+        try {
+            withAllStudentLocks(0, () -> {
+                String key = CourseService.codeKey(c.getCode());
+                Integer charged = chargedCredits.get(key);
+                int credits = c.getCredits();
+                if (charged == null || charged == credits) return;
+                int delta = credits - charged;
+                for (Enrollment e : store.forCourse(c.getCode())) {
+                    StudentTotals t = totalsFor(e.getRegNo()).addEnrollment(delta);
+                    if (e.getGrade() != null) t = t.addGrade(delta, e.getGrade().getPoints());
+                    totals.put(e.getRegNo(), t);
+                }
+                chargedCredits.put(key, credits);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // the action does no I/O
+        }
+    }
+
+    // caller holds the student's lock. A course without rows takes its current credits: nothing
+    // charged the old value, so a concurrent change has nothing to shift.
+    private int creditsOf(Course c) {
+        return chargedCredits.computeIfAbsent(CourseService.codeKey(c.getCode()), k -> c.getCredits());
+    }
+
+    private int creditsOf(Enrollment e) {
+        return courseService.findByCode(e.getCourseCode()).map(this::creditsOf).orElse(0);
+    }
+
+    private Object lockFor(String regNo) {
+        int h = regNo.hashCode();
+        return locks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
     }
 }
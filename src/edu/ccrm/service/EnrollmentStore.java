@@ -0,0 +1,123 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.CourseCodes;
+import edu.ccrm.domain.Enrollment;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// enrollments in adjacency lists per student and per course. A student takes a handful of courses,
+// so (regNo, courseCode) lookups scan the student's list comparing CourseCodes ids, which costs far
+// less heap than a composite-key map entry per enrollment. Adds and removes for one student are
+// serialized on that student's list, which is the single point that decides duplicates.
+class EnrollmentStore {
+    // per-student lists are short and read far more often than written
+    private final Map<String, List<Enrollment>> byStudent = new ConcurrentHashMap<>();
+    // per-course rosters can be large and are appended and dropped from by many students at once
+    private final Map<String, Roster> byCourse = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    Enrollment get(String regNo, String courseCode) {
+        List<Enrollment> list = byStudent.get(regNo);
+        return list == null ? null : find(list, courseCode);
+    }
+
+    boolean contains(String regNo, String courseCode) {
+        return get(regNo, courseCode) != null;
+    }
+
+    /** Adds the enrollment unless one already exists for the same student and course. */
+    boolean add(Enrollment e) {
+        List<Enrollment> list = byStudent.computeIfAbsent(e.getRegNo(), k -> new CopyOnWriteArrayList<>());
+        synchronized (list) {
+            if (find(list, e.getCourseCode()) != null) return false;
+            list.add(e);
+        }
+        byCourse.computeIfAbsent(CourseService.codeKey(e.getCourseCode()), k -> new Roster()).add(e);
+        size.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Adds a batch of enrollments that all belong to one student; the caller has already ruled out
+     * duplicates under the student's lock. The student's adjacency list is extended once.
+     */
+    void addAllForStudent(String regNo, List<Enrollment> batch) {
+        if (batch.isEmpty()) return;
+        List<Enrollment> list = byStudent.computeIfAbsent(regNo, k -> new CopyOnWriteArrayList<>());
+        synchronized (list) {
+            list.addAll(batch);
+        }
+        for (Enrollment e : batch) {
+            byCourse.computeIfAbsent(CourseService.codeKey(e.getCourseCode()), k -> new Roster()).add(e);
+        }
+        size.addAndGet(batch.size());
+    }
+
+    /** Removes and returns the enrollment for the pair, or null if there was none. */
+    Enrollment remove(String regNo, String courseCode) {
+        List<Enrollment> list = byStudent.get(regNo);
+        if (list == null) return null;
+        Enrollment e;
+        synchronized (list) {
+            e = find(list, courseCode);
+            if (e == null) return null;
+            list.remove(e);
+        }
+        Roster r = byCourse.get(CourseService.codeKey(courseCode));
+        if (r != null) r.remove(e);
+        size.decrementAndGet();
+        return e;
+    }
+
+    // course codes match ignoring case, as the old stream filters did: every spelling of a code has
+    // one CourseCodes id, so the code is resolved once and rows compare ids only
+    private static Enrollment find(List<Enrollment> list, String courseCode) {
+        int id = CourseCodes.findIgnoreCase(courseCode);
+        if (id < 0) return null;
+        for (Enrollment e : list) if (e.getCourseId() == id) return e;
+        return null;
+    }
+
+    List<Enrollment> forStudent(String regNo) {
+        return byStudent.getOrDefault(regNo, Collections.emptyList());
+    }
+
+    Collection<Enrollment> forCourse(String courseCode) {
+        Roster r = byCourse.get(CourseService.codeKey(courseCode));
+        return r == null ? Collections.emptyList() : r.entries;
+    }
+
+    int countForCourse(String courseCode) {
+        Roster r = byCourse.get(CourseService.codeKey(courseCode));
+        return r == null ? 0 : r.entries.size();
+    }
+
+    List<Enrollment> all() {
+        List<Enrollment> out = new ArrayList<>(size.get());
+        for (List<Enrollment> list : byStudent.values()) out.addAll(list);
+        return out;
+    }
+
+    int size() { return size.get(); }
+
+    /** The regNos that have at least one enrollment list (possibly emptied by drops). */
+    Set<String> students() { return byStudent.keySet(); }
+
+    void clear() {
+        byStudent.clear();
+        byCourse.clear();
+        size.set(0);
+    }
+
+    // keyed by the Enrollment instance (identity equality), so a drop is O(1) however large the course
+    private static final class Roster {
+        final Set<Enrollment> entries = ConcurrentHashMap.newKeySet();
+
+        void add(Enrollment e) { entries.add(e); }
+
+        void remove(Enrollment e) { entries.remove(e); }
+    }
+}
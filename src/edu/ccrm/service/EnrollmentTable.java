@@ -0,0 +1,166 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.CourseCodes;
+import edu.ccrm.domain.Grade;
+
+import java.util.Arrays;
+
+/**
+ * Column-oriented copy of the enrollments for bulk reports. Each row is spread over parallel
+ * primitive arrays (student index, course id, grade ordinal, credits), with course credits joined
+ * in when the row is appended, so scans are plain loops over arrays: no Enrollment objects, no
+ * catalog lookups and no allocation per row.
+ *
+ * Students are numbered densely in the order they are added, and all rows of a student are
+ * appended together, so a student's rows form one contiguous run; {@link #regNo} and
+ * {@link #studentId} map an index back. Each student also carries their graded credits and grade
+ * points over the closed terms, so GPAs come out cumulative; a student with closed-term grades but
+ * no current rows has an index and no rows. Course ids are {@link CourseCodes} ids. The table is
+ * append-only and not thread-safe while it is being filled; take a fresh one with
+ * {@link EnrollmentService#snapshotTable()} to pick up later changes.
+ */
+public final class EnrollmentTable {
+    /** Grade column value for an enrollment without a grade. */
+    public static final byte NO_GRADE = -1;
+
+    private static final Grade[] GRADES = Grade.values();
+    private static final int[] POINTS = new int[GRADES.length];
+    static {
+        for (Grade g : GRADES) POINTS[g.ordinal()] = g.getPoints();
+    }
+
+    private int rows;
+    private int[] student = new int[1024];
+    private int[] course = new int[1024];
+    private byte[] grade = new byte[1024];
+    private int[] credits = new int[1024];
+
+    private int students;
+    private String[] regNos = new String[256];
+    private int[] studentIds = new int[256];
+    private int[] priorCredits = new int[256]; // graded credits over the closed terms
+    private long[] priorPoints = new long[256];
+
+    EnrollmentTable() {}
+
+    /**
+     * Registers the next student with their closed-term totals and returns its index; rows for it
+     * are appended with {@link #append}.
+     */
+    int addStudent(int id, String regNo, StudentTotals closedTerms) {
+        if (students == regNos.length) {
+            regNos = Arrays.copyOf(regNos, students * 2);
+            studentIds = Arrays.copyOf(studentIds, students * 2);
+            priorCredits = Arrays.copyOf(priorCredits, students * 2);
+            priorPoints = Arrays.copyOf(priorPoints, students * 2);
+        }
+        regNos[students] = regNo;
+        studentIds[students] = id;
+        priorCredits[students] = closedTerms.getGradedCredits();
+        priorPoints[students] = closedTerms.getGradePoints();
+        return students++;
+    }
+
+    void append(int studentIndex, int courseId, Grade g, int courseCredits) {
+        if (rows == student.length) {
+            int n = rows * 2;
+            student = Arrays.copyOf(student, n);
+            course = Arrays.copyOf(course, n);
+            grade = Arrays.copyOf(grade, n);
+            credits = Arrays.copyOf(credits, n);
+        }
+        student[rows] = studentIndex;
+        course[rows] = courseId;
+        grade[rows] = g == null ? NO_GRADE : (byte) g.ordinal();
+        credits[rows] = courseCredits;
+        rows++;
+    }
+
+    public int rowCount() { return rows; }
+    public int studentCount() { return students; }
+    public String regNo(int studentIndex) { return regNos[studentIndex]; }
+    public int studentId(int studentIndex) { return studentIds[studentIndex]; }
+    /** Graded credits over the closed terms, not counting this table's rows. */
+    public int priorGradedCredits(int studentIndex) { return priorCredits[studentIndex]; }
+    /** Grade points (points * credits) over the closed terms, not counting this table's rows. */
+    public long priorGradePoints(int studentIndex) { return priorPoints[studentIndex]; }
+
+    public int studentIndex(int row) { return student[row]; }
+    public int courseId(int row) { return course[row]; }
+    public String courseCode(int row) { return CourseCodes.codeOf(course[row]); }
+    public Grade grade(int row) { return grade[row] == NO_GRADE ? null : GRADES[grade[row]]; }
+    public int gradeOrdinal(int row) { return grade[row]; }
+    public int credits(int row) { return credits[row]; }
+
+    /**
+     * Cumulative GPA per student index, as calculateGPA computes it: credit-weighted over the graded
+     * rows plus the closed-term totals; 0.0 with nothing graded.
+     */
+    public double[] gpaByStudent() {
+        long[] points = Arrays.copyOf(priorPoints, students);
+        int[] graded = Arrays.copyOf(priorCredits, students);
+        for (int r = 0; r < rows; r++) {
+            int g = grade[r];
+            if (g < 0) continue;
+            int s = student[r];
+            points[s] += (long) POINTS[g] * credits[r];
+            graded[s] += credits[r];
+        }
+        double[] gpa = new double[students];
+        for (int s = 0; s < students; s++) gpa[s] = graded[s] == 0 ? 0.0 : (double) points[s] / graded[s];
+        return gpa;
+    }
+
+    /** Current-term enrolled credits per student index. */
+    public int[] creditsByStudent() {
+        int[] load = new int[students];
+        for (int r = 0; r < rows; r++) load[student[r]] += credits[r];
+        return load;
+    }
+
+    /**
+     * Grade counts per course: {@code result[courseId][grade.ordinal()]}, with ungraded rows counted in
+     * the last column ({@code Grade.values().length}). Indexed by CourseCodes id.
+     */
+    public int[][] gradeDistributionByCourse() {
+        int ungraded = GRADES.length;
+        int[][] dist = new int[CourseCodes.size()][GRADES.length + 1];
+        for (int r = 0; r < rows; r++) {
+            int g = grade[r];
+            dist[course[r]][g < 0 ? ungraded : g]++;
+        }
+        return dist;
+    }
+
+    /**
+     * Grade counts for one course, laid out like a row of {@link #gradeDistributionByCourse()}. The
+     * code matches in any case, like every other course lookup.
+     */
+    public int[] gradeDistribution(String courseCode) {
+        int[] dist = new int[GRADES.length + 1];
+        int id = CourseCodes.findIgnoreCase(courseCode);
+        if (id < 0) return dist;
+        for (int r = 0; r < rows; r++) {
+            if (course[r] != id) continue;
+            int g = grade[r];
+            dist[g < 0 ? GRADES.length : g]++;
+        }
+        return dist;
+    }
+
+    /**
+     * Number of students per credit-load bucket: {@code result[i]} counts students carrying
+     * {@code [i * bucketWidth, (i + 1) * bucketWidth)} credits. Students without rows are not counted.
+     */
+    public int[] creditLoadHistogram(int bucketWidth) {
+        if (bucketWidth <= 0) throw new IllegalArgumentException("bucket width must be positive");
+        int[] load = creditsByStudent();
+        boolean[] hasRows = new boolean[students];
+        for (int r = 0; r < rows; r++) hasRows[student[r]] = true;
+        int max = 0;
+        for (int l : load) max = Math.max(max, l);
+        int[] hist = new int[max / bucketWidth + 1];
+        for (int s = 0; s < students; s++) if (hasRows[s]) hist[load[s] / bucketWidth]++;
+        return hist;
+    }
+}
@@ -0,0 +1,32 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+
+/**
+ * Receives every state change made through the services, after it has been applied ({@link
+ * #termClosing} excepted). Callbacks for one student run under that student's enrollment lock, so
+ * they see that student's changes in order; implementations should be quick. Restores from
+ * persisted state are not reported.
+ */
+public interface MutationListener {
+    default void studentAdded(Student s) {}
+    default void studentChanged(Student s, String property, Object oldValue, Object newValue) {}
+    default void courseAdded(Course c) {}
+    default void courseChanged(Course c, String property, Object oldValue, Object newValue) {}
+    default void enrolled(Enrollment e) {}
+    default void dropped(Enrollment e) {}
+    default void gradeAssigned(Enrollment e, Grade oldGrade) {}
+    default void waitlisted(String regNo, String courseCode) {}
+    default void leftWaitlist(String regNo, String courseCode) {}
+    /**
+     * The current term is about to close: its segment is built but nothing is cleared yet. The one
+     * callback made before the change is applied, so a durable log can record the close first; a
+     * throw aborts the close and leaves the term open.
+     */
+    default void termClosing(String closedTerm, String nextTerm) {}
+    /** The current term's enrollments were frozen into history and {@code nextTerm} is now current. */
+    default void termClosed(String closedTerm, String nextTerm) {}
+}
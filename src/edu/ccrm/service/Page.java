@@ -0,0 +1,45 @@
+package edu.ccrm.service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of an ordered listing. Pass {@link #getNextCursor()} back to the same listing method
+ * to get the following page; it is null on the last page. Cursors are positions in the ordering,
+ * not offsets, so inserts and removals between calls do not skip or repeat entries.
+ */
+public final class Page<T> {
+    /**
+     * Opaque position in a listing; only meaningful to the method that produced it. It carries the
+     * listing's ordering, and passing it to another listing method throws IllegalArgumentException.
+     */
+    public static final class Cursor {
+        private final String ordering;
+        private final Object after;
+
+        Cursor(String ordering, Object after) {
+            this.ordering = ordering;
+            this.after = after;
+        }
+
+        /** The position, checked against the ordering of the listing it is passed to. */
+        Object after(String expected) {
+            if (!ordering.equals(expected)) {
+                throw new IllegalArgumentException("cursor from the " + ordering + " listing passed to the " + expected + " listing");
+            }
+            return after;
+        }
+    }
+
+    private final List<T> items;
+    private final Cursor nextCursor;
+
+    Page(List<T> items, Cursor nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+    public Cursor getNextCursor() { return nextCursor; }
+    public boolean hasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,152 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.CourseCodes;
+import edu.ccrm.domain.Grade;
+
+import java.util.*;
+
+/**
+ * Result of {@link ReportingService#generate()}. Class rank and top-N are by cumulative GPA over
+ * every term; department GPAs and grade histograms cover the current term. Grade histograms are
+ * laid out like {@link EnrollmentTable#gradeDistributionByCourse()} rows: one count per Grade
+ * ordinal plus ungraded last. GPA histograms use {@link ReportingService#GPA_BUCKETS} one-point
+ * buckets.
+ */
+public class RegistrarReport {
+    private final EnrollmentTable table;
+    private final CourseService courseService;
+    private final List<String> departments;
+    private final List<String> semesters;
+    private final int[][] gradeByCourse;
+    private final int[][] gradeBySemester;
+    private final int[][] deptGpaHistogram;
+    private final double[] deptGpaSum;
+    private final int[] deptStudents;
+    private final double[] gpa;
+    private final int[] gradedCredits;
+    private List<RankEntry> ranking; // built on first use
+
+    RegistrarReport(EnrollmentTable table, CourseService courseService, List<String> departments,
+                    List<String> semesters, int[][] gradeByCourse, int[][] gradeBySemester, int[][] deptGpaHistogram,
+                    double[] deptGpaSum, int[] deptStudents, double[] gpa, int[] gradedCredits) {
+        this.table = table;
+        this.courseService = courseService;
+        this.departments = departments;
+        this.semesters = semesters;
+        this.gradeByCourse = gradeByCourse;
+        this.gradeBySemester = gradeBySemester;
+        this.deptGpaHistogram = deptGpaHistogram;
+        this.deptGpaSum = deptGpaSum;
+        this.deptStudents = deptStudents;
+        this.gpa = gpa;
+        this.gradedCredits = gradedCredits;
+    }
+
+    public static final class RankEntry {
+        private final int rank;
+        private final String regNo;
+        private final int studentId;
+        private final double gpa;
+        private final int gradedCredits;
+
+        RankEntry(int rank, String regNo, int studentId, double gpa, int gradedCredits) {
+            this.rank = rank;
+            this.regNo = regNo;
+            this.studentId = studentId;
+            this.gpa = gpa;
+            this.gradedCredits = gradedCredits;
+        }
+
+        public int getRank() { return rank; }
+        public String getRegNo() { return regNo; }
+        public int getStudentId() { return studentId; }
+        public double getGpa() { return gpa; }
+        public int getGradedCredits() { return gradedCredits; }
+
+        @Override
+        public String toString() {
+            return String.format("#%d %s (id %d) GPA %.2f over %d credits", rank, regNo, studentId, gpa, gradedCredits);
+        }
+    }
+
+    public int studentCount() { return table.studentCount(); }
+    public int enrollmentCount() { return table.rowCount(); }
+
+    /**
+     * Students with at least one graded credit in any term, best cumulative GPA first. Equal GPAs
+     * share a rank and the next rank skips ahead (1, 2, 2, 4); ties are listed in student id order.
+     */
+    public synchronized List<RankEntry> classRank() {
+        if (ranking != null) return ranking;
+        // sort primitive keys: GPA in micro-points (fits 24 bits) above the student index, which
+        // follows student id order
+        long[] keys = new long[gpa.length];
+        int n = 0;
+        for (int s = 0; s < gpa.length; s++) {
+            if (gradedCredits[s] == 0) continue;
+            long micro = Math.round(gpa[s] * 1_000_000);
+            keys[n++] = ((0xFFFFFFL - micro) << 32) | s;
+        }
+        keys = Arrays.copyOf(keys, n);
+        Arrays.parallelSort(keys);
+        List<RankEntry> out = new ArrayList<>(n);
+        int rank = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || keys[i] >>> 32 != keys[i - 1] >>> 32) rank = i + 1;
+            int s = (int) keys[i];
+            out.add(new RankEntry(rank, table.regNo(s), table.studentId(s), gpa[s], gradedCredits[s]));
+        }
+        ranking = Collections.unmodifiableList(out);
+        return ranking;
+    }
+
+    public List<RankEntry> topStudents(int n) {
+        List<RankEntry> all = classRank();
+        return all.subList(0, Math.min(Math.max(0, n), all.size()));
+    }
+
+    public Optional<RankEntry> rankOf(String regNo) {
+        return classRank().stream().filter(e -> e.getRegNo().equals(regNo)).findFirst();
+    }
+
+    /** Per department: how many students have a current-term GPA over its courses in each bucket. */
+    public Map<String, int[]> departmentGpaHistogram() {
+        Map<String, int[]> out = new TreeMap<>();
+        for (int d = 0; d < departments.size(); d++) out.put(departments.get(d), deptGpaHistogram[d].clone());
+        return out;
+    }
+
+    /** Per department: mean of the students' current-term department GPAs. */
+    public Map<String, Double> departmentMeanGpa() {
+        Map<String, Double> out = new TreeMap<>();
+        for (int d = 0; d < departments.size(); d++) {
+            out.put(departments.get(d), deptStudents[d] == 0 ? 0.0 : deptGpaSum[d] / deptStudents[d]);
+        }
+        return out;
+    }
+
+    /** Grade counts per course code, for courses with at least one enrollment. */
+    public Map<String, int[]> gradeHistogramByCourse() {
+        Map<String, int[]> out = new TreeMap<>();
+        for (int id = 0; id < gradeByCourse.length; id++) {
+            int[] row = gradeByCourse[id];
+            if (Arrays.stream(row).anyMatch(v -> v > 0)) out.put(CourseCodes.codeOf(id), row.clone());
+        }
+        return out;
+    }
+
+    /** Grade counts for one course; the code matches in any case, as in the catalog. */
+    public int[] gradeHistogram(String courseCode) {
+        // the catalog's spelling; a course no longer listed still resolves through the dictionary
+        int id = courseService.findByCode(courseCode).map(c -> CourseCodes.find(c.getCode()))
+                .orElseGet(() -> CourseCodes.findIgnoreCase(courseCode));
+        return id < 0 || id >= gradeByCourse.length ? new int[Grade.values().length + 1] : gradeByCourse[id].clone();
+    }
+
+    /** Grade counts per semester, over the courses offered in it. */
+    public Map<String, int[]> gradeHistogramBySemester() {
+        Map<String, int[]> out = new TreeMap<>();
+        for (int i = 0; i < semesters.size(); i++) out.put(semesters.get(i), gradeBySemester[i].clone());
+        return out;
+    }
+}
@@ -0,0 +1,208 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.CourseCodes;
+import edu.ccrm.domain.Grade;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Registrar reports over the whole population: class rank, top-N students, per-department GPA
+ * distributions and grade histograms per course and per semester. Class rank and top-N use the
+ * cumulative GPA, like calculateGPA and transcripts, by adding each student's closed-term totals
+ * from the table; the department and grade histograms cover the current term only, since the
+ * archive keeps no per-course totals.
+ *
+ * A report is one parallel pass over a columnar {@link EnrollmentTable}. The rows are cut into
+ * chunks on student boundaries, each chunk fills its own {@link Partial} (plain counters, nothing
+ * shared), and the partials are merged pairwise by the parallel stream.
+ */
+public class ReportingService {
+    /** GPA buckets [0,1), [1,2), ... [9,10]; a perfect 10 goes in the last one. */
+    public static final int GPA_BUCKETS = 10;
+    private static final int GRADE_COLUMNS = Grade.values().length + 1; // + ungraded
+    private static final int MIN_CHUNK_ROWS = 1 << 14;
+    private static final int[] POINTS = Arrays.stream(Grade.values()).mapToInt(Grade::getPoints).toArray();
+
+    private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+
+    public ReportingService(CourseService cs, EnrollmentService es) {
+        this.courseService = cs;
+        this.enrollmentService = es;
+    }
+
+    /** Takes a fresh snapshot of the enrollments and reports on it. */
+    public RegistrarReport generate() {
+        return generate(enrollmentService.snapshotTable());
+    }
+
+    public RegistrarReport generate(EnrollmentTable table) {
+        Dimensions dims = new Dimensions(courseService.listAll());
+        int students = table.studentCount();
+        long[] points = new long[students];
+        int[] graded = new int[students];
+        int[] bounds = chunkBounds(table, Runtime.getRuntime().availableProcessors() * 4);
+        Partial total = IntStream.range(0, bounds.length - 1).parallel()
+                .mapToObj(i -> scan(table, dims, bounds[i], bounds[i + 1], points, graded))
+                .reduce(Partial::merge)
+                .orElseGet(() -> new Partial(dims));
+        // students without current rows are never scanned and keep just their closed-term totals
+        double[] gpa = new double[students];
+        for (int s = 0; s < students; s++) {
+            graded[s] += table.priorGradedCredits(s);
+            points[s] += table.priorGradePoints(s);
+            gpa[s] = graded[s] == 0 ? 0.0 : (double) points[s] / graded[s];
+        }
+        return new RegistrarReport(table, courseService, dims.departments, dims.semesters, total.gradeByCourse,
+                total.gradeBySemester, total.deptGpaHistogram, total.deptGpaSum, total.deptStudents, gpa, graded);
+    }
+
+    // chunk starts moved forward to the next student boundary, so every student is scanned by one chunk
+    private static int[] chunkBounds(EnrollmentTable t, int chunks) {
+        int rows = t.rowCount();
+        int size = Math.max(MIN_CHUNK_ROWS, (rows + chunks - 1) / Math.max(1, chunks));
+        List<Integer> b = new ArrayList<>();
+        b.add(0);
+        for (int r = size; r < rows; r += size) {
+            int at = r;
+            while (at < rows && t.studentIndex(at) == t.studentIndex(at - 1)) at++;
+            if (at < rows && at > b.get(b.size() - 1)) b.add(at);
+        }
+        b.add(rows);
+        return b.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Partial scan(EnrollmentTable t, Dimensions dims, int from, int to, long[] studentPoints,
+                                int[] graded) {
+        Partial p = new Partial(dims);
+        int depts = dims.departments.size();
+        long[] deptPoints = new long[depts];
+        int[] deptCredits = new int[depts];
+        int[] touched = new int[depts];
+        int[] touchedBy = new int[depts]; // student index + 1 that last touched the department
+        int touchedCount = 0;
+        long points = 0;
+        int credits = 0;
+        for (int r = from; r < to; r++) {
+            int s = t.studentIndex(r);
+            int course = t.courseId(r);
+            int g = t.gradeOrdinal(r);
+            int c = t.credits(r);
+            int col = g < 0 ? GRADE_COLUMNS - 1 : g;
+            p.gradeByCourse[course][col]++;
+            int sem = dims.semester(course);
+            if (sem >= 0) p.gradeBySemester[sem][col]++;
+            if (g >= 0) {
+                long pts = (long) POINTS[g] * c;
+                points += pts;
+                credits += c;
+                int d = dims.department(course);
+                if (d >= 0) {
+                    if (touchedBy[d] != s + 1) {
+                        touchedBy[d] = s + 1;
+                        touched[touchedCount++] = d;
+                    }
+                    deptPoints[d] += pts;
+                    deptCredits[d] += c;
+                }
+            }
+            // last row of this student: close out their current-term totals and per-department GPA
+            if (r + 1 == to || t.studentIndex(r + 1) != s) {
+                studentPoints[s] = points;
+                graded[s] = credits;
+                for (int i = 0; i < touchedCount; i++) {
+                    int d = touched[i];
+                    if (deptCredits[d] > 0) {
+                        double dg = (double) deptPoints[d] / deptCredits[d];
+                        p.deptGpaHistogram[d][bucket(dg)]++;
+                        p.deptGpaSum[d] += dg;
+                        p.deptStudents[d]++;
+                    }
+                    deptPoints[d] = 0;
+                    deptCredits[d] = 0;
+                }
+                touchedCount = 0;
+                points = 0;
+                credits = 0;
+            }
+        }
+        return p;
+    }
+
+    static int bucket(double gpa) {
+        return Math.min(GPA_BUCKETS - 1, Math.max(0, (int) gpa));
+    }
+
+    // dense indexes for the departments and semesters of the catalog, looked up by course id
+    private static final class Dimensions {
+        final List<String> departments = new ArrayList<>();
+        final List<String> semesters = new ArrayList<>();
+        final int[] deptOfCourse;
+        final int[] semesterOfCourse;
+        final int courseIds;
+
+        Dimensions(List<Course> courses) {
+            courseIds = CourseCodes.size();
+            deptOfCourse = new int[courseIds];
+            semesterOfCourse = new int[courseIds];
+            Arrays.fill(deptOfCourse, -1);
+            Arrays.fill(semesterOfCourse, -1);
+            Map<String, Integer> deptIdx = new HashMap<>();
+            Map<String, Integer> semIdx = new HashMap<>();
+            for (Course c : courses) {
+                int id = CourseCodes.find(c.getCode());
+                if (id < 0 || id >= courseIds) continue;
+                deptOfCourse[id] = index(c.getDepartment(), deptIdx, departments);
+                semesterOfCourse[id] = index(c.getSemester(), semIdx, semesters);
+            }
+        }
+
+        private static int index(String key, Map<String, Integer> idx, List<String> names) {
+            if (key == null) return -1;
+            return idx.computeIfAbsent(key, k -> {
+                names.add(k);
+                return names.size() - 1;
+            });
+        }
+
+        int department(int courseId) { return courseId < deptOfCourse.length ? deptOfCourse[courseId] : -1; }
+        int semester(int courseId) { return courseId < semesterOfCourse.length ? semesterOfCourse[courseId] : -1; }
+    }
+
+    // per-chunk counters; merge adds them element-wise
+    private static final class Partial {
+        final int[][] gradeByCourse;
+        final int[][] gradeBySemester;
+        final int[][] deptGpaHistogram;
+        final double[] deptGpaSum;
+        final int[] deptStudents;
+
+        Partial(Dimensions dims) {
+            gradeByCourse = new int[CourseCodes.size()][GRADE_COLUMNS];
+            gradeBySemester = new int[dims.semesters.size()][GRADE_COLUMNS];
+            deptGpaHistogram = new int[dims.departments.size()][GPA_BUCKETS];
+            deptGpaSum = new double[dims.departments.size()];
+            deptStudents = new int[dims.departments.size()];
+        }
+
+        Partial merge(Partial o) {
+            add(gradeByCourse, o.gradeByCourse);
+            add(gradeBySemester, o.gradeBySemester);
+            add(deptGpaHistogram, o.deptGpaHistogram);
+            for (int i = 0; i < deptGpaSum.length; i++) {
+                deptGpaSum[i] += o.deptGpaSum[i];
+                deptStudents[i] += o.deptStudents[i];
+            }
+            return this;
+        }
+
+        private static void add(int[][] into, int[][] from) {
+            for (int i = 0; i < into.length; i++) {
+                int[] a = into[i], b = from[i];
+                for (int j = 0; j < a.length; j++) a[j] += b[j];
+            }
+        }
+    }
+}
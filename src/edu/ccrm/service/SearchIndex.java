@@ -0,0 +1,85 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Front-desk search over student names and emails and course titles, with prefix and
+ * typo-tolerant matching (see {@link TextIndex}). The index is filled from the services when it is
+ * created and then kept current by a {@link ChangeFeed} subscription, so mutations never wait on
+ * the index; a search may trail a change by the feed's delivery delay. Events only name what
+ * changed and the current record is re-indexed, so replays and reordering within a batch are
+ * harmless. If the subscription falls a full ring behind, everything is re-indexed.
+ */
+public class SearchIndex {
+    private static final int BATCH = 256;
+
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final TextIndex<String> students = new TextIndex<>(); // keyed by regNo
+    private final TextIndex<String> courses = new TextIndex<>();  // keyed by code
+    private final ChangeFeed.Subscription subscription;
+
+    public SearchIndex(StudentService ss, CourseService cs, ChangeFeed feed) {
+        this.studentService = ss;
+        this.courseService = cs;
+        // subscribe first so nothing added during the initial fill is missed; re-indexing is idempotent
+        this.subscription = feed.subscribe("search", new ChangeFeed.Subscriber() {
+            @Override
+            public void onBatch(List<ChangeEvent> batch) { apply(batch); }
+
+            @Override
+            public void onGap(long missed) { reindexAll(); }
+        }, ChangeFeed.OverflowPolicy.DROP, BATCH);
+        reindexAll();
+    }
+
+    public void close() { subscription.close(); }
+
+    /** Up to k students whose name or email matches every word of the query, best first. */
+    public List<Student> searchStudents(String query, int k) {
+        List<Student> out = new ArrayList<>();
+        for (String regNo : students.search(query, k)) studentService.findByRegNo(regNo).ifPresent(out::add);
+        return out;
+    }
+
+    /** Up to k courses whose title matches every word of the query, best first. */
+    public List<Course> searchCourses(String query, int k) {
+        List<Course> out = new ArrayList<>();
+        for (String code : courses.search(query, k)) courseService.findByCode(code).ifPresent(out::add);
+        return out;
+    }
+
+    public int indexedStudents() { return students.size(); }
+    public int indexedCourses() { return courses.size(); }
+
+    private void apply(List<ChangeEvent> batch) {
+        for (ChangeEvent e : batch) {
+            switch (e.getType()) {
+                case STUDENT_CREATED -> studentService.findByRegNo(e.getRegNo()).ifPresent(this::index);
+                case STUDENT_CHANGED -> {
+                    if (e.getProperty().equals("fullName") || e.getProperty().equals("email")) {
+                        studentService.findByRegNo(e.getRegNo()).ifPresent(this::index);
+                    }
+                }
+                case COURSE_CREATED -> courseService.findByCode(e.getCourseCode()).ifPresent(this::index);
+                case COURSE_CHANGED -> {
+                    if (e.getProperty().equals("title")) courseService.findByCode(e.getCourseCode()).ifPresent(this::index);
+                }
+                default -> { }
+            }
+        }
+    }
+
+    private void reindexAll() {
+        for (Student s : studentService.listAll()) index(s);
+        for (Course c : courseService.listAll()) index(c);
+    }
+
+    private void index(Student s) { students.put(s.getRegNo(), s.getFullName(), s.getEmail()); }
+
+    private void index(Course c) { courses.put(c.getCode(), c.getTitle()); }
+}
@@ -0,0 +1,61 @@
+package edu.ccrm.service;
+
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// seat counter and FIFO waitlist for one course. Seats are taken with a CAS loop rather than a
+// monitor, so a burst of requests for a hot course only contends on a single atomic int.
+class SeatPool {
+    private final AtomicInteger taken = new AtomicInteger();
+    private final Deque<String> waitlist = new ConcurrentLinkedDeque<>();
+    private final Set<String> waiting = ConcurrentHashMap.newKeySet();
+    private boolean retired; // guarded by this
+
+    /** Takes a seat if one is free under the given capacity (0 = unlimited). */
+    boolean tryAcquire(int capacity) {
+        while (true) {
+            int t = taken.get();
+            if (capacity > 0 && t >= capacity) return false;
+            if (taken.compareAndSet(t, t + 1)) return true;
+        }
+    }
+
+    void release() { taken.decrementAndGet(); }
+
+    /** Counts seats already occupied by restored enrollments, ignoring capacity. */
+    void restoreTaken(int seats) { taken.addAndGet(seats); }
+
+    int taken() { return taken.get(); }
+
+    /** Appends the student to the waitlist; false if they are already on it. */
+    boolean addToWaitlist(String regNo) {
+        if (!waiting.add(regNo)) return false;
+        waitlist.addLast(regNo);
+        return true;
+    }
+
+    String pollWaitlist() {
+        String regNo = waitlist.pollFirst();
+        if (regNo != null) waiting.remove(regNo);
+        return regNo;
+    }
+
+    boolean removeFromWaitlist(String regNo) {
+        if (!waiting.remove(regNo)) return false;
+        waitlist.remove(regNo);
+        return true;
+    }
+
+    boolean isWaiting(String regNo) { return waiting.contains(regNo); }
+
+    /** Marks the pool as belonging to a closed term; its waitlist is dead from then on. */
+    synchronized void retire() { retired = true; }
+
+    /** Caller holds this pool's monitor. */
+    boolean isRetired() { return retired; }
+
+    Deque<String> waitlist() { return waitlist; }
+}
@@ -1,32 +1,183 @@
 package edu.ccrm.service;
 
+import edu.ccrm.domain.ChangeListener;
 import edu.ccrm.domain.Student;
+import edu.ccrm.metrics.Metrics;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class StudentService {
-    private final Map<String, Student> studentsByReg = new HashMap<>();
-    private int nextId = 1;
+    private static final Metrics.Timer CREATE_TIME = Metrics.timer("student.create", "createStudent/addStudent latency");
+    private static final Metrics.Timer FIND_TIME = Metrics.timer("student.find_by_reg_no", "findByRegNo latency");
+    private static final Metrics.Timer LIST_TIME = Metrics.timer("student.list", "listAll and page latency");
+    private static final Metrics.Timer DEACTIVATE_TIME = Metrics.timer("student.deactivate", "deactivate latency");
+    // cursor orderings
+    private static final String BY_ID = "students by id";
+    private static final String BY_NAME = "students by name";
+
+    private final Map<String, Student> studentsByReg = new ConcurrentHashMap<>();
+    // ordered views for listings and pagination, maintained on add/replace and on renames
+    private final NavigableMap<OrderKey, Student> byId = new ConcurrentSkipListMap<>();
+    private final NavigableMap<OrderKey, Student> byName = new ConcurrentSkipListMap<>();
+    private final Map<Student, OrderKey> nameKeys = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final List<MutationListener> listeners = new CopyOnWriteArrayList<>();
+    private final ChangeListener<Student> forwarder = (s, property, oldValue, newValue) -> {
+        if (property.equals("fullName")) reindexName(s);
+        for (MutationListener l : listeners) l.studentChanged(s, property, oldValue, newValue);
+    };
+
+    // sort key: lower-cased name (empty for the id ordering), then id, then regNo to keep keys unique
+    private static final class OrderKey implements Comparable<OrderKey> {
+        final String name;
+        final int id;
+        final String regNo;
+
+        OrderKey(String name, int id, String regNo) {
+            this.name = name;
+            this.id = id;
+            this.regNo = regNo;
+        }
+
+        static OrderKey byId(Student s) { return new OrderKey("", s.getId(), s.getRegNo()); }
+
+        static OrderKey byName(Student s) {
+            String n = s.getFullName();
+            return new OrderKey(n == null ? "" : n.toLowerCase(Locale.ROOT), s.getId(), s.getRegNo());
+        }
+
+        @Override
+        public int compareTo(OrderKey o) {
+            int c = name.compareTo(o.name);
+            if (c != 0) return c;
+            c = Integer.compare(id, o.id);
+            return c != 0 ? c : regNo.compareTo(o.regNo);
+        }
+
+        @Override
+        public boolean equals(Object o) { return o instanceof OrderKey && compareTo((OrderKey) o) == 0; }
+
+        @Override
+        public int hashCode() { return Objects.hash(name, id, regNo); }
+    }
+
+    public void addMutationListener(MutationListener l) { listeners.add(l); }
+    public void removeMutationListener(MutationListener l) { listeners.remove(l); }
 
     public Student createStudent(String regNo, String name, String email) {
-        Student s = new Student(nextId++, regNo, name, email, LocalDate.now());
-        studentsByReg.put(regNo, s);
+        long t0 = Metrics.start();
+        Student s = new Student(nextId.getAndIncrement(), regNo, name, email, LocalDate.now());
+        Student replaced = studentsByReg.put(regNo, s);
+        if (replaced != null) untrack(replaced);
+        track(s);
+        CREATE_TIME.stop(t0);
         return s;
     }
 
+    /**
+     * Adds an existing student (e.g. from an import) keeping its id; nextId is moved past it.
+     * Returns false if the regNo is already taken.
+     */
+    public boolean addStudent(Student s) {
+        long t0 = Metrics.start();
+        try {
+            if (studentsByReg.putIfAbsent(s.getRegNo(), s) != null) return false;
+            nextId.accumulateAndGet(s.getId() + 1, Math::max);
+            track(s);
+            return true;
+        } finally {
+            CREATE_TIME.stop(t0);
+        }
+    }
+
+    private void track(Student s) {
+        byId.put(OrderKey.byId(s), s);
+        s.addChangeListener(forwarder);
+        reindexName(s);
+        for (MutationListener l : listeners) l.studentAdded(s);
+    }
+
+    private void untrack(Student s) {
+        s.removeChangeListener(forwarder);
+        byId.remove(OrderKey.byId(s));
+        synchronized (s) {
+            OrderKey k = nameKeys.remove(s);
+            if (k != null) byName.remove(k);
+        }
+    }
+
+    // re-keys from the current name under the student's monitor, so racing renames settle on the last one
+    private void reindexName(Student s) {
+        synchronized (s) {
+            OrderKey next = OrderKey.byName(s);
+            OrderKey prev = nameKeys.put(s, next);
+            if (prev != null && !prev.equals(next)) byName.remove(prev);
+            byName.put(next, s);
+        }
+    }
+
+    public int size() { return studentsByReg.size(); }
+
+    public int getNextId() { return nextId.get(); }
+
+    /** Moves the id counter forward to at least the given value (used when restoring state). */
+    public void restoreNextId(int next) { nextId.accumulateAndGet(next, Math::max); }
+
+    /** All students in id order. */
     public List<Student> listAll() {
-        return studentsByReg.values().stream().sorted(Comparator.comparing(Student::getId)).collect(Collectors.toList());
+        long t0 = Metrics.start();
+        List<Student> all = new ArrayList<>(byId.values());
+        LIST_TIME.stop(t0);
+        return all;
+    }
+
+    /** Up to {@code limit} students in id order after the cursor (null for the first page). */
+    public Page<Student> pageById(Page.Cursor after, int limit) { return page(byId, BY_ID, after, limit); }
+
+    /** Up to {@code limit} students in case-insensitive name order (ties by id) after the cursor. */
+    public Page<Student> pageByName(Page.Cursor after, int limit) { return page(byName, BY_NAME, after, limit); }
+
+    private static Page<Student> page(NavigableMap<OrderKey, Student> index, String ordering, Page.Cursor after,
+                                      int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be positive");
+        long t0 = Metrics.start();
+        try {
+            return pageUntimed(index, ordering, after, limit);
+        } finally {
+            LIST_TIME.stop(t0);
+        }
+    }
+
+    private static Page<Student> pageUntimed(NavigableMap<OrderKey, Student> index, String ordering,
+                                             Page.Cursor after, int limit) {
+        Map<OrderKey, Student> rest = after == null ? index : index.tailMap((OrderKey) after.after(ordering), false);
+        List<Student> items = new ArrayList<>(Math.min(limit, 1024));
+        OrderKey last = null;
+        for (Map.Entry<OrderKey, Student> e : rest.entrySet()) {
+            if (items.size() == limit) return new Page<>(items, new Page.Cursor(ordering, last));
+            items.add(e.getValue());
+            last = e.getKey();
+        }
+        return new Page<>(items, null);
     }
 
     public Optional<Student> findByRegNo(String regNo) {
-        return Optional.ofNullable(studentsByReg.get(regNo));
+        long t0 = Metrics.start();
+        Student s = studentsByReg.get(regNo);
+        FIND_TIME.stop(t0);
+        return Optional.ofNullable(s);
     }
 
     public boolean deactivate(String regNo) {
+        long t0 = Metrics.start();
         Optional<Student> s = findByRegNo(regNo);
         s.ifPresent(Student::deactivate);
+        DEACTIVATE_TIME.stop(t0);
         return s.isPresent();
     }
 }
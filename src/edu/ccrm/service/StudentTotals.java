@@ -0,0 +1,66 @@
+package edu.ccrm.service;
+
+import java.util.Objects;
+
+// immutable per-student aggregate so credit-cap checks and GPA are constant-time, lock-free reads.
+// Updates produce a new instance which EnrollmentService publishes under the student's lock.
+public final class StudentTotals {
+    static final StudentTotals EMPTY = new StudentTotals(0, 0, 0);
+
+    private final int enrolledCredits;
+    private final int gradedCredits;
+    private final long gradePoints; // sum of grade points * credits over graded enrollments
+
+    private StudentTotals(int enrolledCredits, int gradedCredits, long gradePoints) {
+        this.enrolledCredits = enrolledCredits;
+        this.gradedCredits = gradedCredits;
+        this.gradePoints = gradePoints;
+    }
+
+    public int getEnrolledCredits() { return enrolledCredits; }
+    public int getGradedCredits() { return gradedCredits; }
+    public long getGradePoints() { return gradePoints; }
+
+    public double gpa() {
+        return gradedCredits == 0 ? 0.0 : (double) gradePoints / gradedCredits;
+    }
+
+    StudentTotals addEnrollment(int credits) {
+        return new StudentTotals(enrolledCredits + credits, gradedCredits, gradePoints);
+    }
+
+    StudentTotals addGrade(int credits, int points) {
+        return new StudentTotals(enrolledCredits, gradedCredits + credits, gradePoints + (long) points * credits);
+    }
+
+    StudentTotals removeGrade(int credits, int points) {
+        return addGrade(-credits, points);
+    }
+
+    StudentTotals plus(StudentTotals t) {
+        if (t == EMPTY) return this;
+        if (this == EMPTY) return t;
+        return new StudentTotals(enrolledCredits + t.enrolledCredits, gradedCredits + t.gradedCredits,
+                gradePoints + t.gradePoints);
+    }
+
+    static StudentTotals of(int enrolledCredits, int gradedCredits, long gradePoints) {
+        return new StudentTotals(enrolledCredits, gradedCredits, gradePoints);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StudentTotals)) return false;
+        StudentTotals t = (StudentTotals) o;
+        return enrolledCredits == t.enrolledCredits && gradedCredits == t.gradedCredits && gradePoints == t.gradePoints;
+    }
+
+    @Override
+    public int hashCode() { return Objects.hash(enrolledCredits, gradedCredits, gradePoints); }
+
+    @Override
+    public String toString() {
+        return String.format("credits=%d graded=%d points=%d", enrolledCredits, gradedCredits, gradePoints);
+    }
+}
@@ -0,0 +1,137 @@
+package edu.ccrm.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// closed terms, oldest first. Every student's totals over all closed terms are kept in memory, so
+// cumulative GPA never needs a segment. The segments themselves are written to the archive
+// directory (when there is one) as NNNN-<term>.seg and can be dropped from memory; they are read
+// back on first use, keeping at most maxResident loaded.
+final class TermArchive {
+    private static final String SUFFIX = ".seg";
+
+    private final Map<String, StudentTotals> history = new ConcurrentHashMap<>();
+    private final Map<String, Slot> slots = new LinkedHashMap<>(); // guarded by this
+    private Path dir;
+    private int maxResident = 4;
+    private long clock;
+
+    private static final class Slot {
+        final String term;
+        Path file;             // null until written
+        TermSegment resident;  // null while offloaded
+        long lastUsed;
+
+        Slot(String term) { this.term = term; }
+    }
+
+    /** Loads the term totals of every segment in {@code dir}; the segments stay on disk until used. */
+    synchronized int open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        this.dir = dir;
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path p : ds) files.add(p);
+        }
+        files.sort(Comparator.comparing(p -> p.getFileName().toString()));
+        int opened = 0;
+        for (Path p : files) {
+            TermSegment seg = TermSegment.read(p);
+            if (slots.containsKey(seg.getTerm())) continue;
+            fold(seg);
+            Slot s = new Slot(seg.getTerm());
+            s.file = p;
+            slots.put(seg.getTerm(), s);
+            opened++;
+        }
+        return opened;
+    }
+
+    synchronized boolean contains(String term) { return slots.containsKey(term); }
+
+    synchronized List<String> terms() { return new ArrayList<>(slots.keySet()); }
+
+    synchronized int residentCount() {
+        int n = 0;
+        for (Slot s : slots.values()) if (s.resident != null) n++;
+        return n;
+    }
+
+    synchronized void setMaxResident(int maxResident) {
+        if (maxResident < 1) throw new IllegalArgumentException("maxResident must be at least 1");
+        this.maxResident = maxResident;
+        evict();
+    }
+
+    /**
+     * Adds a newly closed term and writes it to the archive directory, if there is one. If the
+     * write fails the term is still added, its segment pinned in memory, and the exception rethrown.
+     */
+    synchronized void add(TermSegment seg) throws IOException {
+        fold(seg);
+        Slot s = new Slot(seg.getTerm());
+        s.resident = seg;
+        s.lastUsed = ++clock;
+        slots.put(seg.getTerm(), s);
+        if (dir != null) {
+            Path file = dir.resolve(String.format("%04d-%s%s", slots.size(), seg.getTerm(), SUFFIX));
+            seg.write(file);
+            s.file = file;
+        }
+        evict();
+    }
+
+    /** Totals over every closed term (all zero for a student with no history). */
+    StudentTotals totalsFor(String regNo) {
+        return history.getOrDefault(regNo, StudentTotals.EMPTY);
+    }
+
+    /** The segment for a closed term, loading it from disk if it was offloaded; null for an unknown term. */
+    synchronized TermSegment segment(String term) {
+        Slot s = slots.get(term);
+        if (s == null) return null;
+        s.lastUsed = ++clock;
+        if (s.resident == null) {
+            try {
+                s.resident = TermSegment.read(s.file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot load term " + term + " from " + s.file, e);
+            }
+            evict();
+        }
+        return s.resident;
+    }
+
+    /** Drops every segment that is safely on disk from memory; returns how many were dropped. */
+    synchronized int offload() {
+        int n = 0;
+        for (Slot s : slots.values()) {
+            if (s.resident != null && s.file != null) {
+                s.resident = null;
+                n++;
+            }
+        }
+        return n;
+    }
+
+    // least recently used segments go first; one without a file cannot be dropped
+    private void evict() {
+        while (residentCount() > maxResident) {
+            Slot victim = null;
+            for (Slot s : slots.values()) {
+                if (s.resident != null && s.file != null && (victim == null || s.lastUsed < victim.lastUsed)) victim = s;
+            }
+            if (victim == null) return;
+            victim.resident = null;
+        }
+    }
+
+    private void fold(TermSegment seg) {
+        seg.forEachStudent((regNo, t) -> history.merge(regNo, t, StudentTotals::plus));
+    }
+}
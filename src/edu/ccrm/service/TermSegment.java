@@ -0,0 +1,220 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.io.FileUtil;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.ToIntFunction;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The enrollments of one closed term, frozen into a compact read-only segment. Rows are stored
+ * column-wise and grouped by student (regNos sorted, so a student's rows are found by binary
+ * search), with course codes interned into a per-segment table and credits fixed at the value
+ * they had when the term closed. Each student's term totals (credits, graded credits, grade
+ * points) are precomputed, so a term GPA is a lookup rather than a scan.
+ *
+ * File layout: magic, version, then a body (term, code table, regNos with row counts, rows) and a
+ * trailing CRC32 of the body, as in the snapshot format.
+ */
+public final class TermSegment {
+    private static final int MAGIC = 0x43435254; // "CCRT"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 6;
+    private static final int TRAILER_BYTES = 8;
+    private static final Grade[] GRADES = Grade.values();
+
+    private final String term;
+    private final String[] regNos;   // sorted
+    private final int[] rowStart;    // rows of student i are [rowStart[i], rowStart[i + 1])
+    private final String[] codes;    // segment-local course code table
+    private final int[] rowCode;     // index into codes
+    private final byte[] rowGrade;   // Grade ordinal, -1 when ungraded
+    private final short[] rowCredits;
+    private final int[] credits;     // per-student term totals
+    private final int[] gradedCredits;
+    private final long[] gradePoints;
+
+    private TermSegment(String term, String[] regNos, int[] rowStart, String[] codes, int[] rowCode, byte[] rowGrade,
+                        short[] rowCredits) {
+        this.term = term;
+        this.regNos = regNos;
+        this.rowStart = rowStart;
+        this.codes = codes;
+        this.rowCode = rowCode;
+        this.rowGrade = rowGrade;
+        this.rowCredits = rowCredits;
+        this.credits = new int[regNos.length];
+        this.gradedCredits = new int[regNos.length];
+        this.gradePoints = new long[regNos.length];
+        for (int i = 0; i < regNos.length; i++) {
+            for (int r = rowStart[i]; r < rowStart[i + 1]; r++) {
+                credits[i] += rowCredits[r];
+                if (rowGrade[r] >= 0) {
+                    gradedCredits[i] += rowCredits[r];
+                    gradePoints[i] += (long) GRADES[rowGrade[r]].getPoints() * rowCredits[r];
+                }
+            }
+        }
+    }
+
+    /** Freezes the given per-student enrollment lists; {@code creditsOf} supplies each row's credits. */
+    static TermSegment freeze(String term, Map<String, List<Enrollment>> byStudent, ToIntFunction<Enrollment> creditsOf) {
+        String[] regNos = byStudent.entrySet().stream().filter(en -> !en.getValue().isEmpty())
+                .map(Map.Entry::getKey).sorted().toArray(String[]::new);
+        int rows = 0;
+        for (String r : regNos) rows += byStudent.get(r).size();
+        int[] rowStart = new int[regNos.length + 1];
+        int[] rowCode = new int[rows];
+        byte[] rowGrade = new byte[rows];
+        short[] rowCredits = new short[rows];
+        Map<String, Integer> codeIds = new HashMap<>();
+        List<String> codes = new ArrayList<>();
+        int r = 0;
+        for (int i = 0; i < regNos.length; i++) {
+            rowStart[i] = r;
+            for (Enrollment e : byStudent.get(regNos[i])) {
+                Integer id = codeIds.get(e.getCourseCode());
+                if (id == null) {
+                    id = codes.size();
+                    codeIds.put(e.getCourseCode(), id);
+                    codes.add(e.getCourseCode());
+                }
+                rowCode[r] = id;
+                rowGrade[r] = (byte) (e.getGrade() == null ? -1 : e.getGrade().ordinal());
+                rowCredits[r] = (short) creditsOf.applyAsInt(e);
+                r++;
+            }
+        }
+        rowStart[regNos.length] = r;
+        return new TermSegment(term, regNos, rowStart, codes.toArray(new String[0]), rowCode, rowGrade, rowCredits);
+    }
+
+    public String getTerm() { return term; }
+    public int studentCount() { return regNos.length; }
+    public int rowCount() { return rowCode.length; }
+
+    public boolean contains(String regNo) { return Arrays.binarySearch(regNos, regNo) >= 0; }
+
+    /** The student's totals for this term (all zero if they took nothing). */
+    public StudentTotals totalsFor(String regNo) {
+        int i = Arrays.binarySearch(regNos, regNo);
+        return i < 0 ? StudentTotals.EMPTY : StudentTotals.of(credits[i], gradedCredits[i], gradePoints[i]);
+    }
+
+    public double termGpa(String regNo) { return totalsFor(regNo).gpa(); }
+
+    /** The student's rows in this term, as new Enrollment objects carrying the term. */
+    public List<Enrollment> rowsFor(String regNo) {
+        int i = Arrays.binarySearch(regNos, regNo);
+        if (i < 0) return new ArrayList<>();
+        List<Enrollment> out = new ArrayList<>(rowStart[i + 1] - rowStart[i]);
+        for (int r = rowStart[i]; r < rowStart[i + 1]; r++) {
+            out.add(new Enrollment(regNos[i], codes[rowCode[r]], rowGrade[r] < 0 ? null : GRADES[rowGrade[r]], term));
+        }
+        return out;
+    }
+
+    // visits every student's term totals without materializing rows
+    interface TotalsVisitor {
+        void visit(String regNo, StudentTotals totals);
+    }
+
+    void forEachStudent(TotalsVisitor v) {
+        for (int i = 0; i < regNos.length; i++) v.visit(regNos[i], StudentTotals.of(credits[i], gradedCredits[i], gradePoints[i]));
+    }
+
+    /** Writes the segment to a temp file, forces it and renames it over {@code file}. */
+    void write(Path file) throws IOException {
+        FileUtil.writeDataAtomically(file, raw -> {
+            raw.writeInt(MAGIC);
+            raw.writeShort(VERSION);
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(raw, crc));
+            writeString(out, term);
+            out.writeInt(codes.length);
+            for (String c : codes) writeString(out, c);
+            out.writeInt(regNos.length);
+            for (int i = 0; i < regNos.length; i++) {
+                writeString(out, regNos[i]);
+                out.writeInt(rowStart[i + 1] - rowStart[i]);
+            }
+            out.writeInt(rowCode.length);
+            for (int r = 0; r < rowCode.length; r++) {
+                out.writeInt(rowCode[r]);
+                out.writeByte(rowGrade[r]);
+                out.writeShort(rowCredits[r]);
+            }
+            out.flush();
+            raw.writeLong(crc.getValue());
+        });
+    }
+
+    /** Reads a segment written by {@link #write}; the checksum is verified first. */
+    static TermSegment read(Path file) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES || size > Integer.MAX_VALUE) throw new IOException("bad term segment size " + size);
+            buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining() && ch.read(buf) >= 0) { }
+            buf.flip();
+        }
+        if (buf.getInt(0) != MAGIC) throw new IOException("not a CCRM term segment: " + file);
+        short version = buf.getShort(4);
+        if (version != VERSION) throw new IOException("unsupported term segment version " + version);
+        int bodyEnd = buf.limit() - TRAILER_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), HEADER_BYTES, bodyEnd - HEADER_BYTES);
+        if (crc.getValue() != buf.getLong(bodyEnd)) throw new IOException("term segment checksum mismatch: " + file);
+
+        ByteBuffer in = buf.position(HEADER_BYTES).limit(bodyEnd);
+        String term = readString(in);
+        String[] codes = new String[in.getInt()];
+        for (int i = 0; i < codes.length; i++) codes[i] = readString(in);
+        String[] regNos = new String[in.getInt()];
+        int[] rowStart = new int[regNos.length + 1];
+        for (int i = 0; i < regNos.length; i++) {
+            regNos[i] = readString(in);
+            rowStart[i + 1] = rowStart[i] + in.getInt();
+        }
+        int rows = in.getInt();
+        if (rows != rowStart[regNos.length]) throw new IOException("term segment row count mismatch: " + file);
+        int[] rowCode = new int[rows];
+        byte[] rowGrade = new byte[rows];
+        short[] rowCredits = new short[rows];
+        for (int r = 0; r < rows; r++) {
+            rowCode[r] = in.getInt();
+            rowGrade[r] = in.get();
+            rowCredits[r] = in.getShort();
+        }
+        return new TermSegment(term, regNos, rowStart, codes, rowCode, rowGrade, rowCredits);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int len = in.getInt();
+        String s = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+        in.position(in.position() + len);
+        return s;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d students, %d enrollments", term, studentCount(), rowCount());
+    }
+}
@@ -0,0 +1,439 @@
+package edu.ccrm.service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Token index over short text fields, supporting prefix and typo-tolerant lookups.
+ *
+ * Text is split into lowercase letter/digit tokens. Documents and distinct tokens (terms) get
+ * dense int ids; each term keeps an int posting list and each document the ids of its terms, so
+ * scoring a candidate compares ints instead of chasing strings through hash maps. Terms are kept
+ * sorted, so a prefix is a range scan. For typos, term ids are also listed under their trigrams
+ * ({@code $}-padded, split by term length); a query token's candidate terms are those sharing
+ * enough trigrams, confirmed with a bounded edit distance where an adjacent transposition counts
+ * as one edit.
+ *
+ * Removals are lazy: a document that drops a term stays in the term's posting list until the
+ * stale entries outnumber the live ones and the list is compacted, and searches skip documents
+ * that no longer hold the term. A term left with no documents is retired; once retired terms
+ * outnumber live ones the trigram lists are rebuilt and their ids reused, as are removed
+ * documents' ids, so the index stays proportional to its live contents under churn.
+ *
+ * A document matches when every query token matches one of its terms: exactly (3 points), as a
+ * prefix (2) or within the edit budget (1). Results are the k best by total points. Searches share
+ * a read lock; updates take the write lock.
+ */
+class TextIndex<K> {
+    private static final int EXACT = 3, PREFIX = 2, FUZZY = 1;
+    private static final int[] NO_IDS = new int[0];
+    private static final int MIN_RECLAIM = 64; // retired terms (and stale postings) tolerated regardless of size
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Term> terms = new TreeMap<>();     // live terms only
+    private final List<Term> termsById = new ArrayList<>();          // null once retired
+    private final Map<String, IntList> termIdsByGram = new HashMap<>();
+    private final IntList retiredTermIds = new IntList(16);          // still listed under their trigrams
+    private final IntList freeTermIds = new IntList(16);             // unlisted, ready for reuse
+    private final Map<K, Integer> docIds = new HashMap<>();
+    private final List<K> docKeys = new ArrayList<>();
+    private final List<int[]> docTerms = new ArrayList<>();          // null once removed
+    private final IntList freeDocIds = new IntList(16);
+    private int liveDocs;
+
+    private static final class Term {
+        final String text;
+        final int id;
+        final IntList docs = new IntList(1); // may hold stale or repeated entries, see unlink
+        int live;                            // documents holding the term
+
+        Term(String text, int id) {
+            this.text = text;
+            this.id = id;
+        }
+    }
+
+    private static final class IntList {
+        int[] values;
+        int size;
+
+        IntList(int capacity) { values = new int[capacity]; }
+
+        void add(int v) {
+            if (size == values.length) values = Arrays.copyOf(values, Math.max(4, size * 2));
+            values[size++] = v;
+        }
+
+        int pop() { return values[--size]; }
+    }
+
+    /** Replaces the document's indexed text. */
+    void put(K key, String... fields) {
+        String[] tokens = tokenize(fields);
+        lock.writeLock().lock();
+        try {
+            Integer known = docIds.get(key);
+            int doc;
+            int[] prev;
+            if (known == null) {
+                doc = freeDocIds.size > 0 ? freeDocIds.pop() : docKeys.size();
+                docIds.put(key, doc);
+                if (doc == docKeys.size()) {
+                    docKeys.add(key);
+                    docTerms.add(null);
+                } else {
+                    docKeys.set(doc, key);
+                }
+                prev = NO_IDS;
+                liveDocs++;
+            } else {
+                doc = known;
+                prev = docTerms.get(doc);
+            }
+            int[] next = new int[tokens.length];
+            for (int i = 0; i < tokens.length; i++) {
+                Term t = terms.get(tokens[i]);
+                if (t == null) t = newTerm(tokens[i]);
+                next[i] = t.id;
+                if (!contains(prev, t.id)) {
+                    t.docs.add(doc);
+                    t.live++;
+                }
+            }
+            docTerms.set(doc, next);
+            for (int id : prev) if (!contains(next, id)) unlink(termsById.get(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(K key) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docIds.remove(key);
+            if (doc == null) return;
+            int[] prev = docTerms.get(doc);
+            docTerms.set(doc, null);
+            docKeys.set(doc, null);
+            for (int id : prev) unlink(termsById.get(id));
+            freeDocIds.add(doc);
+            liveDocs--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Term newTerm(String text) {
+        int id = freeTermIds.size > 0 ? freeTermIds.pop() : termsById.size();
+        Term term = new Term(text, id);
+        if (id == termsById.size()) termsById.add(term);
+        else termsById.set(id, term);
+        terms.put(text, term);
+        listGrams(term);
+        return term;
+    }
+
+    private void listGrams(Term term) {
+        for (String g : grams(term.text)) {
+            termIdsByGram.computeIfAbsent(gramKey(g, term.text.length()), x -> new IntList(4)).add(term.id);
+        }
+    }
+
+    // called once the document's term array no longer holds the term. The posting stays behind and
+    // is dropped when the list is compacted; an emptied term is retired, and its id stays in the
+    // trigram lists (skipped on lookup) until enough have piled up to rebuild them
+    private void unlink(Term term) {
+        if (--term.live == 0) {
+            terms.remove(term.text);
+            termsById.set(term.id, null);
+            retiredTermIds.add(term.id);
+            if (retiredTermIds.size >= MIN_RECLAIM && retiredTermIds.size > terms.size()) relistGrams();
+        } else if (term.docs.size >= MIN_RECLAIM && term.docs.size > 2 * term.live) {
+            compactPostings(term);
+        }
+    }
+
+    // keeps each document that still holds the term once, in posting order
+    private void compactPostings(Term term) {
+        int[] docs = term.docs.values;
+        BitSet kept = new BitSet();
+        int n = 0;
+        for (int i = 0; i < term.docs.size; i++) {
+            int doc = docs[i];
+            if (!kept.get(doc) && holds(doc, term.id)) {
+                kept.set(doc);
+                docs[n++] = doc;
+            }
+        }
+        term.docs.size = n;
+        if (n < docs.length / 4) term.docs.values = Arrays.copyOf(docs, Math.max(4, n * 2));
+    }
+
+    private void relistGrams() {
+        termIdsByGram.clear();
+        for (Term t : terms.values()) listGrams(t);
+        for (int i = 0; i < retiredTermIds.size; i++) freeTermIds.add(retiredTermIds.values[i]);
+        retiredTermIds.size = 0;
+    }
+
+    private boolean holds(int doc, int termId) {
+        int[] ids = docTerms.get(doc);
+        return ids != null && contains(ids, termId);
+    }
+
+    /** The k best matching documents, best first. */
+    List<K> search(String query, int k) {
+        String[] q = tokenize(query);
+        if (q.length == 0 || k <= 0) return List.of();
+        // drive candidate generation from the longest token, likely the most selective
+        int driver = 0;
+        for (int i = 1; i < q.length; i++) if (q[i].length() > q[driver].length()) driver = i;
+        String d = q[driver];
+        int others = EXACT * (q.length - 1);
+
+        lock.readLock().lock();
+        try {
+            Collector c = new Collector(q, k);
+            // tiers in decreasing driver score; stop once nothing later can beat the current top k
+            Term exact = terms.get(d);
+            if (exact != null && c.collect(exact, EXACT + others)) return c.results();
+            for (Term t : terms.tailMap(d, false).values()) {
+                if (!t.text.startsWith(d)) break;
+                if (c.collect(t, PREFIX + others)) return c.results();
+            }
+            if (c.done(FUZZY + others)) return c.results();
+            for (int id : c.fuzzy(driver)) {
+                if (c.collect(termsById.get(id), FUZZY + others)) break;
+            }
+            return c.results();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private final class Collector {
+        final String[] q;
+        final int[] exactIds;  // per query token, the id of the identical term or -1
+        final int[][] fuzzy;   // per query token, sorted ids of terms within its edit budget; built on demand
+        final int k;
+        final PriorityQueue<Scored> top = new PriorityQueue<>(); // weakest first
+        final BitSet seen = new BitSet();
+        long order;
+
+        Collector(String[] q, int k) {
+            this.q = q;
+            this.k = k;
+            this.exactIds = new int[q.length];
+            this.fuzzy = new int[q.length][];
+            for (int i = 0; i < q.length; i++) {
+                Term t = terms.get(q[i]);
+                exactIds[i] = t == null ? -1 : t.id;
+            }
+        }
+
+        // scores the term's documents; true once the top k can no longer improve in this tier or later ones
+        boolean collect(Term term, int tierBest) {
+            int[] docs = term.docs.values;
+            for (int j = 0, n = term.docs.size; j < n; j++) {
+                if (done(tierBest)) return true;
+                int doc = docs[j];
+                // stale postings are skipped before marking, so the document can still match through another term
+                if (seen.get(doc) || !holds(doc, term.id)) continue;
+                seen.set(doc);
+                int score = score(docTerms.get(doc));
+                if (score == 0) continue;
+                if (top.size() < k) {
+                    top.add(new Scored(doc, score, order++));
+                } else if (top.peek().score < score) {
+                    top.poll();
+                    top.add(new Scored(doc, score, order++));
+                }
+            }
+            return done(tierBest);
+        }
+
+        boolean done(int tierBest) {
+            return top.size() >= k && top.peek().score >= tierBest;
+        }
+
+        // total points, or 0 if the document misses a token or cannot beat the current top k; the
+        // cheap exact check runs first and the costlier ones only while they could still matter
+        private int score(int[] ids) {
+            if (ids == null) return 0;
+            int floor = top.size() >= k ? top.peek().score : 0; // ties lose to earlier finds
+            int score = 0;
+            for (int i = 0; i < q.length; i++) {
+                int rest = EXACT * (q.length - i - 1);
+                int best = 0;
+                for (int id : ids) {
+                    if (id == exactIds[i]) {
+                        best = EXACT;
+                        break;
+                    }
+                }
+                if (best == 0) {
+                    if (score + PREFIX + rest <= floor) return 0;
+                    for (int id : ids) {
+                        if (termsById.get(id).text.startsWith(q[i])) {
+                            best = PREFIX;
+                            break;
+                        }
+                    }
+                }
+                if (best == 0) {
+                    if (score + FUZZY + rest <= floor) return 0;
+                    int[] near = fuzzy(i);
+                    for (int id : ids) {
+                        if (Arrays.binarySearch(near, id) >= 0) {
+                            best = FUZZY;
+                            break;
+                        }
+                    }
+                }
+                if (best == 0) return 0;
+                score += best;
+            }
+            return score;
+        }
+
+        int[] fuzzy(int i) {
+            if (fuzzy[i] == null) fuzzy[i] = fuzzyTermIds(q[i]);
+            return fuzzy[i];
+        }
+
+        List<K> results() {
+            List<Scored> all = new ArrayList<>(top);
+            all.sort(Comparator.reverseOrder());
+            List<K> out = new ArrayList<>(all.size());
+            for (Scored s : all) out.add(docKeys.get(s.doc));
+            return out;
+        }
+    }
+
+    private static int editBudget(String q) {
+        return q.length() <= 3 ? 0 : q.length() <= 6 ? 1 : 2;
+    }
+
+    // sorted ids of live terms within the token's edit budget, excluding those it is a prefix of
+    private int[] fuzzyTermIds(String q) {
+        int budget = editBudget(q);
+        if (budget == 0) return NO_IDS;
+        List<String> grams = grams(q);
+        // an edit touches at most 3 trigrams (a transposition up to 4)
+        int needed = Math.max(1, grams.size() - 4 * budget);
+        // gather ids from the trigram lists of every length in range, then count repeats after sorting
+        IntList hits = new IntList(64);
+        for (String g : grams) {
+            for (int len = Math.max(1, q.length() - budget); len <= q.length() + budget; len++) {
+                IntList ids = termIdsByGram.get(gramKey(g, len));
+                if (ids == null) continue;
+                for (int i = 0; i < ids.size; i++) hits.add(ids.values[i]);
+            }
+        }
+        int[] sorted = Arrays.copyOf(hits.values, hits.size);
+        Arrays.sort(sorted);
+        IntList out = new IntList(16);
+        for (int i = 0; i < sorted.length; ) {
+            int j = i;
+            while (j < sorted.length && sorted[j] == sorted[i]) j++;
+            if (j - i >= needed) {
+                Term t = termsById.get(sorted[i]);
+                if (t != null && !t.text.startsWith(q) && editDistanceWithin(q, t.text, budget)) out.add(t.id);
+            }
+            i = j;
+        }
+        return Arrays.copyOf(out.values, out.size); // ascending, as the ids were sorted
+    }
+
+    // optimal string alignment distance <= max (Levenshtein plus adjacent transpositions); tokens are
+    // short, so a three-row table with an early exit is enough
+    static boolean editDistanceWithin(String a, String b, int max) {
+        int n = a.length(), m = b.length();
+        if (Math.abs(n - m) > max) return false;
+        int[] prev2 = new int[m + 1], prev = new int[m + 1], cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j;
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(cur[j - 1], prev[j]) + 1, prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    v = Math.min(v, prev2[j - 2] + 1);
+                }
+                cur[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (rowMin > max) return false;
+            int[] tmp = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return prev[m] <= max;
+    }
+
+    // trigram lists are split by term length, so a lookup only touches terms that could be in budget
+    private static String gramKey(String gram, int termLength) {
+        return gram + (char) Math.min(termLength, Character.MAX_VALUE);
+    }
+
+    private static List<String> grams(String term) {
+        String padded = "$" + term + "$";
+        List<String> out = new ArrayList<>(padded.length());
+        for (int i = 0; i + 3 <= padded.length(); i++) out.add(padded.substring(i, i + 3));
+        return out;
+    }
+
+    static String[] tokenize(String... fields) {
+        List<String> out = new ArrayList<>();
+        for (String f : fields) {
+            if (f == null) continue;
+            String s = f.toLowerCase(Locale.ROOT);
+            int start = -1;
+            for (int i = 0; i <= s.length(); i++) {
+                boolean word = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+                if (word && start < 0) start = i;
+                if (!word && start >= 0) {
+                    String t = s.substring(start, i);
+                    if (!out.contains(t)) out.add(t);
+                    start = -1;
+                }
+            }
+        }
+        return out.toArray(new String[0]);
+    }
+
+    private static boolean contains(int[] a, int v) {
+        for (int x : a) if (x == v) return true;
+        return false;
+    }
+
+    private static final class Scored implements Comparable<Scored> {
+        final int doc;
+        final int score;
+        final long order; // earlier discoveries win ties
+
+        Scored(int doc, int score, long order) {
+            this.doc = doc;
+            this.score = score;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Scored o) {
+            if (score != o.score) return Integer.compare(score, o.score);
+            return Long.compare(o.order, order);
+        }
+    }
+}
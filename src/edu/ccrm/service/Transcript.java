@@ -0,0 +1,50 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+
+import java.util.List;
+
+/** Immutable view of a student's profile, current-term enrollments and GPA at the moment it was built. */
+public final class Transcript {
+    private final String regNo;
+    private final String text;
+    private final List<Enrollment> enrollments;
+    private final String term;
+    private final StudentTotals totals;     // current term
+    private final StudentTotals cumulative; // every term
+
+    Transcript(Student s, String term, List<Enrollment> enrollments, StudentTotals totals, StudentTotals cumulative) {
+        this.regNo = s.getRegNo();
+        this.term = term;
+        this.enrollments = List.copyOf(enrollments);
+        this.totals = totals;
+        this.cumulative = cumulative;
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("----- PROFILE -----\n")
+                .append("ID: ").append(s.getId()).append('\n')
+                .append("RegNo: ").append(s.getRegNo()).append('\n')
+                .append("Name: ").append(s.getFullName()).append('\n')
+                .append("Email: ").append(s.getEmail()).append('\n')
+                .append("Enrolled courses: ").append(s.getEnrolledCourseCodes()).append('\n')
+                .append("Enrollment date: ").append(s.getEnrollmentDate()).append('\n')
+                .append("Status: ").append(s.isActive() ? "ACTIVE" : "INACTIVE").append('\n')
+                .append("-- Enrollments (").append(term).append(") --\n");
+        // grades are mutable on Enrollment, so render them now rather than on every view
+        for (Enrollment e : enrollments) sb.append(e).append('\n');
+        sb.append(String.format("Term GPA: %.2f%nCumulative GPA: %.2f", totals.gpa(), cumulative.gpa()));
+        this.text = sb.toString();
+    }
+
+    public String getRegNo() { return regNo; }
+    public List<Enrollment> getEnrollments() { return enrollments; }
+    public String getTerm() { return term; }
+    public int getEnrolledCredits() { return totals.getEnrolledCredits(); }
+    public double getTermGpa() { return totals.gpa(); }
+    /** Cumulative GPA over every term. */
+    public double getGpa() { return cumulative.gpa(); }
+
+    /** The rendered transcript, as printed by the enrollment menu. */
+    @Override
+    public String toString() { return text; }
+}
@@ -0,0 +1,158 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of rendered transcripts keyed by regNo. It listens to the services and drops
+ * exactly the transcripts a change affects: the student's own when a student is added under their
+ * regNo or on enroll, drop, grade or profile changes, every enrolled student's on a course credit
+ * change, and all of them when the term closes. Transcripts show course codes, not titles, so other
+ * course changes leave them alone.
+ *
+ * A transcript built while a change to the same student is in flight must not be cached. Each
+ * invalidation bumps a version stripe for the regNo; a freshly built transcript is only stored if
+ * its stripe did not move while it was being built.
+ */
+public class TranscriptCache implements MutationListener {
+    private static final int VERSION_STRIPES = 64; // power of two
+
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+    private final int maxEntries;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final LinkedHashMap<String, Transcript> entries; // access order; guarded by itself
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public TranscriptCache(StudentService ss, CourseService cs, EnrollmentService es, int maxEntries) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        this.studentService = ss;
+        this.courseService = cs;
+        this.enrollmentService = es;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Transcript> eldest) {
+                if (size() <= TranscriptCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+        ss.addMutationListener(this);
+        cs.addMutationListener(this);
+        es.addMutationListener(this);
+    }
+
+    /** Stops listening to the services; the cache must not be used afterwards. */
+    public void close() {
+        studentService.removeMutationListener(this);
+        courseService.removeMutationListener(this);
+        enrollmentService.removeMutationListener(this);
+        clear();
+    }
+
+    public Optional<Transcript> get(String regNo) {
+        synchronized (entries) {
+            Transcript t = entries.get(regNo);
+            if (t != null) {
+                hits.increment();
+                return Optional.of(t);
+            }
+        }
+        misses.increment();
+        Optional<Student> os = studentService.findByRegNo(regNo);
+        if (os.isEmpty()) return Optional.empty();
+        Student s = os.get();
+        int stripe = stripe(s.getRegNo());
+        long version = versions.get(stripe);
+        Transcript t = new Transcript(s, enrollmentService.getCurrentTerm(),
+                enrollmentService.listEnrollmentsForStudent(s.getRegNo()), enrollmentService.totalsFor(s.getRegNo()),
+                enrollmentService.cumulativeTotalsFor(s.getRegNo()));
+        synchronized (entries) {
+            if (versions.get(stripe) == version) entries.put(s.getRegNo(), t);
+        }
+        return Optional.of(t);
+    }
+
+    public void invalidate(String regNo) {
+        versions.incrementAndGet(stripe(regNo));
+        synchronized (entries) {
+            if (entries.remove(regNo) != null) invalidations.increment();
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < VERSION_STRIPES; i++) versions.incrementAndGet(i);
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxEntries() { return maxEntries; }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+    public long getInvalidations() { return invalidations.sum(); }
+
+    public double hitRate() {
+        long h = hits.sum(), total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public String stats() {
+        return String.format("transcript cache: %d/%d entries, %d hits, %d misses (%.1f%% hit rate), %d evictions, %d invalidations",
+                size(), maxEntries, getHits(), getMisses(), hitRate() * 100, getEvictions(), getInvalidations());
+    }
+
+    private static int stripe(String regNo) {
+        int h = regNo.hashCode();
+        return (h ^ (h >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    // ---- invalidation ----
+
+    // a student loaded under a regNo seen before (a reload or restore) must not inherit its transcript
+    @Override
+    public void studentAdded(Student s) { invalidate(s.getRegNo()); }
+
+    @Override
+    public void studentChanged(Student s, String property, Object oldValue, Object newValue) { invalidate(s.getRegNo()); }
+
+    @Override
+    public void enrolled(Enrollment e) { invalidate(e.getRegNo()); }
+
+    @Override
+    public void dropped(Enrollment e) { invalidate(e.getRegNo()); }
+
+    @Override
+    public void gradeAssigned(Enrollment e, Grade oldGrade) { invalidate(e.getRegNo()); }
+
+    @Override
+    public void termClosed(String closedTerm, String nextTerm) { clear(); }
+
+    @Override
+    public void courseChanged(Course c, String property, Object oldValue, Object newValue) {
+        // transcripts show course codes only; credits feed the GPA
+        if (!property.equals("credits")) return;
+        for (Enrollment e : enrollmentService.listEnrollmentsForCourse(c.getCode())) invalidate(e.getRegNo());
+    }
+}